@@ -0,0 +1,90 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.api.signer;
+
+import com.gngpp.ddns.api.auth.BasicCredentials;
+import com.gngpp.ddns.enums.HttpMethod;
+import io.vertx.core.http.HttpHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享 {@link HuaweiSigner} 的签名吞吐量，单线程和多线程竞争
+ *
+ * @author mac
+ * 2022/4/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HuaweiSignerBenchmark {
+
+    private final BasicCredentials credentials = new BasicCredentials("benchmark-key", "benchmark-secret");
+    private final HuaweiSigner signer = HuaweiSigner.getSigner();
+
+    @Benchmark
+    public String signGet() {
+        return this.sign(HuaweiRequest.newBuilder(this.credentials)
+                                      .setMethod(HttpMethod.GET)
+                                      .setUrl("https://dns.myhuaweicloud.com/v2/zones?type=public&limit=500&offset=0"));
+    }
+
+    @Benchmark
+    public String signPut() {
+        return this.sign(HuaweiRequest.newBuilder(this.credentials)
+                                      .setMethod(HttpMethod.PUT)
+                                      .setUrl("https://dns.myhuaweicloud.com/v2/zones/ff8080827/recordsets/ff8080828")
+                                      .setBody("{\"name\":\"www.example.com.\",\"type\":\"A\",\"ttl\":600,\"records\":[\"1.1.1.1\"]}"));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String signGetContended() {
+        return this.signGet();
+    }
+
+    private String sign(HuaweiRequest request) {
+        request.addHeader("Content-Type", "application/json");
+        this.signer.sign(request);
+        return request.getHeaders()
+                      .get(HttpHeaders.AUTHORIZATION.toString());
+    }
+}
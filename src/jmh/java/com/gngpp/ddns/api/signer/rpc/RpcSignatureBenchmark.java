@@ -0,0 +1,191 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.api.signer.rpc;
+
+import com.gngpp.ddns.api.signer.algorithm.Signer;
+import com.gngpp.ddns.enums.HttpMethod;
+import com.gngpp.ddns.util.ApiURLEncoderUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RPC签名，与原实现（复制排序键、URLEncoder替换链、每次新建Mac）对比，
+ * 使用 gc profiler 查看每次操作的分配量
+ *
+ * @author mac
+ * 2022/4/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpcSignatureBenchmark {
+
+    private static final String SECRET = "benchmark-secret&";
+    private final RpcAPISignatureComposer aliyunComposer = AliyunSignatureComposer.getComposer();
+    private final RpcAPISignatureComposer dnspodComposer = DnspodSignatureComposer.getComposer();
+    private final Signer signer = Signer.getSHA1Signer();
+    private Map<String, Object> aliyunParams;
+    private Map<String, Object> dnspodParams;
+    private String stringToSign;
+
+    @Setup
+    public void setup() {
+        this.aliyunParams = new TreeMap<>();
+        this.aliyunParams.put("Format", "JSON");
+        this.aliyunParams.put("Version", "2015-01-09");
+        this.aliyunParams.put("AccessKeyId", "LTAI4FzBenchmarkKey");
+        this.aliyunParams.put("SignatureMethod", "HMAC-SHA1");
+        this.aliyunParams.put("SignatureVersion", "1.0");
+        this.aliyunParams.put("SignatureNonce", "3f2a1b9c8d7e6f50a1");
+        this.aliyunParams.put("Timestamp", "2022-04-16T08:09:10Z");
+        this.aliyunParams.put("Action", "UpdateDomainRecord");
+        this.aliyunParams.put("RecordId", "9999985");
+        this.aliyunParams.put("RR", "www");
+        this.aliyunParams.put("Type", "A");
+        this.aliyunParams.put("Value", "1.1.1.1");
+        this.dnspodParams = new TreeMap<>();
+        this.dnspodParams.put("SecretId", "AKIDBenchmarkSecretId");
+        this.dnspodParams.put("Action", "ModifyRecord");
+        this.dnspodParams.put("Version", "2021-03-23");
+        this.dnspodParams.put("SignatureMethod", "HmacSHA256");
+        this.dnspodParams.put("Timestamp", 1650096550L);
+        this.dnspodParams.put("Nonce", 1234567L);
+        this.dnspodParams.put("Domain", "example.com");
+        this.dnspodParams.put("SubDomain", "www");
+        this.dnspodParams.put("RecordId", "10001");
+        this.dnspodParams.put("RecordType", "A");
+        this.dnspodParams.put("RecordLine", "默认");
+        this.dnspodParams.put("Value", "1.1.1.1");
+        this.stringToSign = this.aliyunComposer.composeStringToSign(HttpMethod.GET, this.aliyunParams);
+        if (!this.stringToSign.equals(baselineAliyunStringToSign(HttpMethod.GET, new HashMap<>(this.aliyunParams)))
+                || !this.dnspodComposer.composeStringToSign(HttpMethod.GET, this.dnspodParams)
+                                       .equals(baselineDnspodStringToSign(HttpMethod.GET, new HashMap<>(this.dnspodParams)))
+                || !Arrays.equals(this.signer.signString(this.stringToSign, SECRET), baselineSign(this.stringToSign, SECRET, "HmacSHA1"))) {
+            throw new IllegalStateException("signature differs from the baseline");
+        }
+    }
+
+    @Benchmark
+    public String aliyunStringToSign() {
+        return this.aliyunComposer.composeStringToSign(HttpMethod.GET, this.aliyunParams);
+    }
+
+    @Benchmark
+    public String aliyunStringToSignBaseline() {
+        return baselineAliyunStringToSign(HttpMethod.GET, this.aliyunParams);
+    }
+
+    @Benchmark
+    public String dnspodStringToSign() {
+        return this.dnspodComposer.composeStringToSign(HttpMethod.GET, this.dnspodParams);
+    }
+
+    @Benchmark
+    public String dnspodStringToSignBaseline() {
+        return baselineDnspodStringToSign(HttpMethod.GET, this.dnspodParams);
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        return this.signer.signString(this.stringToSign, SECRET);
+    }
+
+    @Benchmark
+    public byte[] signBaseline() {
+        return baselineSign(this.stringToSign, SECRET, "HmacSHA1");
+    }
+
+    @Benchmark
+    public String aliyunSignatureUrl() {
+        return this.aliyunComposer.toSignatureUrl(SECRET, "https://alidns.aliyuncs.com/", HttpMethod.GET, this.aliyunParams);
+    }
+
+    @Benchmark
+    public String dnspodSignatureUrl() {
+        return this.dnspodComposer.toSignatureUrl(SECRET, "https://dnspod.tencentcloudapi.com/", HttpMethod.GET, this.dnspodParams);
+    }
+
+    private static String baselineAliyunStringToSign(HttpMethod method, Map<String, Object> queryParamMap) {
+        String[] sortedKeys = queryParamMap.keySet()
+                                           .toArray(new String[]{});
+        Arrays.sort(sortedKeys);
+        StringBuilder canonicalizeQueryString = new StringBuilder();
+        for (String key : sortedKeys) {
+            canonicalizeQueryString.append("&")
+                                   .append(ApiURLEncoderUtil.aliyunPercentEncode(key))
+                                   .append("=")
+                                   .append(ApiURLEncoderUtil.aliyunPercentEncode(queryParamMap.get(key)
+                                                                                              .toString()));
+        }
+        return method.name() + "&" + ApiURLEncoderUtil.aliyunPercentEncode("/") + "&" + ApiURLEncoderUtil.aliyunPercentEncode(canonicalizeQueryString.substring(1));
+    }
+
+    private static String baselineDnspodStringToSign(HttpMethod method, Map<String, Object> queries) {
+        String[] sortedKeys = queries.keySet()
+                                     .toArray(new String[]{});
+        Arrays.sort(sortedKeys);
+        StringBuilder canonicalizedQueryString = new StringBuilder(method.name() + "dnspod.tencentcloudapi.com/?");
+        for (String key : sortedKeys) {
+            canonicalizedQueryString.append(key)
+                                    .append("=")
+                                    .append(queries.get(key))
+                                    .append("&");
+        }
+        return canonicalizedQueryString.substring(0, canonicalizedQueryString.length() - 1);
+    }
+
+    private static byte[] baselineSign(String stringToSign, String secret, String algorithmName) {
+        try {
+            Mac mac = Mac.getInstance(algorithmName);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithmName));
+            return mac.doFinal(stringToSign.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e.toString());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.codec;
+
+import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.enums.LogStatus;
+import com.gngpp.ddns.pojo.DnsRecordLog;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志事件总线编解码，与原来的 JSON 编码对比
+ *
+ * @author mac
+ * 2022/4/16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DnsRecordLogMessageCodecBenchmark {
+
+    private final DnsRecordLogMessageCodec codec = new DnsRecordLogMessageCodec();
+    private DnsRecordLog dnsRecordLog;
+    private Buffer encoded;
+    private Buffer jsonEncoded;
+
+    @Setup
+    public void setup() {
+        this.dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.ALIYUN)
+                                              .setAccount("default")
+                                              .setLogStatus(LogStatus.MODIFY)
+                                              .setTimestamp(1_650_096_550_123L)
+                                              .setSeq(123_456L)
+                                              .setDomainOrMessage("www.example.com")
+                                              .setSourceIp("1.1.1.1")
+                                              .setTargetIp("2.2.2.2");
+        this.encoded = Buffer.buffer();
+        this.codec.encodeToWire(this.encoded, this.dnsRecordLog);
+        this.jsonEncoded = Buffer.buffer();
+        encodeJson(this.jsonEncoded, this.dnsRecordLog);
+    }
+
+    @Benchmark
+    public Buffer encode() {
+        final var buffer = Buffer.buffer();
+        this.codec.encodeToWire(buffer, this.dnsRecordLog);
+        return buffer;
+    }
+
+    @Benchmark
+    public DnsRecordLog decode() {
+        return this.codec.decodeFromWire(0, this.encoded);
+    }
+
+    @Benchmark
+    public Buffer encodeJson() {
+        final var buffer = Buffer.buffer();
+        encodeJson(buffer, this.dnsRecordLog);
+        return buffer;
+    }
+
+    @Benchmark
+    public DnsRecordLog decodeJson() {
+        final var length = this.jsonEncoded.getInt(0);
+        return Json.decodeValue(this.jsonEncoded.getString(4, 4 + length, StandardCharsets.UTF_8.name()), DnsRecordLog.class);
+    }
+
+    /**
+     * 原实现，长度前缀加格式化的JSON
+     */
+    private static void encodeJson(Buffer buffer, DnsRecordLog dnsRecordLog) {
+        final var bytes = Json.encodePrettily(dnsRecordLog)
+                              .getBytes(StandardCharsets.UTF_8);
+        buffer.appendInt(bytes.length);
+        buffer.appendBytes(bytes);
+    }
+}
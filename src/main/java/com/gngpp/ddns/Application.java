@@ -42,9 +42,14 @@ public class Application {
 
     public static void main(String[] args) throws IOException, InterruptedException {
         final var vertxOptions = new VertxOptions();
+        final var httpClientProperties = ConfigProperty.getHttpClientProperties();
         final var addressResolverOptions = new AddressResolverOptions()
                 // Server list polling
-                .setRotateServers(true);
+                .setRotateServers(true)
+                // 服务商接口域名解析结果缓存，避免每次请求都查询DNS
+                .setCacheMinTimeToLive(httpClientProperties.getDnsCacheMinTtl())
+                .setCacheMaxTimeToLive(httpClientProperties.getDnsCacheMaxTtl())
+                .setCacheNegativeTimeToLive(httpClientProperties.getDnsCacheNegativeTtl());
         for (String dnsServer : ConfigProperty.getDefaultProperties()
                                               .getDnsServerList()) {
             addressResolverOptions.addServer(dnsServer);
@@ -26,7 +26,12 @@
 
 package com.gngpp.ddns.api.provider;
 
-import com.gngpp.ddns.api.provider.exception.DnsServiceResponseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gngpp.ddns.concurrent.TokenBucketRateLimiter;
+import com.gngpp.ddns.config.ConfigProperty;
+import com.gngpp.ddns.config.property.RateLimitProperties;
+import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.util.Assert;
 import com.gngpp.ddns.util.ObjectUtil;
 import com.gngpp.ddns.api.auth.ProviderCredentials;
@@ -35,29 +40,28 @@ import com.gngpp.ddns.enums.HttpMethod;
 import com.gngpp.ddns.util.LogUtil;
 import com.gngpp.ddns.util.StringUtil;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.DecodeException;
-import io.vertx.core.json.Json;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.WebClientOptions;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.net.http.HttpClient;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * @author mac
@@ -67,41 +71,160 @@ import java.util.concurrent.TimeUnit;
 public abstract class AbstractDnsProvider<T, A> implements DnsRecordProvider<T> {
 
     protected final Logger log = LogManager.getLogger("[AbstractDnsProvider]");
-    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
     protected ProviderCredentials dnsProviderCredentials;
-    protected final HttpClient httpClient = HttpClient.newBuilder()
-                                                      .connectTimeout(Duration.ofMillis(DEFAULT_CONNECT_TIMEOUT))
-                                                      .executor(Executors.newSingleThreadExecutor())
-                                                      .build();
-    protected final CloseableHttpClient closeableHttpClient = HttpClients.custom()
-                                                                         .setConnectionTimeToLive(DEFAULT_CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)
-                                                                         .build();
+    /**
+     * 所有服务商共享同一个WebClient（连接池），由调用方创建和管理
+     */
     protected final WebClient webClient;
+    protected final Vertx vertx;
+    private final DnsProviderType dnsProviderType;
+    private final RateLimitProperties rateLimitProperties;
+    private volatile TokenBucketRateLimiter rateLimiter;
 
-    protected AbstractDnsProvider(ProviderCredentials dnsApiCredentials, Vertx vertx) {
+    protected AbstractDnsProvider(ProviderCredentials dnsApiCredentials,
+                                  Vertx vertx,
+                                  WebClient webClient,
+                                  DnsProviderType dnsProviderType) {
         if (vertx == null) {
             throw new RuntimeException("Vert.x instance cannot be null");
         }
         Assert.notNull(dnsApiCredentials, "Credentials cannot been null!");
+        Assert.notNull(webClient, "WebClient cannot been null!");
         this.dnsProviderCredentials = dnsApiCredentials;
-        final var webClientOptions = new WebClientOptions()
-                .setConnectTimeout(DEFAULT_CONNECT_TIMEOUT)
-                .setSsl(true);
-        this.webClient = WebClient.create(vertx, webClientOptions);
+        this.vertx = vertx;
+        this.dnsProviderType = dnsProviderType;
+        this.rateLimitProperties = ConfigProperty.getRateLimitProperties();
+        this.rateLimiter = this.createRateLimiter();
+        this.webClient = webClient;
     }
 
+    private TokenBucketRateLimiter createRateLimiter() {
+        final var bucket = this.rateLimitProperties.getBucket(this.dnsProviderType);
+        return new TokenBucketRateLimiter(this.vertx, bucket.getRatePerSecond(), bucket.getBurst());
+    }
 
+    /**
+     * 经过限流发送请求，被服务商限流或出现临时错误时按指数退避重试
+     *
+     * @param requestSupplier 每次调用都重新构建并发送请求，保证签名随机数、时间戳不会重复
+     * @param idempotent      是否幂等，非幂等请求只在服务商明确拒绝（限流）时重试，网络异常不重试，避免重复创建
+     * @return {@link Future<HttpResponse>}
+     */
+    protected Future<HttpResponse<Buffer>> executeAsync(Supplier<Future<HttpResponse<Buffer>>> requestSupplier, boolean idempotent) {
+        return this.executeAsync(requestSupplier, idempotent, 0);
+    }
 
-    protected <E> E mapperResult(byte[] bytes, Class<E> tClass) {
-        try {
-            if (ObjectUtil.isEmpty(bytes)) {
-                return null;
+    private Future<HttpResponse<Buffer>> executeAsync(Supplier<Future<HttpResponse<Buffer>>> requestSupplier,
+                                                      boolean idempotent,
+                                                      int attempt) {
+        return this.rateLimiter.acquire()
+                               .compose(v -> {
+                                   try {
+                                       return requestSupplier.get();
+                                   } catch (Exception e) {
+                                       return Future.failedFuture(e);
+                                   }
+                               })
+                               .transform(ar -> {
+                                   final var canRetry = attempt < this.rateLimitProperties.getMaxRetries();
+                                   if (ar.succeeded()) {
+                                       final var response = ar.result();
+                                       if (canRetry && this.isRetryable(response, idempotent)) {
+                                           final var delay = this.backoff(attempt, response.getHeader("Retry-After"));
+                                           if (delay >= 0) {
+                                               LogUtil.printDebug(log, this.dnsProviderType + " request throttled, status: " + response.statusCode() + ", retry after " + delay + "ms");
+                                               return this.delay(delay)
+                                                          .compose(v -> this.executeAsync(requestSupplier, idempotent, attempt + 1));
+                                           }
+                                       }
+                                       return Future.succeededFuture(response);
+                                   }
+                                   final var cause = ar.cause();
+                                   if (canRetry && idempotent && this.isRetryable(cause)) {
+                                       final var delay = this.backoff(attempt, null);
+                                       LogUtil.printDebug(log, this.dnsProviderType + " request failed: " + cause.getMessage() + ", retry after " + delay + "ms");
+                                       return this.delay(delay)
+                                                  .compose(v -> this.executeAsync(requestSupplier, idempotent, attempt + 1));
+                                   }
+                                   return Future.failedFuture(cause);
+                               });
+    }
+
+    /**
+     * 服务商返回的响应是否需要重试，子类可根据响应体中的错误码补充判断。
+     * 限流说明请求未被处理，任何请求都可以重试；5xx等临时错误时请求可能已经生效，只有幂等请求才重试
+     *
+     * @param response   响应
+     * @param idempotent 是否幂等
+     * @return {@link boolean}
+     */
+    protected boolean isRetryable(HttpResponse<Buffer> response, boolean idempotent) {
+        final var statusCode = response.statusCode();
+        if (statusCode == 429) {
+            return true;
+        }
+        return idempotent && (statusCode == 502 || statusCode == 503 || statusCode == 504);
+    }
+
+    /**
+     * 请求异常是否属于临时错误（连接失败、超时、连接被关闭）
+     *
+     * @param throwable 异常
+     * @return {@link boolean}
+     */
+    protected boolean isRetryable(Throwable throwable) {
+        return throwable instanceof IOException
+                || throwable instanceof TimeoutException
+                || throwable instanceof VertxException;
+    }
+
+    /**
+     * 计算退避时间，在指数退避的基础上随机取后半段，服务端指定了Retry-After时不早于该时间
+     *
+     * @return 退避毫秒数，服务端要求的等待时间超过最大退避时间时返回-1，不再重试
+     */
+    private long backoff(int attempt, String retryAfter) {
+        final var maxBackoff = this.rateLimitProperties.getMaxBackoff();
+        final var exponential = Math.min(maxBackoff, this.rateLimitProperties.getBaseBackoff() << Math.min(attempt, 20));
+        var delay = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+        if (!StringUtil.isEmpty(retryAfter)) {
+            try {
+                final var retryAfterMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                if (retryAfterMillis > maxBackoff) {
+                    return -1;
+                }
+                delay = Math.max(delay, retryAfterMillis);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date格式，按指数退避处理
             }
-            return Json.decodeValue(Buffer.buffer(bytes), tClass);
-        } catch (DecodeException e) {
-            LogUtil.printDebug(log, e.getMessage(), e.getCause());
+        }
+        return Math.max(1, delay);
+    }
+
+    private Future<Void> delay(long delay) {
+        final Promise<Void> promise = Promise.promise();
+        this.vertx.setTimer(delay, id -> promise.complete());
+        return promise.future();
+    }
+
+
+
+    /**
+     * 预先构建的ObjectReader，线程安全，服务商按结果类型各自持有
+     *
+     * @param tClass 结果类型
+     * @return {@link ObjectReader}
+     */
+    protected static ObjectReader readerFor(Class<?> tClass) {
+        return DatabindCodec.mapper()
+                            .readerFor(tClass);
+    }
+
+    protected <E> E mapperResult(byte[] bytes, Class<E> tClass) {
+        if (ObjectUtil.isEmpty(bytes)) {
             return null;
         }
+        return this.mapperResult(Buffer.buffer(bytes), readerFor(tClass));
     }
 
     protected <E> E mapperResult(String content, Class<E> tClass) {
@@ -111,21 +234,61 @@ public abstract class AbstractDnsProvider<T, A> implements DnsRecordProvider<T>
         return this.mapperResult(content.getBytes(StandardCharsets.UTF_8), tClass);
     }
 
-    protected T bodyHandler(String body) {
-        throw new UnsupportedOperationException("unrealized");
+    /**
+     * 直接从响应Buffer流式解析，不经过String和中间JsonObject
+     *
+     * @param body   响应体
+     * @param reader 结果类型的ObjectReader
+     * @return 解析失败或响应体为空时返回null
+     */
+    protected <E> E mapperResult(Buffer body, ObjectReader reader) {
+        if (body == null || body.length() == 0) {
+            return null;
+        }
+        try (InputStream in = new ByteBufInputStream(body.getByteBuf())) {
+            return reader.readValue(in);
+        } catch (IOException e) {
+            LogUtil.printDebug(log, e.getMessage(), e.getCause());
+            return null;
+        }
     }
 
-    protected T sendRequest(HttpRequestBase request) {
-        try (final var httpResponse = this.closeableHttpClient.execute(request)) {
-            final var body = this.getBody(httpResponse);
-            return this.bodyHandler(body);
+    /**
+     * 同一个响应需要绑定到多个类型时，先解析为树，再分别绑定
+     *
+     * @param body 响应体
+     * @return 解析失败或响应体为空时返回null
+     */
+    protected JsonNode mapperTree(Buffer body) {
+        if (body == null || body.length() == 0) {
+            return null;
+        }
+        try (InputStream in = new ByteBufInputStream(body.getByteBuf())) {
+            return DatabindCodec.mapper()
+                                .readTree(in);
+        } catch (IOException e) {
+            LogUtil.printDebug(log, e.getMessage(), e.getCause());
+            return null;
+        }
+    }
+
+    protected <E> E mapperResult(JsonNode node, ObjectReader reader) {
+        if (node == null || node.isMissingNode() || node.isNull()) {
+            return null;
+        }
+        try {
+            return reader.readValue(node);
         } catch (IOException e) {
             LogUtil.printDebug(log, e.getMessage(), e.getCause());
-            throw new DnsServiceResponseException(e.getMessage(), e.getCause());
+            return null;
         }
     }
 
-    protected T bodyHandler(String body, A a) {
+    protected T bodyHandler(Buffer body) {
+        throw new UnsupportedOperationException("unrealized");
+    }
+
+    protected T bodyHandler(Buffer body, A a) {
         throw new UnsupportedOperationException("unrealized");
     }
 
@@ -167,24 +330,6 @@ public abstract class AbstractDnsProvider<T, A> implements DnsRecordProvider<T>
         return urlBuilder.toString();
     }
 
-    protected String getBody(CloseableHttpResponse httpResponse) throws IOException {
-        final var contentBytes = this.getBodyBytes(httpResponse);
-        return new String(contentBytes, StandardCharsets.UTF_8);
-    }
-
-    protected byte[] getBodyBytes(CloseableHttpResponse httpResponse) throws IOException {
-        final var content = httpResponse.getEntity()
-                                        .getContent();
-        final var statusCode = httpResponse.getStatusLine()
-                                           .getStatusCode();
-        if (statusCode == 200 || statusCode == 202 || statusCode == 204) {
-            return content.readAllBytes();
-        } else {
-            LogUtil.printDebug(log, Json.decodeValue(Buffer.buffer(content.readAllBytes())));
-        }
-        return new byte[0];
-    }
-
     protected Map<String, Object> getQueryParam(String recordId, String domain, A action) {
         return this.getQueryParam(recordId, domain, (String) null, (DnsRecordType) null, action);
     }
@@ -206,8 +351,24 @@ public abstract class AbstractDnsProvider<T, A> implements DnsRecordProvider<T>
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * 新凭证与当前凭证是否不同
+     *
+     * @param dnsProviderCredentials 新凭证
+     * @return {@link boolean}
+     */
+    protected boolean isCredentialsChanged(ProviderCredentials dnsProviderCredentials) {
+        return !Objects.equals(this.dnsProviderCredentials.getAccessKeyId(), dnsProviderCredentials.getAccessKeyId())
+                || !Objects.equals(this.dnsProviderCredentials.getAccessKeySecret(), dnsProviderCredentials.getAccessKeySecret());
+    }
+
     @Override
     public void reloadCredentials(ProviderCredentials dnsProviderCredentials) {
+        final var credentialsChanged = this.isCredentialsChanged(dnsProviderCredentials);
         this.dnsProviderCredentials = dnsProviderCredentials;
+        // 限流按凭证计算，更换凭证后重新开始计数
+        if (credentialsChanged) {
+            this.rateLimiter = this.createRateLimiter();
+        }
     }
 }
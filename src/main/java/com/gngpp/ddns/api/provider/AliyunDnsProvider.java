@@ -26,6 +26,7 @@
 
 package com.gngpp.ddns.api.provider;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.gngpp.ddns.api.provider.exception.DnsServiceResponseException;
 import com.gngpp.ddns.pojo.AliyunDataResult;
 import com.gngpp.ddns.util.HttpUtil;
@@ -42,13 +43,12 @@ import com.gngpp.ddns.util.StringUtil;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpRequestBase;
+import io.vertx.core.json.DecodeException;
+import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Date;
-import java.util.HashMap;
+import java.util.TreeMap;
 import java.util.Map;
 
 /**
@@ -59,89 +59,56 @@ import java.util.Map;
  */
 public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, AliyunDnsProvider.Action> {
 
+    private static final ObjectReader RESULT_READER = readerFor(AliyunDataResult.class);
     private final Logger log = LogManager.getLogger("[AliyunDnsProvider]");
     private final RpcAPISignatureComposer rpcSignatureComposer = AliyunSignatureComposer.getComposer();
 
-    public AliyunDnsProvider(String accessKeyId, String accessKeySecret, Vertx vertx) {
-        this(new BasicCredentials(accessKeyId, accessKeySecret), vertx);
+    public AliyunDnsProvider(String accessKeyId, String accessKeySecret, Vertx vertx, WebClient webClient) {
+        this(new BasicCredentials(accessKeyId, accessKeySecret), vertx, webClient);
     }
 
-    public AliyunDnsProvider(ProviderCredentials credentials, Vertx vertx) {
-        super(credentials, vertx);
+    public AliyunDnsProvider(ProviderCredentials credentials, Vertx vertx, WebClient webClient) {
+        super(credentials, vertx, webClient, DnsProviderType.ALIYUN);
     }
 
     /**
-     * 查询记录
+     * 异步版本
      *
-     * @param domain        域名/区分主域名、多级域名
+     * @param domain        域名
      * @param dnsRecordType 记录类型
-     * @return {@link AliyunDataResult}
+     * @return {@link Future<AliyunDataResult>}
      */
     @Override
-    public AliyunDataResult findDnsRecordList(String domain, DnsRecordType dnsRecordType) {
+    public Future<AliyunDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
-    }
-
-    /**
-     * 新增记录
-     *
-     * @param domain        域名/区分主域名、多级域名
-     * @param ip            ip值
-     * @param dnsRecordType 记录类型
-     * @return {@link AliyunDataResult}
-     */
-    public AliyunDataResult createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
-    }
-
-    /**
-     * 更新记录
-     *
-     * @param id            记录id
-     * @param domain        域名/区分主域名、多级域名
-     * @param ip            ip值
-     * @param dnsRecordType 记录类型
-     */
-    public AliyunDataResult modifyDnsRecord(String id, String domain, String ip, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
-    }
-
-
-    /**
-     * 删除域名记录
-     *
-     * @param id     记录id（记录唯一凭证）
-     * @param domain 阿里云域名可以忽略
-     * @return {@link AliyunDataResult}
-     */
-    @Override
-    public AliyunDataResult deleteDnsRecord(String id, String domain) {
-        final var queryParam = this.getQueryParam(id, domain, Action.DELETE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
+                   .compose(this::bodyHandlerAsync);
     }
 
     /**
-     * 异步版本
+     * 分页查询主域名下的记录
      *
-     * @param domain        域名
+     * @param domain        主域名
      * @param dnsRecordType 记录类型
+     * @param pageNumber    页码
+     * @param pageSize      每页数量
      * @return {@link Future<AliyunDataResult>}
      */
     @Override
-    public Future<AliyunDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
+    public Future<AliyunDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType, int pageNumber, int pageSize) {
         final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        queryParam.remove("RRKeyWord");
+        queryParam.put("PageNumber", String.valueOf(pageNumber));
+        queryParam.put("PageSize", String.valueOf(pageSize));
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
+    @Override
+    public int maxPageSize() {
+        return 500;
+    }
+
     /**
      * 异步版本
      *
@@ -153,8 +120,7 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
     @Override
     public Future<AliyunDataResult> createDnsRecordAsync(String domain, String ip, DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), false)
                    .compose(this::bodyHandlerAsync);
     }
 
@@ -173,8 +139,7 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
                                                          String ip,
                                                          DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
@@ -188,16 +153,10 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
     @Override
     public Future<AliyunDataResult> deleteDnsRecordAsync(String id, String domain) {
         final var queryParam = this.getQueryParam(id, domain, Action.DELETE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
-    private HttpRequestBase requestBuild(Map<String, Object> queryParam) {
-        final var requestUrl = this.requestUrlBuild(queryParam);
-        return new HttpGet(requestUrl);
-    }
-
     /**
      * 是否支持
      *
@@ -223,8 +182,29 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
     }
 
     @Override
-    protected AliyunDataResult bodyHandler(String body) {
-        final var aliyunDataResult = this.mapperResult(body, AliyunDataResult.class);
+    protected boolean isRetryable(io.vertx.ext.web.client.HttpResponse<Buffer> response, boolean idempotent) {
+        if (super.isRetryable(response, idempotent)) {
+            return true;
+        }
+        if (response.statusCode() == 200) {
+            return false;
+        }
+        try {
+            final var body = response.bodyAsJsonObject();
+            final var code = body == null ? null : body.getString("Code");
+            if (code == null) {
+                return false;
+            }
+            // 服务端内部错误时请求可能已经执行，非幂等请求不重试
+            return code.startsWith("Throttling") || (idempotent && ("ServiceUnavailable".equals(code) || "InternalError".equals(code)));
+        } catch (DecodeException | ClassCastException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected AliyunDataResult bodyHandler(Buffer body) {
+        final AliyunDataResult aliyunDataResult = this.mapperResult(body, RESULT_READER);
         if (aliyunDataResult != null && aliyunDataResult.getMessage() != null) {
             throw new DnsServiceResponseException(aliyunDataResult.getMessage());
         }
@@ -234,8 +214,7 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
     @Override
     protected Future<AliyunDataResult> bodyHandlerAsync(io.vertx.ext.web.client.HttpResponse<Buffer> httpResponse) {
         try {
-            final var body = httpResponse.bodyAsString();
-            final var aliyunDataResult = this.bodyHandler(body);
+            final var aliyunDataResult = this.bodyHandler(httpResponse.body());
             return Future.succeededFuture(aliyunDataResult);
         } catch (Exception e) {
             LogUtil.printDebug(log, e.getMessage(), e.getCause());
@@ -245,20 +224,22 @@ public class AliyunDnsProvider extends AbstractDnsProvider<AliyunDataResult, Ali
 
     private String requestUrlBuild(Map<String, Object> queryParam) {
         final String api = "https://alidns.aliyuncs.com/";
+        // 随机数和时间戳在签名时生成，重试时不会因重复的随机数被拒绝
+        queryParam.put("SignatureNonce", ParameterHelper.getUniqueNonce());
+        queryParam.put("Timestamp", ParameterHelper.getISO8601Time1());
         return this.rpcSignatureComposer.toSignatureUrl(this.dnsProviderCredentials.getAccessKeySecret() + "&", api, HttpMethod.GET, queryParam);
     }
 
 
     private Map<String, Object> getCommonQueryParam(Action action) {
-        final var queryParam = new HashMap<String, Object>();
+        // 按参数名排序，签名时不再重新排序
+        final var queryParam = new TreeMap<String, Object>();
         queryParam.put("Format", "JSON");
         queryParam.put("AccessKeyId", this.dnsProviderCredentials.getAccessKeyId());
         queryParam.put("Action", action.value);
         queryParam.put("SignatureMethod", rpcSignatureComposer.signatureMethod());
-        queryParam.put("SignatureNonce", ParameterHelper.getUniqueNonce());
         queryParam.put("SignatureVersion", rpcSignatureComposer.getSignerVersion());
         queryParam.put("Version", "2015-01-09");
-        queryParam.put("Timestamp", ParameterHelper.getISO8601Time1(new Date()));
         return queryParam;
     }
 
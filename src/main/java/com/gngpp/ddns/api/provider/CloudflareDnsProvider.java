@@ -26,34 +26,32 @@
 
 package com.gngpp.ddns.api.provider;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.gngpp.ddns.api.provider.exception.DnsServiceResponseException;
-import com.gngpp.ddns.api.provider.exception.InvalidDnsCredentialException;
-import com.gngpp.ddns.api.provider.exception.ResolvedDomainException;
+import com.gngpp.ddns.cache.ZoneIndex;
 import com.gngpp.ddns.pojo.CloudflareDataResult;
+import com.gngpp.ddns.pojo.DnsRecordMutation;
 import com.gngpp.ddns.util.*;
 import com.gngpp.ddns.api.auth.ProviderCredentials;
 import com.gngpp.ddns.api.auth.TokenCredentials;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
 import com.gngpp.ddns.enums.HttpMethod;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.apache.http.HttpHeaders;
-import org.apache.http.client.methods.*;
-import org.apache.http.entity.StringEntity;
+import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -65,142 +63,143 @@ import java.util.stream.Collectors;
 @SuppressWarnings("RedundantCast")
 public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataResult, CloudflareDnsProvider.Action> {
 
+    /**
+     * 单条记录接口的result是对象，列表接口是数组，统一按数组解析
+     */
+    private static final ObjectReader RESULT_READER = readerFor(CloudflareDataResult.class).with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
     private final Logger log = LogManager.getLogger("[CloudflareDnsProvider]");
     private final String api = "https://api.cloudflare.com/client/v4/zones";
-    private final Map<String, String> zoneMap = new ConcurrentHashMap<>();
-
-    public CloudflareDnsProvider(String token, Vertx vertx) {
-        this(new TokenCredentials(token), vertx);
-    }
-
+    /**
+     * 区域列表每页最大数量
+     */
+    private static final int ZONE_PAGE_SIZE = 50;
+    /**
+     * 批量接口单次最多提交的记录数
+     */
+    private static final int BATCH_SIZE = 100;
+    /**
+     * 请求过于频繁的错误码
+     */
+    private static final int THROTTLED_CODE = 971;
+    /**
+     * 区域id无效，以及区域不存在导致的路由失败
+     */
+    private static final int INVALID_ZONE_CODE = 1001;
+    private static final int ZONE_ROUTE_CODE = 7003;
+    /**
+     * 区域索引文件目录
+     */
+    private final String zoneDir;
+    private volatile ZoneIndex zoneIndex;
+
+    public CloudflareDnsProvider(String token, String zoneDir, Vertx vertx, WebClient webClient) {
+        this(new TokenCredentials(token), zoneDir, vertx, webClient);
+    }
+
+
+    public CloudflareDnsProvider(ProviderCredentials dnsApiCredentials, String zoneDir, Vertx vertx, WebClient webClient) {
+        super(dnsApiCredentials, vertx, webClient, DnsProviderType.CLOUDFLARE);
+        this.zoneDir = zoneDir;
+        this.zoneIndex = this.createZoneIndex();
+    }
+
+    private ZoneIndex createZoneIndex() {
+        return new ZoneIndex(super.vertx, this.zoneDir, DnsProviderType.CLOUDFLARE, super.dnsProviderCredentials, new ZoneIndex.ZoneFetcher() {
+            @Override
+            public Future<ZoneIndex.ZonePage> fetchPage(int pageNumber) {
+                final var url = api + "?page=" + pageNumber + "&per_page=" + ZONE_PAGE_SIZE;
+                return findZoneAsync(url).map(result -> {
+                    final var zones = new HashMap<String, String>();
+                    // 按域名分区映射区域id
+                    for (CloudflareDataResult.Result res : result.getResult()) {
+                        zones.put(res.getName(), res.getId());
+                    }
+                    final var resultInfo = result.getResultInfo();
+                    final var hasNext = resultInfo != null && resultInfo.getPage() < resultInfo.getTotalPages();
+                    return new ZoneIndex.ZonePage(zones, hasNext);
+                });
+            }
 
-    public CloudflareDnsProvider(ProviderCredentials dnsApiCredentials, Vertx vertx) {
-        super(dnsApiCredentials, vertx);
+            @Override
+            public Future<String> fetchZoneId(String apex) {
+                return findZoneAsync(api + "?name=" + apex).map(result -> result.getResult()
+                                                                                .stream()
+                                                                                .filter(res -> apex.equals(res.getName()))
+                                                                                .map(CloudflareDataResult.Result::getId)
+                                                                                .findFirst()
+                                                                                .orElse(null));
+            }
+        });
     }
 
-    private void initZoneMap(){
-        if (!CollectionUtil.isEmpty(this.zoneMap)) {
-            return;
-        }
-        final var request = HttpRequest.newBuilder()
-                                       .GET()
-                                       .uri(URI.create(api))
-                                       .header(HttpHeaders.AUTHORIZATION, "Bearer " + dnsProviderCredentials.getAccessKeySecret())
-                                       .build();
-        final String body;
-        try {
-            body = super.httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
-        } catch (IOException | InterruptedException e) {
-            throw new InvalidDnsCredentialException(e.getMessage(), e.getCause());
-        }
-        final var result = this.extractZoneResult(body);
-        // 按域名分区映射区域id
-        for (CloudflareDataResult.Result res : result) {
-            this.zoneMap.put(res.getName(), res.getId());
-        }
+    private Future<CloudflareDataResult> findZoneAsync(String url) {
+        return this.sendRequestAsync(url, HttpMethod.GET)
+                   .compose(v -> {
+                       try {
+                           return Future.succeededFuture(this.extractZoneResult(v.body()));
+                       } catch (Exception e) {
+                           return Future.failedFuture(e.getMessage());
+                       }
+                   });
     }
 
-    private Future<Void> initZoneMapAsync() {
-        if (!CollectionUtil.isEmpty(this.zoneMap)) {
-            return Future.succeededFuture();
-        }
-        return this.webClient.getAbs(this.api)
-                             .putHeader(HttpHeaders.AUTHORIZATION, this.bearerToken())
-                             .send()
-                             .compose(v -> {
-                                 final var body = v.bodyAsString();
-                                 try {
-                                     final var result = this.extractZoneResult(body);
-                                     // 按域名分区映射区域id
-                                     for (CloudflareDataResult.Result res : result) {
-                                         this.zoneMap.put(res.getName(), res.getId());
-                                     }
-                                     return Future.succeededFuture();
-                                 } catch (Exception e) {
-                                     return Future.failedFuture(e.getMessage());
-                                 }
-                             });
-    }
-
-    private List<CloudflareDataResult.Result> extractZoneResult(String body) {
-        final var cloudflareDataResult = this.mapperResult(body, CloudflareDataResult.class);
+    private CloudflareDataResult extractZoneResult(Buffer body) {
+        final CloudflareDataResult cloudflareDataResult = this.mapperResult(body, RESULT_READER);
         Assert.notNull(cloudflareDataResult, "result cannot been null");
         if (!cloudflareDataResult.getSuccess()) {
             throw new RuntimeException(Json.encodePrettily(cloudflareDataResult.getErrors()));
         }
-        return cloudflareDataResult.getResult();
-    }
-
-    /**
-     * 查询所有记录
-     *
-     * @param domain        域名/不区分主域名、多级域名（相当于查询主域名下所有记录）
-     * @param dnsRecordType 记录类型
-     * @return {@link CloudflareDataResult}
-     */
-    public CloudflareDataResult findDnsRecordList(String domain, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var request = this.requestBuild(domain, queryParam, HttpMethod.GET);
-        return this.sendRequest(request);
-    }
-
-    /**
-     * 新增记录
-     *
-     * @param domain        域名/区分主域名与多级域名
-     * @param ip            ip
-     * @param dnsRecordType 记录类型
-     * @return {@link CloudflareDataResult}
-     */
-    public CloudflareDataResult createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType) {
-        final var data = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var httpRequest = this.requestBuild(domain, data, HttpMethod.POST);
-        return this.sendRequest(httpRequest);
+        if (cloudflareDataResult.getResult() == null) {
+            cloudflareDataResult.setResult(Collections.emptyList());
+        }
+        return cloudflareDataResult;
     }
 
     /**
-     * 更新记录值
+     * 异步版本
      *
-     * @param id            记录标识符
      * @param domain        域名
-     * @param ip            ip值
      * @param dnsRecordType 记录类型
-     * @return {@link CloudflareDataResult}
-     */
-    public CloudflareDataResult modifyDnsRecord(String id,
-                                                String domain,
-                                                String ip,
-                                                DnsRecordType dnsRecordType) {
-        final var data = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var httpRequest = this.requestBuild(id, domain, data, HttpMethod.PUT);
-        return this.sendRequest(httpRequest);
-    }
-
-    /**
-     * 删除记录
-     *
-     * @param id     记录标识符
-     * @param domain 域名/不区分顶级域名、多级域名
-     * @return {@link CloudflareDataResult}
+     * @return {@link Future<CloudflareDataResult>}
      */
-    public CloudflareDataResult deleteDnsRecord(String id, String domain) {
-        final var httpRequest = this.requestBuild(id, domain, HttpMethod.DELETE);
-        return this.sendRequest(httpRequest);
+    @Override
+    public Future<CloudflareDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
+                                 final var url = this.requestUrlBuild(domain, queryParam);
+                                 return this.sendRequestAsync(url, HttpMethod.GET)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(this::bodyHandlerAsync);
     }
 
     /**
-     * 异步版本
+     * 分页查询区域下的记录
      *
-     * @param domain        域名
+     * @param domain        主域名
      * @param dnsRecordType 记录类型
+     * @param pageNumber    页码
+     * @param pageSize      每页数量
      * @return {@link Future<CloudflareDataResult>}
      */
     @Override
-    public Future<CloudflareDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var url = this.requestUrlBuild(domain, queryParam);
-        return this.sendRequestAsync(url, HttpMethod.GET)
-                   .compose(this::bodyHandlerAsync);
+    public Future<CloudflareDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType, int pageNumber, int pageSize) {
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
+                                 queryParam.put("page", String.valueOf(pageNumber));
+                                 queryParam.put("per_page", String.valueOf(pageSize));
+                                 final var url = this.requestUrlBuild(domain, queryParam);
+                                 return this.sendRequestAsync(url, HttpMethod.GET)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(this::bodyHandlerAsync);
+    }
+
+    @Override
+    public int maxPageSize() {
+        return 1000;
     }
 
     /**
@@ -213,10 +212,14 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
      */
     @Override
     public Future<CloudflareDataResult> createDnsRecordAsync(String domain, String ip, DnsRecordType dnsRecordType) {
-        final var data = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var url = this.requestUrlBuild(domain);
-        return this.sendRequestAsync(url, JsonObject.mapFrom(data), HttpMethod.POST)
-                   .compose(this::bodyHandlerAsync);
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var data = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
+                                 final var url = this.requestUrlBuild(domain);
+                                 return this.sendRequestAsync(url, JsonObject.mapFrom(data), HttpMethod.POST)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(this::bodyHandlerAsync);
     }
 
     /**
@@ -233,10 +236,14 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
                                                              String domain,
                                                              String ip,
                                                              DnsRecordType dnsRecordType) {
-        final var data = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var url = this.requestUrlBuild(id, domain);
-        return this.sendRequestAsync(url, JsonObject.mapFrom(data), HttpMethod.PUT)
-                   .compose(this::bodyHandlerAsync);
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var data = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
+                                 final var url = this.requestUrlBuild(id, domain);
+                                 return this.sendRequestAsync(url, JsonObject.mapFrom(data), HttpMethod.PUT)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(this::bodyHandlerAsync);
     }
 
     /**
@@ -248,24 +255,138 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
      */
     @Override
     public Future<CloudflareDataResult> deleteDnsRecordAsync(String id, String domain) {
-        final var url = this.requestUrlBuild(id, domain);
-        return this.sendRequestAsync(url, HttpMethod.DELETE)
-                   .compose(this::bodyHandlerAsync);
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> this.sendRequestAsync(this.requestUrlBuild(id, domain), HttpMethod.DELETE)
+                                                    .map(response -> this.checkZone(response, zoneId)))
+                             .compose(this::bodyHandlerAsync);
+    }
+
+    @Override
+    public boolean supportBatch() {
+        return true;
+    }
+
+    /**
+     * 按区域合并为 dns_records/batch 请求，同一请求内的变更要么全部成功要么全部失败
+     *
+     * @param mutations 记录变更
+     * @return 与参数顺序一致的记录id，失败的为null
+     */
+    @Override
+    public Future<List<String>> batchUpsertDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        return this.batchAsync(mutations, false)
+                   .map(Arrays::asList);
+    }
+
+    @Override
+    public Future<List<Boolean>> batchDeleteDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        return this.batchAsync(mutations, true)
+                   .map(ids -> Arrays.stream(ids)
+                                     .map(Objects::nonNull)
+                                     .collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Future<String[]> batchAsync(List<DnsRecordMutation> mutations, boolean delete) {
+        final var ids = new String[mutations.size()];
+        final List<Future<String>> zoneFutures = new ArrayList<>(mutations.size());
+        for (DnsRecordMutation mutation : mutations) {
+            zoneFutures.add(this.zoneIndex.resolve(mutation.domain()));
+        }
+        return CompositeFuture.join(new ArrayList<>(zoneFutures))
+                              .transform(ar -> {
+                                  // zone id -> mutation indexes
+                                  final var zoneMap = new LinkedHashMap<String, List<Integer>>();
+                                  for (int i = 0; i < zoneFutures.size(); i++) {
+                                      final var zoneFuture = zoneFutures.get(i);
+                                      if (zoneFuture.succeeded()) {
+                                          zoneMap.computeIfAbsent(zoneFuture.result(), k -> new ArrayList<>())
+                                                 .add(i);
+                                      } else {
+                                          LogUtil.printDebug(log, zoneFuture.cause().getMessage(), zoneFuture.cause());
+                                      }
+                                  }
+                                  final List<Future> futures = new ArrayList<>();
+                                  zoneMap.forEach((zoneId, indexes) -> {
+                                      for (int from = 0; from < indexes.size(); from += BATCH_SIZE) {
+                                          final var chunk = indexes.subList(from, Math.min(from + BATCH_SIZE, indexes.size()));
+                                          futures.add(this.sendBatchAsync(zoneId, chunk, mutations, delete, ids));
+                                      }
+                                  });
+                                  return CompositeFuture.join(futures)
+                                                        .transform(v -> Future.succeededFuture(ids));
+                              });
+    }
+
+    private Future<Void> sendBatchAsync(String zoneId,
+                                        List<Integer> chunk,
+                                        List<DnsRecordMutation> mutations,
+                                        boolean delete,
+                                        String[] ids) {
+        final var posts = new JsonArray();
+        final var patches = new JsonArray();
+        final var deletes = new JsonArray();
+        final var postIndexes = new ArrayList<Integer>();
+        for (Integer index : chunk) {
+            final var mutation = mutations.get(index);
+            if (delete) {
+                deletes.add(new JsonObject().put("id", mutation.id()));
+                continue;
+            }
+            final var record = new JsonObject().put("name", mutation.domain())
+                                               .put("type", mutation.dnsRecordType().name())
+                                               .put("content", mutation.ip())
+                                               .put("ttl", 120);
+            if (mutation.isCreate()) {
+                posts.add(record);
+                postIndexes.add(index);
+            } else {
+                patches.add(record.put("id", mutation.id()));
+            }
+        }
+        final var data = new JsonObject();
+        if (!deletes.isEmpty()) {
+            data.put("deletes", deletes);
+        }
+        if (!patches.isEmpty()) {
+            data.put("patches", patches);
+        }
+        if (!posts.isEmpty()) {
+            data.put("posts", posts);
+        }
+        return this.sendRequestAsync(this.concatUrl(this.api, zoneId, "dns_records", "batch"), data, HttpMethod.POST)
+                   .map(response -> this.checkZone(response, zoneId))
+                   .compose(response -> {
+                       final var body = response.bodyAsJsonObject();
+                       if (body == null || !body.getBoolean("success", false)) {
+                           return Future.failedFuture(new DnsServiceResponseException(body == null ? "status: " + response.statusCode() : String.valueOf(body.getValue("errors"))));
+                       }
+                       final var postResult = body.getJsonObject("result", new JsonObject())
+                                                  .getJsonArray("posts", new JsonArray());
+                       for (int i = 0; i < postIndexes.size() && i < postResult.size(); i++) {
+                           ids[postIndexes.get(i)] = postResult.getJsonObject(i)
+                                                               .getString("id");
+                       }
+                       for (Integer index : chunk) {
+                           final var mutation = mutations.get(index);
+                           if (!mutation.isCreate()) {
+                               ids[index] = mutation.id();
+                           }
+                       }
+                       return Future.<Void>succeededFuture();
+                   })
+                   .onFailure(e -> LogUtil.printDebug(log, "batch request failed: " + e.getMessage(), e))
+                   .otherwiseEmpty();
     }
 
     /**
-     * 是否支持
+     * 是否支持，只判断服务商类型，区域id在调用接口时由 {@link ZoneIndex} 按需加载
      *
      * @param dnsServiceType DNS服务商类型
      * @return {@link boolean}
      */
     @Override
     public boolean support(DnsProviderType dnsServiceType) {
-        try {
-            this.initZoneMap();
-        } catch (Exception e) {
-            throw new InvalidDnsCredentialException(e.getMessage(), e.getCause());
-        }
         return DnsProviderType.CLOUDFLARE.check(dnsServiceType);
     }
 
@@ -277,13 +398,10 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
      */
     @Override
     public Future<Boolean> supportAsync(DnsProviderType dnsServiceType) {
-        return this.initZoneMapAsync()
-                   .compose(v -> {
-                       if (!DnsProviderType.CLOUDFLARE.check(dnsServiceType)) {
-                           return Future.failedFuture("The :{}" + dnsServiceType.name() + " DNS service provider is not supported");
-                       }
-                       return Future.succeededFuture(true);
-                   });
+        if (!DnsProviderType.CLOUDFLARE.check(dnsServiceType)) {
+            return Future.failedFuture("The :{}" + dnsServiceType.name() + " DNS service provider is not supported");
+        }
+        return Future.succeededFuture(true);
     }
 
     private String bearerToken() {
@@ -292,79 +410,6 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
     }
 
 
-    private HttpRequestBase requestBuild(String domain, Map<String, Object> queryParam, HttpMethod methodType) {
-        return this.requestBuild((String) null, domain, queryParam, methodType);
-    }
-
-
-    private HttpRequestBase requestBuild(String id,
-                                         String domain,
-                                         @SuppressWarnings("SameParameterValue") HttpMethod methodType) {
-        return this.requestBuild(id, domain, (Map<String, Object>) null, methodType);
-    }
-
-    private HttpRequestBase requestBuild(String id,
-                                         String domain,
-                                         Map<String, Object> queryParam,
-                                         HttpMethod methodType) {
-        final String url;
-        HttpRequestBase httpRequest;
-        switch (methodType) {
-            case GET -> {
-                url = this.requestUrlBuild(domain, queryParam);
-                httpRequest = this.request(url, methodType);
-            }
-            case POST -> {
-                url = this.requestUrlBuild(domain);
-                httpRequest = this.request(url, JsonObject.mapFrom(queryParam), methodType);
-            }
-            case PUT -> {
-                url = this.requestUrlBuild(id, domain);
-                httpRequest = this.request(url, JsonObject.mapFrom(queryParam), methodType);
-            }
-            case DELETE -> {
-                url = this.requestUrlBuild(id, domain);
-                httpRequest = this.request(url, methodType);
-            }
-            default -> throw new IllegalStateException("Unexpected value: " + methodType);
-        }
-        return httpRequest;
-    }
-
-    private HttpRequestBase request(String url, HttpMethod methodType) {
-        return this.request(url, null, methodType);
-    }
-
-    private HttpRequestBase request(String url, JsonObject data, HttpMethod methodType) {
-        switch (methodType) {
-            case GET -> {
-                final var httpGet = new HttpGet(url);
-                httpGet.addHeader(HttpHeaders.AUTHORIZATION, this.bearerToken());
-                return httpGet;
-            }
-            case PUT -> {
-                final var httpPut = new HttpPut(url);
-                httpPut.addHeader(HttpHeaders.AUTHORIZATION, this.bearerToken());
-                httpPut.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
-                httpPut.setEntity(new StringEntity(data.encode(), StandardCharsets.UTF_8));
-                return httpPut;
-            }
-            case POST -> {
-                final var httpPost = new HttpPost(url);
-                httpPost.addHeader(HttpHeaders.AUTHORIZATION, this.bearerToken());
-                httpPost.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
-                httpPost.setEntity(new StringEntity(data.encode(), StandardCharsets.UTF_8));
-                return httpPost;
-            }
-            case DELETE -> {
-                final var httpDelete = new HttpDelete(url);
-                httpDelete.addHeader(HttpHeaders.AUTHORIZATION, this.bearerToken());
-                return httpDelete;
-            }
-            default -> throw new UnsupportedOperationException("request method not supported:" + methodType.name());
-        }
-    }
-
     protected Future<io.vertx.ext.web.client.HttpResponse<Buffer>> sendRequestAsync(String url, HttpMethod methodType) {
         return this.sendRequestAsync(url, null, methodType);
     }
@@ -373,19 +418,25 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
     protected Future<io.vertx.ext.web.client.HttpResponse<Buffer>> sendRequestAsync(String url,
                                                                                     JsonObject data,
                                                                                     HttpMethod methodType) {
+        return this.executeAsync(() -> this.doSendRequestAsync(url, data, methodType), methodType != HttpMethod.POST);
+    }
+
+    private Future<io.vertx.ext.web.client.HttpResponse<Buffer>> doSendRequestAsync(String url,
+                                                                                   JsonObject data,
+                                                                                   HttpMethod methodType) {
         final Future<io.vertx.ext.web.client.HttpResponse<Buffer>> httpResponseFuture;
         switch (methodType) {
             case GET -> httpResponseFuture = this.webClient.getAbs(url)
-                                                           .putHeader(HttpHeaders.AUTHORIZATION, this.bearerToken())
+                                                           .putHeader(HttpHeaders.AUTHORIZATION.toString(), this.bearerToken())
                                                            .send();
             case POST -> httpResponseFuture = this.webClient.postAbs(url)
-                                                            .putHeader(HttpHeaders.AUTHORIZATION, this.bearerToken())
+                                                            .putHeader(HttpHeaders.AUTHORIZATION.toString(), this.bearerToken())
                                                             .sendJsonObject(data);
             case PUT -> httpResponseFuture = this.webClient.putAbs(url)
-                                                           .putHeader(HttpHeaders.AUTHORIZATION, this.bearerToken())
+                                                           .putHeader(HttpHeaders.AUTHORIZATION.toString(), this.bearerToken())
                                                            .sendJsonObject(data);
             case DELETE -> httpResponseFuture = this.webClient.deleteAbs(url)
-                                                              .putHeader(HttpHeaders.AUTHORIZATION, this.bearerToken())
+                                                              .putHeader(HttpHeaders.AUTHORIZATION.toString(), this.bearerToken())
                                                               .send();
             default -> {
                 return Future.failedFuture("Unexpected value:" + methodType);
@@ -394,6 +445,52 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
         return httpResponseFuture;
     }
 
+    /**
+     * Cloudflare触发限流时除429外还可能返回错误码971，请求未被处理，非幂等请求同样可以重试
+     */
+    @Override
+    protected boolean isRetryable(io.vertx.ext.web.client.HttpResponse<Buffer> response, boolean idempotent) {
+        return super.isRetryable(response, idempotent) || hasErrorCode(response, THROTTLED_CODE);
+    }
+
+    /**
+     * 区域已被删除时区域id失效，从区域索引中移除，下次调用重新查询区域id
+     */
+    private io.vertx.ext.web.client.HttpResponse<Buffer> checkZone(io.vertx.ext.web.client.HttpResponse<Buffer> response, String zoneId) {
+        if (hasErrorCode(response, INVALID_ZONE_CODE, ZONE_ROUTE_CODE)) {
+            this.zoneIndex.invalidate(zoneId);
+        }
+        return response;
+    }
+
+    private static boolean hasErrorCode(io.vertx.ext.web.client.HttpResponse<Buffer> response, int... codes) {
+        if (response.statusCode() < 400) {
+            return false;
+        }
+        try {
+            final var body = response.bodyAsJsonObject();
+            final var errors = body == null ? null : body.getJsonArray("errors");
+            if (errors == null) {
+                return false;
+            }
+            for (var i = 0; i < errors.size(); i++) {
+                final var error = errors.getValue(i);
+                if (!(error instanceof JsonObject)) {
+                    continue;
+                }
+                final int code = ((JsonObject) error).getInteger("code", 0);
+                for (int expected : codes) {
+                    if (code == expected) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (DecodeException | ClassCastException e) {
+            return false;
+        }
+    }
+
     private String requestUrlBuild(String domain) {
         return this.requestUrlBuild(domain, (Map<String, Object>) null);
     }
@@ -436,19 +533,14 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
     }
 
     private String getZoneUrl(String domain) {
-        final var extractDomain = HttpUtil.extractDomain(domain);
         // 如果域名属于二级及以上域名，则根据cloudflare查询策略，按主域名查询
-        final var zoneId = this.zoneMap.get(extractDomain[0]);
-        if (StringUtil.isEmpty(zoneId)) {
-            throw new ResolvedDomainException("Resolved primary domain name:" + domain + " does not exist");
-        }
+        final var zoneId = this.zoneIndex.get(domain);
         return this.concatUrl(this.api, zoneId, "dns_records");
     }
 
     protected Future<CloudflareDataResult> bodyHandlerAsync(io.vertx.ext.web.client.HttpResponse<Buffer> httpResponse) {
-        final String body = httpResponse.bodyAsString();
         try {
-            final var cloudflareDataResult = this.bodyHandler(body);
+            final var cloudflareDataResult = this.bodyHandler(httpResponse.body());
             return Future.succeededFuture(cloudflareDataResult);
         } catch (Exception e) {
             LogUtil.printDebug(log, e.getMessage(), e.getCause());
@@ -456,18 +548,9 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
         }
     }
 
-    protected CloudflareDataResult bodyHandler(String body) {
-        final CloudflareDataResult cloudflareDataResult;
-        final var jsonObject = JsonObject.mapFrom(Json.decodeValue(body));
-        final var resultKey = "result";
-        final var result = jsonObject.getMap()
-                                     .get(resultKey);
-        if (result instanceof ArrayList) {
-            cloudflareDataResult = this.mapperResult(body, CloudflareDataResult.class);
-        } else {
-            jsonObject.put(resultKey, Collections.singletonList(result));
-            cloudflareDataResult = jsonObject.mapTo(CloudflareDataResult.class);
-        }
+    protected CloudflareDataResult bodyHandler(Buffer body) {
+        final CloudflareDataResult cloudflareDataResult = this.mapperResult(body, RESULT_READER);
+        Assert.notNull(cloudflareDataResult, "result cannot been null");
         final var errors = cloudflareDataResult.getErrors();
         if (!CollectionUtil.isEmpty(errors)) {
             final var messages = errors.stream()
@@ -507,8 +590,12 @@ public class CloudflareDnsProvider extends AbstractDnsProvider<CloudflareDataRes
 
     @Override
     public void reloadCredentials(ProviderCredentials dnsProviderCredentials) {
-        this.zoneMap.clear();
+        // 凭证未变化时保留区域索引
+        final var credentialsChanged = this.isCredentialsChanged(dnsProviderCredentials);
         super.reloadCredentials(dnsProviderCredentials);
+        if (credentialsChanged) {
+            this.zoneIndex = this.createZoneIndex();
+        }
     }
 
     protected enum Action {
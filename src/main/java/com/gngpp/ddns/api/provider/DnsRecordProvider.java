@@ -30,9 +30,15 @@ import com.gngpp.ddns.api.auth.BasicCredentials;
 import com.gngpp.ddns.api.auth.ProviderCredentials;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.pojo.DnsRecordMutation;
+import com.gngpp.ddns.util.FutureUtil;
 import io.vertx.core.Future;
 
+import java.util.List;
+
 /**
+ * 服务商接口只实现异步版本，同步版本由异步版本桥接，不能在event loop线程调用
+ *
  * @author ant
  * Create by Ant on 2021/7/29 1:46 上午
  */
@@ -46,7 +52,9 @@ public interface DnsRecordProvider<T> {
      * @param dnsRecordType 记录类型
      * @return {@link T}
      */
-    T findDnsRecordList(String domain, DnsRecordType dnsRecordType);
+    default T findDnsRecordList(String domain, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.findDnsRecordListAsync(domain, dnsRecordType));
+    }
 
     /**
      * 具体参数作用请看实现类注释
@@ -56,7 +64,9 @@ public interface DnsRecordProvider<T> {
      * @param dnsRecordType 记录类型
      * @return {@link T}
      */
-    T createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType);
+    default T createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.createDnsRecordAsync(domain, ip, dnsRecordType));
+    }
 
     /**
      * 具体参数作用请看实现类注释
@@ -67,7 +77,9 @@ public interface DnsRecordProvider<T> {
      * @param dnsRecordType 记录类型
      * @return {@link T}
      */
-    T modifyDnsRecord(String id, String domain, String ip, DnsRecordType dnsRecordType);
+    default T modifyDnsRecord(String id, String domain, String ip, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.modifyDnsRecordAsync(id, domain, ip, dnsRecordType));
+    }
 
     /**
      * 具体参数作用请看实现类注释
@@ -76,7 +88,9 @@ public interface DnsRecordProvider<T> {
      * @param domain 域名
      * @return {@link T}
      */
-    T deleteDnsRecord(String id, String domain);
+    default T deleteDnsRecord(String id, String domain) {
+        return FutureUtil.await(this.deleteDnsRecordAsync(id, domain));
+    }
 
 
     /**
@@ -90,6 +104,28 @@ public interface DnsRecordProvider<T> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * 分页查询主域名下该记录类型的全部记录
+     *
+     * @param domain        主域名
+     * @param dnsRecordType 记录类型
+     * @param pageNumber    页码，从1开始
+     * @param pageSize      每页数量
+     * @return {@link Future<T>}
+     */
+    default Future<T> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType, int pageNumber, int pageSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 分页查询时每页的最大数量
+     *
+     * @return {@link int}
+     */
+    default int maxPageSize() {
+        return 100;
+    }
+
     /**
      * 异步版本
      *
@@ -127,7 +163,36 @@ public interface DnsRecordProvider<T> {
     }
 
     /**
-     * 某些使用zone区域划分域名记录的DNS服务商，需强迫使用supports
+     * 是否有批量修改记录的接口，没有时由调用方在并发限制内逐条调用
+     *
+     * @return {@link boolean}
+     */
+    default boolean supportBatch() {
+        return false;
+    }
+
+    /**
+     * 批量新增或修改记录，id为空的新增
+     *
+     * @param mutations 记录变更
+     * @return 与参数顺序一致的记录id，失败的为null
+     */
+    default Future<List<String>> batchUpsertDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 批量删除记录
+     *
+     * @param mutations 要删除的记录
+     * @return 与参数顺序一致的删除结果
+     */
+    default Future<List<Boolean>> batchDeleteDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 是否支持该服务商类型，不发起网络请求
      *
      * @param dnsServiceType DNS服务商类型
      * @return {@link boolean}
@@ -135,7 +200,7 @@ public interface DnsRecordProvider<T> {
     boolean support(DnsProviderType dnsServiceType);
 
     /**
-     * 异步版本
+     * 异步版本，某些使用zone区域划分域名记录的DNS服务商，需先调用该函数加载区域
      *
      * @param dnsServiceType DNS服务商类型
      * @return {@link Future<Boolean>}
@@ -26,29 +26,38 @@
 
 package com.gngpp.ddns.api.provider;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.gngpp.ddns.api.provider.exception.DnsServiceResponseException;
+import com.gngpp.ddns.pojo.DnsRecordMutation;
 import com.gngpp.ddns.pojo.DnspodDataResult;
 import com.gngpp.ddns.util.HttpUtil;
 import com.gngpp.ddns.api.auth.BasicCredentials;
 import com.gngpp.ddns.api.auth.ProviderCredentials;
 import com.gngpp.ddns.api.signer.rpc.DnspodSignatureComposer;
 import com.gngpp.ddns.api.signer.rpc.RpcAPISignatureComposer;
+import com.gngpp.ddns.concurrent.ConcurrencyLimiter;
+import com.gngpp.ddns.config.ConfigProperty;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
 import com.gngpp.ddns.enums.HttpMethod;
 import com.gngpp.ddns.util.LogUtil;
+import com.gngpp.ddns.util.ParameterHelper;
 import com.gngpp.ddns.util.StringUtil;
+import io.netty.buffer.ByteBufUtil;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpRequestBase;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 腾讯云DNS
@@ -58,70 +67,34 @@ import java.util.Random;
  */
 public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, DnspodDnsProvider.Action> {
 
+    private static final ObjectReader RESULT_READER = readerFor(DnspodDataResult.class);
+    private static final Buffer ERROR_FIELD = Buffer.buffer("\"Error\"");
     private final Logger log = LogManager.getLogger("[DnspodDnsProvider]");
     private final RpcAPISignatureComposer composer = DnspodSignatureComposer.getComposer();
-
-    public DnspodDnsProvider(String id, String secret, Vertx vertx) {
-        this(new BasicCredentials(id, secret), vertx);
-    }
-
-    public DnspodDnsProvider(ProviderCredentials dnsApiCredentials, Vertx vertx) {
-        super(dnsApiCredentials, vertx);
-    }
-
     /**
-     * 查询主域名的解析记录，以记录类型区别ipv4 ipv6
-     *
-     * @param domain        域名/区分主域名跟多级域名
-     * @param dnsRecordType 记录类型
-     * @return {@link DnspodDataResult}
+     * 批量修改单次最多提交的记录数
      */
-    public DnspodDataResult findDnsRecordList(String domain, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
-    }
-
+    private static final int BATCH_SIZE = 100;
     /**
-     * 新增记录
-     *
-     * @param domain        域名/区分主域名跟多级域名
-     * @param ip            ip值
-     * @param dnsRecordType 记录类型
-     * @return {@link DnspodDataResult}
+     * 批量任务结果轮询间隔（毫秒）和次数
      */
-    public DnspodDataResult createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
-    }
-
+    private static final long TASK_POLL_INTERVAL = 1000L;
+    private static final int TASK_POLL_ATTEMPTS = 5;
+    private static final String TASK_SUCCESS = "success";
+    private static final String TASK_FAIL = "fail";
     /**
-     * 更新记录
-     *
-     * @param id            记录ID
-     * @param domain        域名/区分主域名跟多级域名
-     * @param ip            ip
-     * @param dnsRecordType 记录类型
-     * @return {@link DnspodDataResult}
+     * 批量接口逐条提交时同时进行的请求数
      */
-    public DnspodDataResult modifyDnsRecord(String id, String domain, String ip, DnsRecordType dnsRecordType) {
-        final var queryParam = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
+    private final int maxConcurrency;
+
+    public DnspodDnsProvider(String id, String secret, Vertx vertx, WebClient webClient) {
+        this(new BasicCredentials(id, secret), vertx, webClient);
     }
 
-    /**
-     * 根据主域名、记录ID删除记录
-     *
-     * @param id     记录id
-     * @param domain 域名/不区分顶级域名、多级域名
-     * @return {@link DnspodDataResult}
-     */
-    public DnspodDataResult deleteDnsRecord(String id, String domain) {
-        final var queryParam = this.getQueryParam(id, domain, Action.DELETE);
-        final var httpRequest = this.requestBuild(queryParam);
-        return this.sendRequest(httpRequest);
+    public DnspodDnsProvider(ProviderCredentials dnsApiCredentials, Vertx vertx, WebClient webClient) {
+        super(dnsApiCredentials, vertx, webClient, DnsProviderType.DNSPOD);
+        this.maxConcurrency = ConfigProperty.getReconcileProperties()
+                                            .getMaxConcurrency();
     }
 
     /**
@@ -134,11 +107,34 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
     @Override
     public Future<DnspodDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
+                   .compose(this::bodyHandlerAsync);
+    }
+
+    /**
+     * 分页查询主域名下的记录
+     *
+     * @param domain        主域名
+     * @param dnsRecordType 记录类型
+     * @param pageNumber    页码
+     * @param pageSize      每页数量
+     * @return {@link Future<DnspodDataResult>}
+     */
+    @Override
+    public Future<DnspodDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType, int pageNumber, int pageSize) {
+        final var queryParam = this.getQueryParam(domain, dnsRecordType, Action.DESCRIBE);
+        queryParam.remove("Subdomain");
+        queryParam.put("Offset", (pageNumber - 1) * pageSize);
+        queryParam.put("Limit", pageSize);
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
+    @Override
+    public int maxPageSize() {
+        return 3000;
+    }
+
     /**
      * 异步版本
      *
@@ -150,8 +146,7 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
     @Override
     public Future<DnspodDataResult> createDnsRecordAsync(String domain, String ip, DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(domain, ip, dnsRecordType, Action.CREATE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), false)
                    .compose(this::bodyHandlerAsync);
     }
 
@@ -170,8 +165,7 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
                                                          String ip,
                                                          DnsRecordType dnsRecordType) {
         final var queryParam = this.getQueryParam(id, domain, ip, dnsRecordType, Action.MODIFY);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
@@ -185,11 +179,188 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
     @Override
     public Future<DnspodDataResult> deleteDnsRecordAsync(String id, String domain) {
         final var queryParam = this.getQueryParam(id, domain, Action.DELETE);
-        final var url = this.requestUrlBuild(queryParam);
-        return this.sendRequestAsync(url)
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(queryParam)), true)
                    .compose(this::bodyHandlerAsync);
     }
 
+    @Override
+    public boolean supportBatch() {
+        return true;
+    }
+
+    /**
+     * 修改按新的记录值分组使用 ModifyRecordBatch 提交，新增没有不需要域名id的批量接口，逐条提交，
+     * 同时进行的请求数不超过 maxConcurrency
+     *
+     * @param mutations 记录变更
+     * @return 与参数顺序一致的记录id，失败或批量任务未确认完成的为null
+     */
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Future<List<String>> batchUpsertDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        final var ids = new String[mutations.size()];
+        final List<Future> futures = new ArrayList<>();
+        final var limiter = new ConcurrencyLimiter(this.maxConcurrency, mutations.size());
+        // ip -> mutation indexes
+        final var modifyMap = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < mutations.size(); i++) {
+            final var index = i;
+            final var mutation = mutations.get(i);
+            if (mutation.isCreate()) {
+                futures.add(limiter.submit(() -> this.createDnsRecordAsync(mutation.domain(), mutation.ip(), mutation.dnsRecordType()))
+                                   .onSuccess(result -> ids[index] = result.getResponse() == null ? null : result.getResponse()
+                                                                                                                 .getRecordId())
+                                   .otherwiseEmpty());
+            } else {
+                modifyMap.computeIfAbsent(mutation.ip(), k -> new ArrayList<>())
+                         .add(i);
+            }
+        }
+        modifyMap.forEach((ip, indexes) -> {
+            for (int from = 0; from < indexes.size(); from += BATCH_SIZE) {
+                final var chunk = indexes.subList(from, Math.min(from + BATCH_SIZE, indexes.size()));
+                futures.add(limiter.submit(() -> this.modifyBatchAsync(ip, chunk, mutations, ids)));
+            }
+        });
+        return CompositeFuture.join(futures)
+                              .transform(ar -> Future.succeededFuture(Arrays.asList(ids)));
+    }
+
+    /**
+     * 没有不需要域名id的批量删除接口，逐条提交，同时进行的请求数不超过 maxConcurrency
+     */
+    @Override
+    public Future<List<Boolean>> batchDeleteDnsRecordAsync(List<DnsRecordMutation> mutations) {
+        final var limiter = new ConcurrencyLimiter(this.maxConcurrency, mutations.size());
+        final List<Future<Boolean>> futures = mutations.stream()
+                                                       .map(mutation -> limiter.submit(() -> this.deleteDnsRecordAsync(mutation.id(), mutation.domain()))
+                                                                               .map(result -> result.getResponse() != null && result.getResponse()
+                                                                                                                                    .getError() == null)
+                                                                               .otherwise(false))
+                                                       .collect(Collectors.toList());
+        return CompositeFuture.join(new ArrayList<>(futures))
+                              .map(v -> futures.stream()
+                                               .map(Future::result)
+                                               .collect(Collectors.toList()));
+    }
+
+    /**
+     * ModifyRecordBatch 只创建异步任务，轮询任务结果，
+     * 域名级别和记录级别都没有错误且任务成功的记录才写入id，未确认的记录由下次对账重新查询
+     */
+    private Future<Void> modifyBatchAsync(String ip, List<Integer> chunk, List<DnsRecordMutation> mutations, String[] ids) {
+        final var queryParam = this.getCommonQueryParam(Action.MODIFY_BATCH);
+        for (int i = 0; i < chunk.size(); i++) {
+            queryParam.put("RecordIdList." + i, mutations.get(chunk.get(i))
+                                                         .id());
+        }
+        queryParam.put("Change", "value");
+        queryParam.put("ChangeTo", ip);
+        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(new TreeMap<>(queryParam))), true)
+                   .compose(httpResponse -> {
+                       final var response = this.batchResponse(httpResponse.bodyAsJsonObject());
+                       final var jobId = response.getValue("JobId");
+                       if (jobId == null) {
+                           return Future.failedFuture(new DnsServiceResponseException("ModifyRecordBatch returned no JobId"));
+                       }
+                       // 域名级别或记录级别有错误的不再等待任务结果
+                       final var failed = new HashSet<String>();
+                       final var failedDomains = new HashSet<String>();
+                       this.collectFailures(response, failedDomains, failed);
+                       return this.pollBatchTaskAsync(jobId, 1)
+                                  .map(task -> {
+                                      final var succeededDomains = new HashSet<String>();
+                                      for (Object detail : task.getJsonArray("DetailList", new JsonArray())) {
+                                          final var domainDetail = (JsonObject) detail;
+                                          if (TASK_SUCCESS.equalsIgnoreCase(domainDetail.getString("Status"))) {
+                                              succeededDomains.add(domainDetail.getString("Domain"));
+                                          }
+                                      }
+                                      this.collectFailures(task, failedDomains, failed);
+                                      final var confirmed = new HashSet<String>();
+                                      for (Integer index : chunk) {
+                                          final var mutation = mutations.get(index);
+                                          final var zone = HttpUtil.extractDomain(mutation.domain())[0];
+                                          if (succeededDomains.contains(zone) && !failedDomains.contains(zone) && !failed.contains(mutation.id())) {
+                                              confirmed.add(mutation.id());
+                                          }
+                                      }
+                                      return confirmed;
+                                  });
+                   })
+                   .compose(confirmed -> {
+                       for (Integer index : chunk) {
+                           final var id = mutations.get(index)
+                                                   .id();
+                           ids[index] = confirmed.contains(id) ? id : null;
+                       }
+                       return Future.<Void>succeededFuture();
+                   })
+                   .onFailure(e -> LogUtil.printDebug(log, "batch request failed: " + e.getMessage(), e))
+                   .otherwiseEmpty();
+    }
+
+    /**
+     * 轮询批量任务直到所有域名的任务结束，超过次数仍未结束时失败
+     *
+     * @param jobId   任务id
+     * @param attempt 第几次查询
+     * @return 任务详情
+     */
+    private Future<JsonObject> pollBatchTaskAsync(Object jobId, int attempt) {
+        final Promise<Void> delay = Promise.promise();
+        super.vertx.setTimer(TASK_POLL_INTERVAL, id -> delay.complete());
+        return delay.future()
+                    .compose(v -> {
+                        final var queryParam = this.getCommonQueryParam(Action.DESCRIBE_BATCH_TASK);
+                        queryParam.put("JobId", jobId);
+                        return this.executeAsync(() -> this.sendRequestAsync(this.requestUrlBuild(new TreeMap<>(queryParam))), true);
+                    })
+                    .compose(httpResponse -> {
+                        final var response = this.batchResponse(httpResponse.bodyAsJsonObject());
+                        for (Object detail : response.getJsonArray("DetailList", new JsonArray())) {
+                            final var status = ((JsonObject) detail).getString("Status");
+                            if (!TASK_SUCCESS.equalsIgnoreCase(status) && !TASK_FAIL.equalsIgnoreCase(status)) {
+                                if (attempt >= TASK_POLL_ATTEMPTS) {
+                                    return Future.failedFuture(new DnsServiceResponseException("Batch task " + jobId + " is still " + status));
+                                }
+                                return this.pollBatchTaskAsync(jobId, attempt + 1);
+                            }
+                        }
+                        return Future.succeededFuture(response);
+                    });
+    }
+
+    /**
+     * 批量接口的响应体，接口错误时抛出 {@link DnsServiceResponseException}
+     */
+    private JsonObject batchResponse(JsonObject body) {
+        final var response = body == null ? new JsonObject() : body.getJsonObject("Response", new JsonObject());
+        final var error = response.getJsonObject("Error");
+        if (error != null) {
+            throw new DnsServiceResponseException(error.getString("Message"));
+        }
+        return response;
+    }
+
+    /**
+     * 收集批量响应明细中有错误信息的域名和记录id
+     */
+    private void collectFailures(JsonObject response, Set<String> failedDomains, Set<String> failedRecordIds) {
+        for (Object detail : response.getJsonArray("DetailList", new JsonArray())) {
+            final var domainDetail = (JsonObject) detail;
+            if (!StringUtil.isEmpty(domainDetail.getString("ErrMsg"))) {
+                failedDomains.add(domainDetail.getString("Domain"));
+            }
+            for (Object record : domainDetail.getJsonArray("RecordList", new JsonArray())) {
+                final var recordInfo = (JsonObject) record;
+                if (!StringUtil.isEmpty(recordInfo.getString("ErrMsg"))) {
+                    failedRecordIds.add(String.valueOf(recordInfo.getValue("RecordId")));
+                }
+            }
+        }
+    }
+
     /**
      * 是否支持
      *
@@ -214,9 +385,37 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
         return this.webClient.getAbs(url).send();
     }
 
+    /**
+     * 腾讯云接口出错时仍返回200，需要根据响应体中的错误码判断是否被限流
+     */
+    @Override
+    protected boolean isRetryable(io.vertx.ext.web.client.HttpResponse<Buffer> response, boolean idempotent) {
+        if (super.isRetryable(response, idempotent)) {
+            return true;
+        }
+        // 正常响应不含Error字段，无需再解析一次响应体
+        final var buffer = response.body();
+        if (buffer == null || ByteBufUtil.indexOf(ERROR_FIELD.getByteBuf(), buffer.getByteBuf()) < 0) {
+            return false;
+        }
+        try {
+            final var body = buffer.toJsonObject();
+            final var error = body == null ? null : body.getJsonObject("Response", new JsonObject())
+                                                        .getJsonObject("Error");
+            final var code = error == null ? null : error.getString("Code");
+            if (code == null) {
+                return false;
+            }
+            // 服务端内部错误时请求可能已经执行，非幂等请求不重试
+            return code.startsWith("RequestLimitExceeded") || (idempotent && "InternalError".equals(code));
+        } catch (DecodeException | ClassCastException e) {
+            return false;
+        }
+    }
+
     @Override
-    protected DnspodDataResult bodyHandler(String body) {
-        final var dnspodDataResult = this.mapperResult(body, DnspodDataResult.class);
+    protected DnspodDataResult bodyHandler(Buffer body) {
+        final DnspodDataResult dnspodDataResult = this.mapperResult(body, RESULT_READER);
         if (dnspodDataResult != null && dnspodDataResult.getResponse() != null) {
             final var error = dnspodDataResult.getResponse()
                                               .getError();
@@ -234,9 +433,8 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
     @Override
     protected Future<DnspodDataResult> bodyHandlerAsync(io.vertx.ext.web.client.HttpResponse<Buffer> httpResponse) {
         try {
-            final var body = httpResponse.bodyAsString();
-            final DnspodDataResult aliyunDataResult = this.bodyHandler(body);
-            return Future.succeededFuture(aliyunDataResult);
+            final var dnspodDataResult = this.bodyHandler(httpResponse.body());
+            return Future.succeededFuture(dnspodDataResult);
         } catch (Exception e) {
             LogUtil.printDebug(log, e.getMessage(), e.getCause());
             return Future.failedFuture(e);
@@ -245,18 +443,15 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
 
     private String requestUrlBuild(Map<String, Object> queryParam) {
         final String api = "https://dnspod.tencentcloudapi.com/";
+        // 随机数和时间戳在签名时生成，重试时不会因重复的随机数被拒绝
+        queryParam.put("Nonce", ParameterHelper.getNumericNonce());
+        queryParam.put("Timestamp", System.currentTimeMillis() / 1000);
         return this.composer.toSignatureUrl(this.dnsProviderCredentials.getAccessKeySecret(), api, HttpMethod.GET, queryParam);
     }
 
-    private HttpRequestBase requestBuild(Map<String, Object> queryParam) {
-        final var requestUrl = this.requestUrlBuild(queryParam);
-        return new HttpGet(requestUrl);
-    }
-
     private Map<String, Object> getCommonQueryParam(Action action) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("Nonce", new Random().nextInt(java.lang.Integer.MAX_VALUE) + System.currentTimeMillis());
-        params.put("Timestamp", System.currentTimeMillis() / 1000);
+        // 按参数名排序，签名时不再重新排序
+        Map<String, Object> params = new TreeMap<>();
         params.put("SecretId", this.dnsProviderCredentials.getAccessKeyId());
         params.put("Action", action.value);
         params.put("Version", "2021-03-23");
@@ -307,7 +502,9 @@ public class DnspodDnsProvider extends AbstractDnsProvider<DnspodDataResult, Dns
         DESCRIBE("DescribeRecordList"),
         CREATE("CreateRecord"),
         DELETE("DeleteRecord"),
-        MODIFY("ModifyRecord");
+        MODIFY("ModifyRecord"),
+        MODIFY_BATCH("ModifyRecordBatch"),
+        DESCRIBE_BATCH_TASK("DescribeBatchTask");
 
         private final String value;
 
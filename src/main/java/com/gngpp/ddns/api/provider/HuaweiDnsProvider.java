@@ -26,9 +26,9 @@
 
 package com.gngpp.ddns.api.provider;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.gngpp.ddns.api.provider.exception.DnsServiceResponseException;
-import com.gngpp.ddns.api.provider.exception.InvalidDnsCredentialException;
-import com.gngpp.ddns.api.provider.exception.ResolvedDomainException;
+import com.gngpp.ddns.cache.ZoneIndex;
 import com.gngpp.ddns.pojo.HuaweiDataResult;
 import com.gngpp.ddns.util.*;
 import com.gngpp.ddns.api.auth.BasicCredentials;
@@ -41,18 +41,18 @@ import com.gngpp.ddns.enums.HttpMethod;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
-import org.apache.http.HttpHeaders;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpRequestBase;
+import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 华为DNS
@@ -63,55 +63,76 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings({"SpellCheckingInspection"})
 public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, HuaweiDnsProvider.Action> {
 
+    private static final ObjectReader RESULT_READER = readerFor(HuaweiDataResult.class);
+    private static final ObjectReader RECORDSET_READER = readerFor(HuaweiDataResult.Recordsets.class);
     private final Logger log = LogManager.getLogger("[HuaweiDnsProvider]");
     private final String api = "https://dns.myhuaweicloud.com/v2/zones";
-    private final Map<String, String> zoneMap = new ConcurrentHashMap<>();
+    /**
+     * 区域列表每页最大数量
+     */
+    private static final int ZONE_PAGE_SIZE = 500;
+    /**
+     * 区域不存在的错误码
+     */
+    private static final String ZONE_NOT_FOUND = "DNS.0101";
+    /**
+     * 区域索引文件目录
+     */
+    private final String zoneDir;
+    private volatile ZoneIndex zoneIndex;
 
-    public HuaweiDnsProvider(String id, String secret, Vertx vertx) {
-        this(new BasicCredentials(id, secret), vertx);
+    public HuaweiDnsProvider(String id, String secret, String zoneDir, Vertx vertx, WebClient webClient) {
+        this(new BasicCredentials(id, secret), zoneDir, vertx, webClient);
     }
 
-    public HuaweiDnsProvider(ProviderCredentials dnsApiCredentials, Vertx vertx) {
-        super(dnsApiCredentials, vertx);
+    public HuaweiDnsProvider(ProviderCredentials dnsApiCredentials, String zoneDir, Vertx vertx, WebClient webClient) {
+        super(dnsApiCredentials, vertx, webClient, DnsProviderType.HUAWEI);
+        this.zoneDir = zoneDir;
         // init web client
         AsyncHuaweiClientSinger.initClient(super.webClient);
+        this.zoneIndex = this.createZoneIndex();
     }
 
-    private void initZoneMap() {
-        if (!CollectionUtil.isEmpty(this.zoneMap)) {
-            return;
-        }
-        try {
-            final var httpRequestBase = HuaweiRequest.newBuilder(dnsProviderCredentials)
-                                                     .setUrl(this.api)
+    private ZoneIndex createZoneIndex() {
+        return new ZoneIndex(super.vertx, this.zoneDir, DnsProviderType.HUAWEI, super.dnsProviderCredentials, new ZoneIndex.ZoneFetcher() {
+            @Override
+            public Future<ZoneIndex.ZonePage> fetchPage(int pageNumber) {
+                final var httpRequest = HuaweiRequest.newBuilder(dnsProviderCredentials)
+                                                     .setUrl(api)
+                                                     .addQueryStringParam("offset", String.valueOf((pageNumber - 1) * ZONE_PAGE_SIZE))
+                                                     .addQueryStringParam("limit", String.valueOf(ZONE_PAGE_SIZE))
                                                      .setMethod(HttpMethod.GET)
-                                                     .build();
-            final var huaweiDataResult = this.sendRequest(httpRequestBase, null);
-            this.initZone(huaweiDataResult);
-        } catch (Exception e) {
-            throw new InvalidDnsCredentialException(e.getMessage(), e.getCause());
-        }
+                                                     .buildAsync();
+                return findZoneAsync(httpRequest).map(result -> {
+                    final var zones = toZoneMap(result);
+                    final var metadata = result == null ? null : result.getMetadata();
+                    final var hasNext = metadata != null && metadata.getTotalCount() > pageNumber * ZONE_PAGE_SIZE;
+                    return new ZoneIndex.ZonePage(zones, hasNext);
+                });
+            }
+
+            @Override
+            public Future<String> fetchZoneId(String apex) {
+                final var httpRequest = HuaweiRequest.newBuilder(dnsProviderCredentials)
+                                                     .setUrl(api)
+                                                     .addQueryStringParam("name", apex + ".")
+                                                     .addQueryStringParam("search_mode", "equal")
+                                                     .setMethod(HttpMethod.GET)
+                                                     .buildAsync();
+                return findZoneAsync(httpRequest).map(result -> toZoneMap(result).get(apex));
+            }
+        });
     }
 
-    private Future<Void> initZoneMapAsync() {
-        if (!CollectionUtil.isEmpty(this.zoneMap)) {
-            return Future.succeededFuture();
-        }
-        final var httpRequest = HuaweiRequest.newBuilder(dnsProviderCredentials)
-                                             .setUrl(this.api)
-                                             .setMethod(HttpMethod.GET)
-                                             .buildAsync();
-        return httpRequest.send()
-                          .compose(bufferHttpResponse -> {
-                              final var body = bufferHttpResponse.bodyAsString();
-                              this.initZone(this.bodyHandler(body, Action.DESCRIBE));
-                              return Future.succeededFuture();
-                          });
+    private Future<HuaweiDataResult> findZoneAsync(HttpRequest<Buffer> httpRequest) {
+        return this.sendRequestAsync(httpRequest)
+                   .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
     }
 
-    private void initZone(HuaweiDataResult huaweiDataResult) {
+    private Map<String, String> toZoneMap(HuaweiDataResult huaweiDataResult) {
+        final var zoneMap = new HashMap<String, String>();
         if (huaweiDataResult == null) {
-            return;
+            return zoneMap;
         }
         final var zones = huaweiDataResult.getZones();
         if (!CollectionUtil.isEmpty(zones)) {
@@ -119,101 +140,63 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
             for (HuaweiDataResult.Zones zone : zones) {
                 var domain = zone.getName();
                 domain = domain.substring(0, domain.length() - 1);
-                this.zoneMap.put(domain, zone.getId());
+                zoneMap.put(domain, zone.getId());
             }
         }
+        return zoneMap;
     }
 
     /**
-     * 查找记录列表
-     *
-     * @param domain        域名/不区分顶级域名、多级域名
-     * @param dnsRecordType 记录类型
-     * @return {@link HuaweiDataResult}
-     */
-    public HuaweiDataResult findDnsRecordList(String domain, DnsRecordType dnsRecordType) {
-        final var httpRequestBase = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                 .setUrl(this.getZoneUrl(domain))
-                                                 .addQueryStringParam("type", dnsRecordType.name())
-                                                 .setMethod(HttpMethod.GET)
-                                                 .build();
-        return this.sendRequest(httpRequestBase, Action.DESCRIBE);
-    }
-
-    /**
-     * 新增记录
+     * 异步版本
      *
-     * @param domain        域名/不区分顶级域名、多级域名
-     * @param ip            ip
+     * @param domain        域名
      * @param dnsRecordType 记录类型
-     * @return {@link HuaweiDataResult}
+     * @return {@link Future<HuaweiDataResult>}
      */
-    public HuaweiDataResult createDnsRecord(String domain, String ip, DnsRecordType dnsRecordType) {
-        final var jsonObject = new JsonObject().put("name", domain + ".")
-                                               .put("type", dnsRecordType.name())
-                                               .put("records", Collections.singletonList(ip));
-        final var httpRequestBase = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                 .setUrl(this.getZoneUrl(domain))
-                                                 .setMethod(HttpMethod.POST)
-                                                 .addHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                                                 .setBody(jsonObject.encode())
-                                                 .build();
-        return this.sendRequest(httpRequestBase, Action.CREATE);
+    @Override
+    public Future<HuaweiDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
+                                                                           .setUrl(this.getZoneUrl(domain))
+                                                                           .addQueryStringParam("type", dnsRecordType.name())
+                                                                           .setMethod(HttpMethod.GET)
+                                                                           .buildAsync();
+                                 return this.sendRequestAsync(asyncHttpRequest)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
     }
 
     /**
-     * 更新记录
+     * 分页查询区域下的记录
      *
-     * @param id            记录唯一id
-     * @param domain        域名/不区分顶级域名、多级域名
-     * @param ip            ip
+     * @param domain        主域名
      * @param dnsRecordType 记录类型
-     * @return {@link HuaweiDataResult}
-     */
-    public HuaweiDataResult modifyDnsRecord(String id, String domain, String ip, DnsRecordType dnsRecordType) {
-        final var jsonObject = new JsonObject().put("type", dnsRecordType.name())
-                                               .put("name", domain + ".")
-                                               .put("records", Collections.singletonList(ip));
-        final var httpRequestBase = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                 .setUrl(this.getZoneUrl(domain, id))
-                                                 .setMethod(HttpMethod.PUT)
-                                                 .addHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                                                 .setBody(jsonObject.encode())
-                                                 .build();
-        return this.sendRequest(httpRequestBase, Action.MODIFY);
-    }
-
-    /**
-     * 删除记录
-     *
-     * @param id     记录唯一id
-     * @param domain 域名/不区分顶级域名、多级域名
-     * @return {@link HuaweiDataResult}
+     * @param pageNumber    页码
+     * @param pageSize      每页数量
+     * @return {@link Future<HuaweiDataResult>}
      */
-    public HuaweiDataResult deleteDnsRecord(String id, String domain) {
-        final var httpRequestBase = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                 .setUrl(this.getZoneUrl(domain, id))
-                                                 .setMethod(HttpMethod.DELETE)
-                                                 .build();
-        return this.sendRequest(httpRequestBase, Action.DELETE);
+    @Override
+    public Future<HuaweiDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType, int pageNumber, int pageSize) {
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
+                                                                           .setUrl(this.getZoneUrl(domain))
+                                                                           .addQueryStringParam("type", dnsRecordType.name())
+                                                                           .addQueryStringParam("offset", String.valueOf((pageNumber - 1) * pageSize))
+                                                                           .addQueryStringParam("limit", String.valueOf(pageSize))
+                                                                           .setMethod(HttpMethod.GET)
+                                                                           .buildAsync();
+                                 return this.sendRequestAsync(asyncHttpRequest)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
     }
 
-    /**
-     * 异步版本
-     *
-     * @param domain        域名
-     * @param dnsRecordType 记录类型
-     * @return {@link Future<HuaweiDataResult>}
-     */
     @Override
-    public Future<HuaweiDataResult> findDnsRecordListAsync(String domain, DnsRecordType dnsRecordType) {
-        final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                  .setUrl(this.getZoneUrl(domain))
-                                                  .addQueryStringParam("type", dnsRecordType.name())
-                                                  .setMethod(HttpMethod.GET)
-                                                  .buildAsync();
-        return this.sendRequestAsync(asyncHttpRequest)
-                   .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
+    public int maxPageSize() {
+        return 500;
     }
 
     /**
@@ -229,14 +212,18 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
         final var jsonObject = new JsonObject().put("name", domain + ".")
                                                .put("type", dnsRecordType.name())
                                                .put("records", Collections.singletonList(ip));
-        final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                  .setUrl(this.getZoneUrl(domain))
-                                                  .setMethod(HttpMethod.POST)
-                                                  .addHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                                                  .setBody(jsonObject.encode())
-                                                  .buildAsync();
-        return this.sendRequestAsync(asyncHttpRequest, jsonObject)
-                   .compose(v -> this.bodyHandlerAsync(v, Action.CREATE));
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
+                                                                           .setUrl(this.getZoneUrl(domain))
+                                                                           .setMethod(HttpMethod.POST)
+                                                                           .addHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
+                                                                           .setBody(jsonObject.encode())
+                                                                           .buildAsync();
+                                 return this.sendRequestAsync(asyncHttpRequest, jsonObject, false)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(v -> this.bodyHandlerAsync(v, Action.CREATE));
     }
 
     /**
@@ -256,14 +243,18 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
         final var jsonObject = new JsonObject().put("type", dnsRecordType.name())
                                                .put("name", domain + ".")
                                                .put("records", Collections.singletonList(ip));
-        final var aysncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                  .setUrl(this.getZoneUrl(domain, id))
-                                                  .setMethod(HttpMethod.PUT)
-                                                  .addHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                                                  .setBody(jsonObject.encode())
-                                                  .buildAsync();
-        return this.sendRequestAsync(aysncHttpRequest, jsonObject)
-                   .compose(v -> this.bodyHandlerAsync(v, Action.MODIFY));
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var aysncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
+                                                                           .setUrl(this.getZoneUrl(domain, id))
+                                                                           .setMethod(HttpMethod.PUT)
+                                                                           .addHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
+                                                                           .setBody(jsonObject.encode())
+                                                                           .buildAsync();
+                                 return this.sendRequestAsync(aysncHttpRequest, jsonObject)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(v -> this.bodyHandlerAsync(v, Action.MODIFY));
     }
 
     /**
@@ -275,23 +266,26 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
      */
     @Override
     public Future<HuaweiDataResult> deleteDnsRecordAsync(String id, String domain) {
-        final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
-                                                  .setUrl(this.getZoneUrl(domain, id))
-                                                  .setMethod(HttpMethod.DELETE)
-                                                  .buildAsync();
-        return this.sendRequestAsync(asyncHttpRequest)
-                   .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
+        return this.zoneIndex.resolve(domain)
+                             .compose(zoneId -> {
+                                 final var asyncHttpRequest = HuaweiRequest.newBuilder(this.dnsProviderCredentials)
+                                                                           .setUrl(this.getZoneUrl(domain, id))
+                                                                           .setMethod(HttpMethod.DELETE)
+                                                                           .buildAsync();
+                                 return this.sendRequestAsync(asyncHttpRequest)
+                                            .map(response -> this.checkZone(response, zoneId));
+                             })
+                             .compose(v -> this.bodyHandlerAsync(v, Action.DESCRIBE));
     }
 
     /**
-     * 是否支持
+     * 是否支持，只判断服务商类型，区域id在调用接口时由 {@link ZoneIndex} 按需加载
      *
      * @param dnsServiceType DNS服务商类型
      * @return {@link boolean}
      */
     @Override
     public boolean support(DnsProviderType dnsServiceType) {
-        this.initZoneMap();
         return DnsProviderType.HUAWEI.check(dnsServiceType);
     }
 
@@ -303,29 +297,10 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
      */
     @Override
     public Future<Boolean> supportAsync(DnsProviderType dnsServiceType) {
-        return this.initZoneMapAsync()
-                   .compose(v -> {
-                       if (!DnsProviderType.HUAWEI.check(dnsServiceType)) {
-                           return Future.failedFuture("The :" + dnsServiceType.name() + " DNS service provider is not supported");
-                       }
-                       return Future.succeededFuture(true);
-                   });
-    }
-
-    private HuaweiDataResult sendRequest(HttpRequestBase httpRequestBase, Action action) {
-        byte[] bytes;
-        try (CloseableHttpResponse httpResponse = this.closeableHttpClient.execute(httpRequestBase)) {
-            if (httpResponse != null) {
-                bytes = this.getBodyBytes(httpResponse);
-                if (!ObjectUtil.isEmpty(bytes)) {
-                    return this.bodyHandler(new String(bytes), action);
-                }
-            }
-            return null;
-        } catch (Exception e) {
-            LogUtil.printDebug(log, e.getMessage(), e.getCause());
-            throw new DnsServiceResponseException(e.getMessage(), e.getCause());
+        if (!DnsProviderType.HUAWEI.check(dnsServiceType)) {
+            return Future.failedFuture("The :" + dnsServiceType.name() + " DNS service provider is not supported");
         }
+        return Future.succeededFuture(true);
     }
 
     @Override
@@ -335,21 +310,62 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
 
     @Override
     protected Future<HttpResponse<Buffer>> sendRequestAsync(HttpRequest<Buffer> httpRequest, JsonObject data) {
-        if (data != null) {
-            return httpRequest.sendJsonObject(data);
+        return this.sendRequestAsync(httpRequest, data, true);
+    }
+
+    private Future<HttpResponse<Buffer>> sendRequestAsync(HttpRequest<Buffer> httpRequest, JsonObject data, boolean idempotent) {
+        // 签名有效期为15分钟，重试时可直接复用已签名的请求
+        return this.executeAsync(() -> data != null ? httpRequest.sendJsonObject(data) : httpRequest.send(), idempotent);
+    }
+
+    /**
+     * 区域已被删除时返回DNS.0101，从区域索引中移除，下次调用重新查询区域id
+     */
+    private HttpResponse<Buffer> checkZone(HttpResponse<Buffer> response, String zoneId) {
+        if (response.statusCode() != 404) {
+            return response;
         }
-        return httpRequest.send();
+        try {
+            final var body = response.bodyAsJsonObject();
+            if (body != null && ZONE_NOT_FOUND.equals(body.getString("code"))) {
+                this.zoneIndex.invalidate(zoneId);
+            }
+        } catch (DecodeException | ClassCastException ignored) {
+            // not a zone error
+        }
+        return response;
     }
 
+    /**
+     * 华为云触发流控时返回APIGW.0308，请求未被处理，非幂等请求同样可以重试
+     */
     @Override
-    protected HuaweiDataResult bodyHandler(String body, Action action) {
-        HuaweiDataResult huaweiDataResult = this.mapperResult(body, HuaweiDataResult.class);
+    protected boolean isRetryable(HttpResponse<Buffer> response, boolean idempotent) {
+        if (super.isRetryable(response, idempotent)) {
+            return true;
+        }
+        if (response.statusCode() < 400) {
+            return false;
+        }
+        try {
+            final var body = response.bodyAsJsonObject();
+            return body != null && "APIGW.0308".equals(body.getString("error_code"));
+        } catch (DecodeException | ClassCastException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected HuaweiDataResult bodyHandler(Buffer body, Action action) {
+        HuaweiDataResult huaweiDataResult;
         switch (action) {
             case CREATE, MODIFY, DELETE -> {
-                final var result = this.mapperResult(body, HuaweiDataResult.Recordsets.class);
-                huaweiDataResult = this.resultToList(huaweiDataResult, result);
+                // 单条记录的响应需要同时绑定为结果和记录集，只解析一次
+                final var tree = this.mapperTree(body);
+                final HuaweiDataResult.Recordsets result = this.mapperResult(tree, RECORDSET_READER);
+                huaweiDataResult = this.resultToList(this.mapperResult(tree, RESULT_READER), result);
             }
-            default -> huaweiDataResult = this.mapperResult(body, HuaweiDataResult.class);
+            default -> huaweiDataResult = this.mapperResult(body, RESULT_READER);
         }
         if (huaweiDataResult != null && huaweiDataResult.getMessage() != null) {
             throw new DnsServiceResponseException(huaweiDataResult.getMessage());
@@ -359,9 +375,8 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
 
     @Override
     protected Future<HuaweiDataResult> bodyHandlerAsync(HttpResponse<Buffer> responseFuture, Action action) {
-        final var body = responseFuture.bodyAsString();
         try {
-            final var huaweiDataResult = this.bodyHandler(body, action);
+            final var huaweiDataResult = this.bodyHandler(responseFuture.body(), action);
             return Future.succeededFuture(huaweiDataResult);
         } catch (Exception e) {
             LogUtil.printDebug(log, e.getMessage(), e.getCause());
@@ -381,11 +396,7 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
     }
 
     private String getZoneUrl(String domain, String recordSetId) {
-        final var extractDomain = HttpUtil.extractDomain(domain);
-        String zoneId = this.zoneMap.get(extractDomain[0]);
-        if (StringUtil.isEmpty(zoneId)) {
-            throw new ResolvedDomainException("Resolved primary domain name:" + domain + " does not exist");
-        }
+        final var zoneId = this.zoneIndex.get(domain);
         if (StringUtil.isEmpty(recordSetId)) {
             return this.concatUrl(this.api, zoneId, "recordsets");
         }
@@ -395,8 +406,12 @@ public class HuaweiDnsProvider extends AbstractDnsProvider<HuaweiDataResult, Hua
 
     @Override
     public void reloadCredentials(ProviderCredentials dnsProviderCredentials) {
-        this.zoneMap.clear();
+        // 凭证未变化时保留区域索引
+        final var credentialsChanged = this.isCredentialsChanged(dnsProviderCredentials);
         super.reloadCredentials(dnsProviderCredentials);
+        if (credentialsChanged) {
+            this.zoneIndex = this.createZoneIndex();
+        }
     }
 
     protected enum Action {
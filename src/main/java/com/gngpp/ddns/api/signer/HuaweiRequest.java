@@ -27,14 +27,12 @@
 package com.gngpp.ddns.api.signer;
 
 import com.gngpp.ddns.api.signer.client.AsyncHuaweiClientSinger;
-import com.gngpp.ddns.api.signer.client.HuaweiClientSigner;
 import com.gngpp.ddns.util.ApiURLEncoderUtil;
 import com.gngpp.ddns.api.auth.ProviderCredentials;
 import com.gngpp.ddns.enums.HttpMethod;
 import com.gngpp.ddns.util.LogUtil;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpRequest;
-import org.apache.http.client.methods.HttpRequestBase;
 
 import java.net.URLDecoder;
 import java.net.URLEncoder;
@@ -53,9 +51,11 @@ public class HuaweiRequest {
     private final Map<String, List<String>> queryString = new Hashtable<>();
     private String key = null;
     private String secret = null;
-    private String method = null;
+    private HttpMethod method = null;
     private String url = null;
-    private String body = null;
+    private String host = null;
+    private String path = null;
+    private Buffer body = null;
     private String fragment = null;
 
     private HuaweiRequest(ProviderCredentials basicCredentials) {
@@ -90,24 +90,31 @@ public class HuaweiRequest {
     }
 
     public HttpMethod getMethod() {
-        return HttpMethod.valueOf(this.method.toUpperCase());
+        return this.method;
     }
 
     public HuaweiRequest setMethod(HttpMethod methodType) {
-        final var method = methodType.name();
-        if (!method.equalsIgnoreCase("post") && !method.equalsIgnoreCase("put") && !method.equalsIgnoreCase("patch") && !method.equalsIgnoreCase("delete") && !method.equalsIgnoreCase("get") && !method.equalsIgnoreCase("options") && !method.equalsIgnoreCase("head")) {
+        if (methodType == null) {
             throw new RuntimeException("unsupported method");
-        } else {
-            this.method = method;
         }
+        this.method = methodType;
         return this;
     }
 
     public String getBody() {
+        return this.body == null ? null : this.body.toString(StandardCharsets.UTF_8);
+    }
+
+    public Buffer getBodyBuffer() {
         return this.body;
     }
 
     public HuaweiRequest setBody(String body) {
+        this.body = body == null ? null : Buffer.buffer(body, StandardCharsets.UTF_8.name());
+        return this;
+    }
+
+    public HuaweiRequest setBody(Buffer body) {
         this.body = body;
         return this;
     }
@@ -178,6 +185,12 @@ public class HuaweiRequest {
             }
 
             this.url = url;
+            // host、path在签名时频繁使用，设置url时计算一次
+            int start = url.indexOf("://");
+            start = start >= 0 ? start + 3 : 0;
+            int slash = url.indexOf(47, start);
+            this.host = slash >= 0 ? url.substring(start, slash) : url.substring(start);
+            this.path = slash >= 0 ? url.substring(slash) : "/";
         } else {
             throw new RuntimeException("url can not be empty");
         }
@@ -185,29 +198,11 @@ public class HuaweiRequest {
     }
 
     public String getPath() {
-        String url = this.url;
-        int i = url.indexOf("://");
-        if (i >= 0) {
-            url = url.substring(i + 3);
-        }
-
-        i = url.indexOf(47);
-        return i >= 0 ? url.substring(i) : "/";
+        return this.path;
     }
 
     public String getHost() {
-        String url = this.url;
-        int i = url.indexOf("://");
-        if (i >= 0) {
-            url = url.substring(i + 3);
-        }
-
-        i = url.indexOf(47);
-        if (i >= 0) {
-            url = url.substring(0, i);
-        }
-
-        return url;
+        return this.host;
     }
 
     public HuaweiRequest addQueryStringParam(String name, String value) {
@@ -246,15 +241,6 @@ public class HuaweiRequest {
         return new HuaweiRequest(credentials);
     }
 
-    public HttpRequestBase build() {
-        try {
-            return HuaweiClientSigner.sign(this);
-        } catch (Exception e) {
-            LogUtil.printDebug(e.getMessage(), e.getCause());
-            throw new RuntimeException(e.getMessage(), e.getCause());
-        }
-    }
-
     public HttpRequest<Buffer> buildAsync() {
         try {
             return AsyncHuaweiClientSinger.signAsync(this);
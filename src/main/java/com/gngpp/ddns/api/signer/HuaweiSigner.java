@@ -26,45 +26,70 @@
 
 package com.gngpp.ddns.api.signer;
 
+import com.gngpp.ddns.api.signer.algorithm.Signer;
 import com.gngpp.ddns.util.ApiURLEncoderUtil;
 import com.gngpp.ddns.util.BinaryUtil;
-import org.apache.http.HttpHeaders;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * 华为云API签名，无状态、线程安全，可通过{@link #getSigner()}共享
+ *
  * @author mac
  * @date 2021/7/24
  */
 @SuppressWarnings("SpellCheckingInspection")
 public class HuaweiSigner {
-    public static final SimpleDateFormat TIME_FORMATTER = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
+    public static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+                                                                            .withZone(ZoneOffset.UTC);
     public static final String HOST = "Host";
+    private static final String SDK_DATE = "X-Sdk-Date";
+    private static final String ALGORITHM = "SDK-HMAC-SHA256";
     private static final Pattern AUTHORIZATION_PATTERN = Pattern.compile("SDK-HMAC-SHA256\\s+Access=([^,]+),\\s?SignedHeaders=([^,]+),\\s?Signature=(\\w+)");
+    private static final HuaweiSigner SIGNER = new HuaweiSigner();
+    /**
+     * MessageDigest不是线程安全的，按线程复用
+     */
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    /**
+     * 规范化路径缓存上限，超过后整体清空
+     */
+    private static final int MAX_CACHED_PATH = 256;
+    private static final Map<String, String> CANONICAL_PATH_CACHE = new ConcurrentHashMap<>();
 
-    static {
-        TIME_FORMATTER.setTimeZone(TimeZone.getTimeZone("UTC"));
+    public HuaweiSigner() {
     }
 
-    public HuaweiSigner() {
+    public static HuaweiSigner getSigner() {
+        return SIGNER;
     }
 
     public void sign(HuaweiRequest request) {
-        String singerDate = this.getHeader(request, "X-Sdk-Date");
+        // 重复签名时去掉上一次的签名头，避免被计入SignedHeaders
+        this.removeHeader(request, HttpHeaders.AUTHORIZATION.toString());
+        String singerDate = this.getHeader(request, SDK_DATE);
         if (singerDate == null) {
-            singerDate = TIME_FORMATTER.format(new Date());
-            request.addHeader("X-Sdk-Date", singerDate);
+            singerDate = TIME_FORMATTER.format(Instant.now());
+            request.addHeader(SDK_DATE, singerDate);
         }
 
         this.addHostHeader(request);
@@ -72,35 +97,61 @@ public class HuaweiSigner {
         String[] signedHeaders = this.getSignedHeaders(request);
         String canonicalRequest = this.createCanonicalRequest(request, signedHeaders, contentSha256);
         String stringToSign = this.createStringToSign(canonicalRequest, singerDate);
-        byte[] signingKey = this.deriveSigningKey(request.getSecret());
-        byte[] signature = this.computeSignature(stringToSign, signingKey);
-        request.addHeader(HttpHeaders.AUTHORIZATION, this.buildAuthorizationHeader(signedHeaders, signature, request.getKey()));
+        byte[] signature = this.computeSignature(stringToSign, request.getSecret());
+        request.addHeader(HttpHeaders.AUTHORIZATION.toString(), this.buildAuthorizationHeader(signedHeaders, signature, request.getKey()));
     }
 
     protected String getCanonicalizedResourcePath(String resourcePath) {
-        if (resourcePath != null && !resourcePath.isEmpty()) {
-            try {
-                resourcePath = (new URI(resourcePath)).getPath();
-            } catch (URISyntaxException var3) {
-                return resourcePath;
+        if (resourcePath == null || resourcePath.isEmpty()) {
+            return "/";
+        }
+        var value = CANONICAL_PATH_CACHE.get(resourcePath);
+        if (value == null) {
+            value = this.canonicalizeResourcePath(resourcePath);
+            if (CANONICAL_PATH_CACHE.size() >= MAX_CACHED_PATH) {
+                CANONICAL_PATH_CACHE.clear();
             }
+            CANONICAL_PATH_CACHE.put(resourcePath, value);
+        }
+        return value;
+    }
 
-            String value = ApiURLEncoderUtil.huaweiPercentEncode(resourcePath, true);
-            if (!value.startsWith("/")) {
-                value = "/".concat(value);
-            }
+    private String canonicalizeResourcePath(String resourcePath) {
+        try {
+            resourcePath = (new URI(resourcePath)).getPath();
+        } catch (URISyntaxException var3) {
+            return resourcePath;
+        }
 
-            if (!value.endsWith("/")) {
-                value = value.concat("/");
-            }
+        String value = ApiURLEncoderUtil.huaweiPercentEncode(resourcePath, true);
+        if (!value.startsWith("/")) {
+            value = "/".concat(value);
+        }
 
-            return value;
-        } else {
-            return "/";
+        if (!value.endsWith("/")) {
+            value = value.concat("/");
         }
+
+        return value;
     }
 
     protected String getCanonicalizedQueryString(Map<String, List<String>> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        // 单个参数无需排序
+        if (parameters.size() == 1) {
+            final var entry = parameters.entrySet()
+                                        .iterator()
+                                        .next();
+            if (entry.getValue()
+                     .size() == 1) {
+                return ApiURLEncoderUtil.huaweiPercentEncode(entry.getKey(), false) + "=" +
+                        ApiURLEncoderUtil.huaweiPercentEncode(entry.getValue()
+                                                                   .get(0), false);
+            }
+        }
+
         SortedMap<String, List<String>> sorted = new TreeMap<>();
 
         for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
@@ -118,16 +169,14 @@ public class HuaweiSigner {
 
         StringBuilder result = new StringBuilder();
 
-        for (Map.Entry<String, List<String>> stringListEntry : sorted.entrySet()) {
-
-            String value;
-            for (var var13 = (stringListEntry.getValue()).iterator(); var13.hasNext(); result.append(stringListEntry.getKey())
-                                                                                             .append("=")
-                                                                                             .append(value)) {
-                value = var13.next();
+        for (Map.Entry<String, List<String>> entry : sorted.entrySet()) {
+            for (String value : entry.getValue()) {
                 if (result.length() > 0) {
                     result.append("&");
                 }
+                result.append(entry.getKey())
+                      .append("=")
+                      .append(value);
             }
         }
 
@@ -135,56 +184,46 @@ public class HuaweiSigner {
     }
 
     protected String createCanonicalRequest(HuaweiRequest request, String[] signedHeaders, String contentSha256) {
-        return request.getMethod()
-                      .toString() + "\n" +
-                this.getCanonicalizedResourcePath(request.getPath()) +
-                "\n" +
-                this.getCanonicalizedQueryString(request.getQueryStringParams()) +
-                "\n" +
-                this.getCanonicalizedHeaderString(request, signedHeaders) +
-                "\n" +
-                this.getSignedHeadersString(signedHeaders) +
-                "\n" +
-                contentSha256;
+        final var builder = new StringBuilder(256);
+        builder.append(request.getMethod()
+                              .toString())
+               .append("\n")
+               .append(this.getCanonicalizedResourcePath(request.getPath()))
+               .append("\n")
+               .append(this.getCanonicalizedQueryString(request.getQueryStringParams()))
+               .append("\n");
+        this.appendCanonicalizedHeaderString(builder, request, signedHeaders);
+        builder.append("\n");
+        this.appendSignedHeadersString(builder, signedHeaders);
+        return builder.append("\n")
+                      .append(contentSha256)
+                      .toString();
     }
 
     protected String createStringToSign(String canonicalRequest, String singerDate) {
-        return "SDK-HMAC-SHA256" +
+        return ALGORITHM +
                 "\n" +
                 singerDate +
                 "\n" +
                 BinaryUtil.toHex(this.hash(canonicalRequest));
     }
 
-    private byte[] deriveSigningKey(String secret) {
-        return secret.getBytes(StandardCharsets.UTF_8);
-    }
-
-    protected byte[] sign(byte[] data, byte[] key, SigningAlgorithm algorithm) {
-        try {
-            Mac mac = Mac.getInstance(algorithm.toString());
-            mac.init(new SecretKeySpec(key, algorithm.toString()));
-            return mac.doFinal(data);
-        } catch (InvalidKeyException | NoSuchAlgorithmException var5) {
-            return null;
-        }
-    }
-
-    protected final byte[] computeSignature(String stringToSign, byte[] signingKey) {
-        return this.sign(stringToSign.getBytes(StandardCharsets.UTF_8), signingKey, SigningAlgorithm.HmacSHA256);
+    protected final byte[] computeSignature(String stringToSign, String secret) {
+        // 复用按线程缓存的Mac
+        return Signer.getSHA256Signer()
+                     .signString(stringToSign, secret);
     }
 
     private String buildAuthorizationHeader(String[] signedHeaders, byte[] signature, String accessKey) {
-        String credential = "Access=" + accessKey;
-        String signerHeaders = "SignedHeaders=" + this.getSignedHeadersString(signedHeaders);
-        String signatureHeader = "Signature=" + BinaryUtil.toHex(signature);
-        return "SDK-HMAC-SHA256" +
-                " " +
-                credential +
-                ", " +
-                signerHeaders +
-                ", " +
-                signatureHeader;
+        final var builder = new StringBuilder(128);
+        builder.append(ALGORITHM)
+               .append(" Access=")
+               .append(accessKey)
+               .append(", SignedHeaders=");
+        this.appendSignedHeadersString(builder, signedHeaders);
+        return builder.append(", Signature=")
+                      .append(BinaryUtil.toHex(signature))
+                      .toString();
     }
 
     protected String[] getSignedHeaders(HuaweiRequest request) {
@@ -196,79 +235,73 @@ public class HuaweiSigner {
     }
 
     protected String getCanonicalizedHeaderString(HuaweiRequest request, String[] signedHeaders) {
-        Map<String, String> requestHeaders = request.getHeaders();
-        StringBuilder buffer = new StringBuilder();
+        final var builder = new StringBuilder();
+        this.appendCanonicalizedHeaderString(builder, request, signedHeaders);
+        return builder.toString();
+    }
 
+    private void appendCanonicalizedHeaderString(StringBuilder builder, HuaweiRequest request, String[] signedHeaders) {
         for (String header : signedHeaders) {
-            String key = header.toLowerCase();
-            String value = requestHeaders.get(header);
-            buffer.append(key)
-                  .append(":");
+            String value = this.getHeader(request, header);
+            builder.append(header.toLowerCase(Locale.ROOT))
+                   .append(":");
             if (value != null) {
-                buffer.append(value.trim());
+                builder.append(value.trim());
             }
 
-            buffer.append("\n");
+            builder.append("\n");
         }
-
-        return buffer.toString();
     }
 
     protected String getSignedHeadersString(String[] signedHeaders) {
-        StringBuilder buffer = new StringBuilder();
+        final var builder = new StringBuilder();
+        this.appendSignedHeadersString(builder, signedHeaders);
+        return builder.toString();
+    }
 
-        for (String header : signedHeaders) {
-            if (buffer.length() > 0) {
-                buffer.append(";");
+    private void appendSignedHeadersString(StringBuilder builder, String[] signedHeaders) {
+        for (int i = 0; i < signedHeaders.length; i++) {
+            if (i > 0) {
+                builder.append(";");
             }
 
-            buffer.append(header.toLowerCase());
+            builder.append(signedHeaders[i].toLowerCase(Locale.ROOT));
         }
-
-        return buffer.toString();
     }
 
     protected void addHostHeader(HuaweiRequest request) {
-        boolean haveHostHeader = false;
-
-        for (String key : request.getHeaders()
-                                 .keySet()) {
-            if ("Host".equalsIgnoreCase(key)) {
-                haveHostHeader = true;
-                break;
-            }
+        if (this.getHeader(request, HOST) == null) {
+            request.addHeader(HOST, request.getHost());
         }
-
-        if (!haveHostHeader) {
-            request.addHeader("Host", request.getHost());
-        }
-
     }
 
     protected String getHeader(HuaweiRequest request, String header) {
         if (header == null) {
             return null;
-        } else {
-            Map<String, String> headers = request.getHeaders();
-            var var4 = headers.keySet()
-                              .iterator();
-
-            String key;
-            do {
-                if (!var4.hasNext()) {
-                    return null;
-                }
-
-                key = var4.next();
-            } while (!header.equalsIgnoreCase(key));
-
-            return headers.get(key);
         }
+        Map<String, String> headers = request.getHeaders();
+        // 大多数情况下key大小写一致，先直接查找
+        String value = headers.get(header);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (header.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void removeHeader(HuaweiRequest request, String header) {
+        request.getHeaders()
+               .keySet()
+               .removeIf(header::equalsIgnoreCase);
     }
 
     public boolean verify(HuaweiRequest request) {
-        String singerDate = this.getHeader(request, "X-Sdk-Date");
-        String authorization = this.getHeader(request, HttpHeaders.AUTHORIZATION);
+        String singerDate = this.getHeader(request, SDK_DATE);
+        String authorization = this.getHeader(request, HttpHeaders.AUTHORIZATION.toString());
         Matcher m = AUTHORIZATION_PATTERN.matcher(authorization);
         if (!m.find()) {
             return false;
@@ -278,25 +311,36 @@ public class HuaweiSigner {
             String contentSha256 = this.calculateContentHash(request);
             String canonicalRequest = this.createCanonicalRequest(request, signedHeaders, contentSha256);
             String stringToSign = this.createStringToSign(canonicalRequest, singerDate);
-            byte[] signingKey = this.deriveSigningKey(request.getSecret());
-            byte[] signature = this.computeSignature(stringToSign, signingKey);
+            byte[] signature = this.computeSignature(stringToSign, request.getSecret());
             String signatureResult = this.buildAuthorizationHeader(signedHeaders, signature, request.getKey());
             return signatureResult.equals(authorization);
         }
     }
 
     protected String calculateContentHash(HuaweiRequest request) {
-        String content_sha256 = this.getHeader(request, "x-sdk-content-sha256");
-        return content_sha256 != null ? content_sha256 : BinaryUtil.toHex(this.hash(request.getBody()));
+        String contentSha256 = this.getHeader(request, "x-sdk-content-sha256");
+        return contentSha256 != null ? contentSha256 : BinaryUtil.toHex(this.hash(request.getBodyBuffer()));
     }
 
     public byte[] hash(String text) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(text.getBytes(StandardCharsets.UTF_8));
-            return md.digest();
-        } catch (NoSuchAlgorithmException var3) {
-            return null;
+        final var digest = SHA256_DIGEST.get();
+        digest.reset();
+        return digest.digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 直接从Buffer底层的ByteBuffer计算摘要，不拷贝请求体
+     *
+     * @param buffer 请求体，为空时按空串计算
+     * @return 摘要
+     */
+    public byte[] hash(Buffer buffer) {
+        final var digest = SHA256_DIGEST.get();
+        digest.reset();
+        if (buffer != null && buffer.length() > 0) {
+            final var byteBuf = buffer.getByteBuf();
+            digest.update(byteBuf.nioBuffer(byteBuf.readerIndex(), byteBuf.readableBytes()));
         }
+        return digest.digest();
     }
 }
@@ -33,12 +33,23 @@ import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("StaticInitializerReferencesSubClass")
 public abstract class Signer {
 
     private final static Signer hmacSHA1Signer = new HmacSHA1Signer();
     private final static Signer hmacSHA256Signer = new HmacSHA256Signer();
+    /**
+     * 每个线程缓存的已初始化Mac数量，按最近使用淘汰
+     */
+    private final static int MAX_CACHED_MAC = 8;
+    /**
+     * Mac不是线程安全的，按算法、线程缓存，key为密钥
+     */
+    private final static Map<String, ThreadLocal<Map<String, Mac>>> MAC_CACHE = new ConcurrentHashMap<>(4);
 
     public static Signer getSHA1Signer() {
         return hmacSHA1Signer;
@@ -49,13 +60,33 @@ public abstract class Signer {
     }
 
     protected static byte[] sign(String stringToSign, String secret, String algorithmName) {
-        try {
-            Mac mac = Mac.getInstance(algorithmName);
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithmName));
-            return mac.doFinal(stringToSign.getBytes(StandardCharsets.UTF_8));
-        } catch (NoSuchAlgorithmException | InvalidKeyException var5) {
-            throw new IllegalArgumentException(var5.toString());
+        // doFinal之后Mac会重置为初始化后的状态，可直接复用
+        return getMac(secret, algorithmName).doFinal(stringToSign.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac getMac(String secret, String algorithmName) {
+        final var cache = MAC_CACHE.computeIfAbsent(algorithmName, k -> ThreadLocal.withInitial(Signer::newMacCache))
+                                   .get();
+        var mac = cache.get(secret);
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(algorithmName);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithmName));
+            } catch (NoSuchAlgorithmException | InvalidKeyException var5) {
+                throw new IllegalArgumentException(var5.toString());
+            }
+            cache.put(secret, mac);
         }
+        return mac;
+    }
+
+    private static Map<String, Mac> newMacCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Mac> eldest) {
+                return this.size() > MAX_CACHED_MAC;
+            }
+        };
     }
 
     public abstract byte[] signString(String stringToSign, ProviderCredentials credentials);
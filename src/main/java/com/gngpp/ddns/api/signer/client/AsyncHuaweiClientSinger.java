@@ -53,20 +53,13 @@ public class AsyncHuaweiClientSinger {
     }
 
     public static HttpRequest<Buffer> signAsync(HuaweiRequest request) throws Exception {
-        String appKey = request.getKey();
-        String appSecret = request.getSecret();
-        String url = request.getUrl();
-        String body = request.getBody();
-        Map<String, String> headers = request.getHeaders();
-        return switch (request.getMethod()) {
-            case GET -> get(appKey, appSecret, url, headers);
-            case POST -> post(appKey, appSecret, url, headers, body);
-            case PUT -> put(appKey, appSecret, url, headers, body);
-            case PATCH -> patch(appKey, appSecret, url, headers, body);
-            case DELETE -> delete(appKey, appSecret, url, headers);
-            case HEAD -> head(appKey, appSecret, url, headers);
-            case OPTIONS -> options(appKey, appSecret, url, headers);
-        };
+        switch (request.getMethod()) {
+            // 与原有行为一致，无请求体的方法按空请求体签名
+            case GET, DELETE, HEAD, OPTIONS -> request.setBody((Buffer) null);
+            default -> {
+            }
+        }
+        return new AsyncHuaweiAccessServiceImpl(request.getKey(), request.getSecret(), webClient).access(request);
     }
 
     public static HttpRequest<Buffer> put(String ak,
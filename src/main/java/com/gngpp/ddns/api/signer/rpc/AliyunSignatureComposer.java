@@ -31,13 +31,18 @@ import com.gngpp.ddns.api.signer.algorithm.Signer;
 import com.gngpp.ddns.enums.HttpMethod;
 import com.gngpp.ddns.util.DataTypeConverterUtil;
 
-import java.util.Arrays;
 import java.util.Map;
 
 @SuppressWarnings("unused")
 public class AliyunSignatureComposer implements RpcAPISignatureComposer {
 
     private final static String SEPARATOR = "&";
+    /**
+     * 编码后的 "/" "=" "&"
+     */
+    private final static String ENCODED_ROOT = "%2F";
+    private final static String ENCODED_EQUALS = "%3D";
+    private final static String ENCODED_SEPARATOR = "%26";
     private final Signer signer = Signer.getSHA1Signer();
 
     private AliyunSignatureComposer() {
@@ -54,24 +59,23 @@ public class AliyunSignatureComposer implements RpcAPISignatureComposer {
 
     @Override
     public String composeStringToSign(HttpMethod method, Map<String, Object> queryParamMap) {
-        String[] sortedKeys = queryParamMap.keySet()
-                                           .toArray(new String[]{});
-        Arrays.sort(sortedKeys);
-        StringBuilder canonicalizeQueryString = new StringBuilder();
-        for (String key : sortedKeys) {
-            canonicalizeQueryString.append("&")
-                                   .append(ApiURLEncoderUtil.aliyunPercentEncode(key))
-                                   .append("=")
-                                   .append(ApiURLEncoderUtil.aliyunPercentEncode(queryParamMap.get(key)
-                                                                                              .toString()));
+        // 规范化的请求字符串整体还要再编码一次，这里直接按两次编码写入
+        final var builder = RpcComposerSupport.builder()
+                                              .append(method.name())
+                                              .append(SEPARATOR)
+                                              .append(ENCODED_ROOT)
+                                              .append(SEPARATOR);
+        var first = true;
+        for (Map.Entry<String, Object> entry : RpcComposerSupport.sorted(queryParamMap)) {
+            if (!first) {
+                builder.append(ENCODED_SEPARATOR);
+            }
+            first = false;
+            ApiURLEncoderUtil.aliyunPercentEncode(builder, entry.getKey(), 2)
+                             .append(ENCODED_EQUALS);
+            ApiURLEncoderUtil.aliyunPercentEncode(builder, entry.getValue().toString(), 2);
         }
-
-        return method.name() +
-                SEPARATOR +
-                ApiURLEncoderUtil.aliyunPercentEncode("/") +
-                SEPARATOR +
-                ApiURLEncoderUtil.aliyunPercentEncode(canonicalizeQueryString.substring(1));
-
+        return builder.toString();
     }
 
     @Override
@@ -79,6 +83,8 @@ public class AliyunSignatureComposer implements RpcAPISignatureComposer {
                                  String urlPattern,
                                  HttpMethod methodType,
                                  Map<String, Object> queries) {
+        // 重试时复用同一组参数，去掉上一次的签名
+        queries.remove("Signature");
         // stringToSign
         final var stringToSign = this.composeStringToSign(methodType, queries);
         // 签名
@@ -31,7 +31,6 @@ import com.gngpp.ddns.util.ApiURLEncoderUtil;
 import com.gngpp.ddns.enums.HttpMethod;
 import com.gngpp.ddns.util.DataTypeConverterUtil;
 
-import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -56,15 +55,14 @@ public class DnspodSignatureComposer implements RpcAPISignatureComposer {
 
     @Override
     public String composeStringToSign(HttpMethod method, Map<String, Object> queries) {
-        String[] sortedKeys = queries.keySet()
-                                     .toArray(new String[]{});
-        Arrays.sort(sortedKeys);
         @SuppressWarnings("SpellCheckingInspection")
-        StringBuilder canonicalizedQueryString = new StringBuilder(method.name() + "dnspod.tencentcloudapi.com/?");
-        for (String key : sortedKeys) {
-            canonicalizedQueryString.append(key)
+        final var canonicalizedQueryString = RpcComposerSupport.builder()
+                                                               .append(method.name())
+                                                               .append("dnspod.tencentcloudapi.com/?");
+        for (Map.Entry<String, Object> entry : RpcComposerSupport.sorted(queries)) {
+            canonicalizedQueryString.append(entry.getKey())
                                     .append("=")
-                                    .append(queries.get(key))
+                                    .append(entry.getValue())
                                     .append("&");
         }
         return canonicalizedQueryString.substring(0, canonicalizedQueryString.length() - 1);
@@ -76,6 +74,8 @@ public class DnspodSignatureComposer implements RpcAPISignatureComposer {
                                  String urlPattern,
                                  HttpMethod methodType,
                                  Map<String, Object> queries) {
+        // 重试时复用同一组参数，去掉上一次的签名
+        queries.remove("Signature");
         final var stringToSign = this.composeStringToSign(methodType, queries);
         final var signature = this.signer.signString(stringToSign, accessKeySecret);
         final var base64Binary = DataTypeConverterUtil._printBase64Binary(signature);
@@ -82,13 +82,15 @@ public interface RpcAPISignatureComposer {
      */
     default String canonicalizeRequestUrl(String urlPattern, Map<String, Object> queries, String signature) {
         queries.put("Signature", signature);
-        StringBuilder canonicalizeQueryString = new StringBuilder();
-        for (String key : queries.keySet()) {
-            canonicalizeQueryString.append("&")
-                                   .append(key)
+        final var canonicalizeQueryString = RpcComposerSupport.builder()
+                                                              .append(urlPattern)
+                                                              .append("?");
+        for (Map.Entry<String, Object> entry : queries.entrySet()) {
+            canonicalizeQueryString.append(entry.getKey())
                                    .append("=")
-                                   .append(queries.get(key));
+                                   .append(entry.getValue())
+                                   .append("&");
         }
-        return urlPattern + "?" + canonicalizeQueryString.substring(1);
+        return canonicalizeQueryString.substring(0, canonicalizeQueryString.length() - 1);
     }
 }
@@ -0,0 +1,74 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.api.signer.rpc;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 签名组合时复用的工具，每个签名请求都会调用，尽量避免临时对象
+ *
+ * @author mac
+ * 2022/4/14
+ */
+final class RpcComposerSupport {
+
+    private static final int INITIAL_CAPACITY = 512;
+    /**
+     * 超过该容量的builder用完后不再保留，避免个别大请求长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private RpcComposerSupport() {
+    }
+
+    /**
+     * 当前线程复用的builder，调用方需在下一次获取之前用完
+     */
+    static StringBuilder builder() {
+        var builder = BUILDER.get();
+        if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+            builder = new StringBuilder(INITIAL_CAPACITY);
+            BUILDER.set(builder);
+        }
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * 按参数名排序，调用方传入自然排序的 {@link TreeMap} 时直接使用，不再复制排序
+     */
+    static Iterable<Map.Entry<String, Object>> sorted(Map<String, Object> queries) {
+        if (queries instanceof SortedMap<String, Object> sortedMap && sortedMap.comparator() == null) {
+            return sortedMap.entrySet();
+        }
+        return new TreeMap<>(queries).entrySet();
+    }
+}
@@ -84,14 +84,26 @@ public class AsyncHuaweiAccessServiceImpl extends HuaweiAccessService<HttpReques
         HuaweiRequest request = this.newRequest(url, httpMethod);
 
 
-        for (String k : headers.keySet()) {
-            request.addHeader(k, headers.get(k));
+        if (headers != null) {
+            for (String k : headers.keySet()) {
+                request.addHeader(k, headers.get(k));
+            }
         }
 
         request.setBody(content);
-        HuaweiSigner signer = new HuaweiSigner();
-        signer.sign(request);
-        HttpRequest<Buffer> httpRequest = createRequest(url, httpMethod);
+        return this.access(request);
+    }
+
+    /**
+     * 直接签名已构建好的请求，不再重新解析url、拷贝请求头
+     *
+     * @param request 华为云请求
+     * @return {@link HttpRequest<Buffer>}
+     */
+    public HttpRequest<Buffer> access(HuaweiRequest request) {
+        HuaweiSigner.getSigner()
+                    .sign(request);
+        HttpRequest<Buffer> httpRequest = createRequest(request.getUrl(), request.getMethod());
         Map<String, String> requestHeaders = request.getHeaders();
 
         for (String key : requestHeaders.keySet()) {
@@ -27,8 +27,7 @@
 package com.gngpp.ddns.cache;
 
 import java.util.Collection;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.List;
 
 /**
  * @author mac
@@ -38,19 +37,19 @@ public abstract class AbstractMemoryLogCache<T, L> {
 
     abstract public void store(T key, L dnsRecordLog);
 
-    abstract public Collection<CompletableFuture<Collection<L>>> getAll();
+    abstract public Collection<Collection<L>> getAll();
 
-    abstract public CompletableFuture<Collection<L>> get(T key);
+    /**
+     * 日志快照，后续写入不影响已返回的集合
+     */
+    abstract public Collection<L> get(T key);
 
-    abstract public void remove(T key);
+    /**
+     * 序号大于since的日志，最多limit条，epoch与当前不一致时从头开始
+     */
+    abstract public List<L> get(T key, long epoch, long since, int limit);
 
-    protected Collection<L> createExpensiveLog(L dnsRecordLog) {
-        final var copyOnWriteArrayList = new CopyOnWriteArrayList<L>();
-        copyOnWriteArrayList.add(dnsRecordLog);
-        return copyOnWriteArrayList;
-    }
+    abstract public void remove(T key);
 
-    protected Collection<L> createExpensiveLog() {
-        return new CopyOnWriteArrayList<>();
-    }
+    protected abstract LogRingBuffer<L> createExpensiveLog();
 }
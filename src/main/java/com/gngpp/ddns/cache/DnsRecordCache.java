@@ -0,0 +1,109 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gngpp.ddns.config.DnsAccount;
+import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.pojo.vo.DnsRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析记录缓存，key: (服务商账号, 完整域名, 记录类型)，value: 记录id和当前值。
+ * 查询记录时写入，新增/更新成功后同步写入，删除时失效，过期后重新向服务商查询
+ *
+ * @author mac
+ * 2022/4/5
+ */
+public class DnsRecordCache {
+
+    private final Cache<String, DnsRecord> cache;
+
+    public DnsRecordCache(long maximumSize, long duration, TimeUnit unit) {
+        this.cache = Caffeine.newBuilder()
+                             .expireAfterWrite(duration, unit)
+                             .maximumSize(maximumSize)
+                             .build();
+    }
+
+    public DnsRecord get(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType) {
+        return this.cache.getIfPresent(this.key(dnsAccount, domain, dnsRecordType));
+    }
+
+    /**
+     * 缓存中的记录值是否已经与该IP一致
+     */
+    public boolean isSynced(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType, String ip) {
+        final var dnsRecord = this.get(dnsAccount, domain, dnsRecordType);
+        return dnsRecord != null && ip != null && ip.equals(dnsRecord.getValue());
+    }
+
+    public void put(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType, DnsRecord dnsRecord) {
+        if (dnsRecord == null || dnsRecord.getId() == null) {
+            return;
+        }
+        this.cache.put(this.key(dnsAccount, domain, dnsRecordType), dnsRecord);
+    }
+
+    public void put(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType, String id, String value) {
+        this.put(dnsAccount, domain, dnsRecordType, DnsRecord.newBuilder()
+                                                                  .withId(id)
+                                                                  .withDomain(domain)
+                                                                  .withValue(value)
+                                                                  .build());
+    }
+
+    public void invalidate(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType) {
+        this.cache.invalidate(this.key(dnsAccount, domain, dnsRecordType));
+    }
+
+    /**
+     * 删除该域名所有类型的记录
+     */
+    public void invalidate(DnsAccount dnsAccount, String domain) {
+        for (DnsRecordType dnsRecordType : DnsRecordType.values()) {
+            this.invalidate(dnsAccount, domain, dnsRecordType);
+        }
+    }
+
+    /**
+     * 删除该账号的全部记录
+     */
+    public void invalidate(DnsAccount dnsAccount) {
+        final var prefix = dnsAccount + ":";
+        this.cache.asMap()
+                  .keySet()
+                  .removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String key(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType) {
+        return dnsAccount + ":" + domain + ":" + dnsRecordType.name();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.cache;
+
+import com.gngpp.ddns.config.DnsAccount;
+import com.gngpp.ddns.enums.DnsRecordType;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IP状态缓存，记录每个服务商账号最近一次获取到的IP，
+ * 每个域名最近一次推送的值由 {@link DnsRecordCache} 维护
+ *
+ * @author mac
+ * 2022/4/2
+ */
+public class IpStateCache {
+
+    /**
+     * 最近一次获取到的IP
+     */
+    private final Map<String, String> detectedIpMap = new ConcurrentHashMap<>();
+
+    /**
+     * 保存获取到的IP
+     *
+     * @param dnsAccount      服务商账号
+     * @param dnsRecordType   记录类型
+     * @param ip              ip
+     * @return 与上一次获取到的IP不同时返回true
+     */
+    public boolean storeDetectedIp(DnsAccount dnsAccount, DnsRecordType dnsRecordType, String ip) {
+        final var previous = this.detectedIpMap.put(dnsAccount + ":" + dnsRecordType.name(), ip);
+        return !Objects.equals(previous, ip);
+    }
+
+    /**
+     * @param dnsAccount      服务商账号
+     * @param dnsRecordType   记录类型
+     * @return 最近一次获取到的IP，不存在时返回null
+     */
+    public String getDetectedIp(DnsAccount dnsAccount, DnsRecordType dnsRecordType) {
+        return this.detectedIpMap.get(dnsAccount + ":" + dnsRecordType.name());
+    }
+
+    /**
+     * 删除该账号的全部状态
+     */
+    public void invalidate(DnsAccount dnsAccount) {
+        final var prefix = dnsAccount + ":";
+        this.detectedIpMap.keySet()
+                          .removeIf(key -> key.startsWith(prefix));
+    }
+}
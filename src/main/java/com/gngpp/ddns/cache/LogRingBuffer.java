@@ -0,0 +1,192 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * 定长环形日志缓冲区，单写多读：
+ * 写入O(1)且不拷贝，超过容量时覆盖最旧的日志，超过保留时长的日志在写入和读取时跳过。
+ * 读取时按序号校验，被并发覆盖的槽位会被丢弃，不会读到乱序的日志
+ *
+ * @author mac
+ * @date 2022/4/14
+ */
+public final class LogRingBuffer<L> {
+
+    /**
+     * 以进程启动时间为起点，每个缓冲区取一个，服务重启后不会与旧的相同
+     */
+    private static final AtomicLong EPOCH_SEQUENCE = new AtomicLong(System.currentTimeMillis());
+    private final AtomicReferenceArray<L> slots;
+    private final int mask;
+    /**
+     * 保留的日志数量，小于槽位数，写线程正在覆盖的槽位不在读取范围内
+     */
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final ToLongFunction<L> timestampOf;
+    /**
+     * 序号空间标识，客户端游标带上它，才能区分服务重启前后相同的序号
+     */
+    private final long epoch = EPOCH_SEQUENCE.getAndIncrement();
+    /**
+     * 下一条日志的序号，只由写线程推进
+     */
+    private volatile long head;
+    /**
+     * 最旧的有效序号，写线程按时长推进，清空时可由其它线程推进
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity    保留的日志数量，槽位数取大于它的2的幂
+     * @param maxAge      保留时长，小于等于0表示不按时长清理
+     * @param unit        时长单位
+     * @param timestampOf 日志时间戳（毫秒）
+     */
+    public LogRingBuffer(int capacity, long maxAge, TimeUnit unit, ToLongFunction<L> timestampOf) {
+        this.capacity = Math.max(1, capacity);
+        final var size = Integer.highestOneBit(this.capacity) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxAgeMillis = maxAge > 0 ? unit.toMillis(maxAge) : Long.MAX_VALUE;
+        this.timestampOf = timestampOf;
+    }
+
+    public long epoch() {
+        return this.epoch;
+    }
+
+    /**
+     * 下一条日志的序号，只在写线程中调用才准确
+     *
+     * @return 序号
+     */
+    public long nextSeq() {
+        return this.head;
+    }
+
+    /**
+     * 追加日志，同一时刻只允许一个线程写入
+     *
+     * @param log 日志
+     * @return 日志序号，单调递增，清空后不重置
+     */
+    public long append(L log) {
+        final var seq = this.head;
+        this.slots.set((int) (seq & this.mask), log);
+        this.head = seq + 1;
+        this.trim(seq + 1);
+        return seq;
+    }
+
+    /**
+     * 当前有效日志的快照，按写入顺序排列
+     *
+     * @return {@link List}
+     */
+    public List<L> snapshot() {
+        return this.snapshot(this.epoch, -1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 序号大于since的日志，最多limit条。epoch不一致（服务重启后客户端携带旧游标）或since不小于下一条序号时，从头开始
+     *
+     * @param epoch 游标所属的序号空间
+     * @param since 已读取的最后一条序号，-1表示从头开始
+     * @param limit 最大条数
+     * @return {@link List}
+     */
+    public List<L> snapshot(long epoch, long since, int limit) {
+        final var end = this.head;
+        if (epoch != this.epoch || since >= end) {
+            since = -1;
+        }
+        final var start = Math.max(since + 1, Math.max(this.tail.get(), end - this.capacity));
+        final var expireBefore = this.expireBefore();
+        final var list = new ArrayList<L>((int) Math.min(limit, Math.max(0, end - start)));
+        for (long seq = start; seq < end && list.size() < limit; seq++) {
+            final var log = this.slots.get((int) (seq & this.mask));
+            // 读取期间写线程已绕回覆盖该槽位
+            if (this.head - seq >= this.slots.length()) {
+                continue;
+            }
+            if (log != null && this.timestampOf.applyAsLong(log) >= expireBefore) {
+                list.add(log);
+            }
+        }
+        return list;
+    }
+
+    public int size() {
+        final var end = this.head;
+        return (int) (end - Math.max(this.tail.get(), end - this.capacity));
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * 清空，已写入的槽位在后续写入时被覆盖
+     */
+    public void clear() {
+        this.advanceTail(this.head);
+    }
+
+    private void trim(long end) {
+        if (this.maxAgeMillis == Long.MAX_VALUE) {
+            return;
+        }
+        final var expireBefore = this.expireBefore();
+        var seq = Math.max(this.tail.get(), end - this.capacity);
+        // 日志按时间顺序写入，遇到未过期的即可停止，每条日志只会被跳过一次
+        while (seq < end) {
+            final var log = this.slots.get((int) (seq & this.mask));
+            if (log != null && this.timestampOf.applyAsLong(log) >= expireBefore) {
+                break;
+            }
+            seq++;
+        }
+        this.advanceTail(seq);
+    }
+
+    private void advanceTail(long seq) {
+        this.tail.accumulateAndGet(seq, Math::max);
+    }
+
+    private long expireBefore() {
+        return this.maxAgeMillis == Long.MAX_VALUE ? Long.MIN_VALUE : System.currentTimeMillis() - this.maxAgeMillis;
+    }
+}
@@ -26,56 +26,84 @@
 
 package com.gngpp.ddns.cache;
 
-import com.github.benmanes.caffeine.cache.AsyncCache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.gngpp.ddns.pojo.DnsRecordLog;
-import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.config.DnsAccount;
 
 import java.util.Collection;
-import java.util.concurrent.CompletableFuture;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
+ * 按服务商账号保存日志，每个账号一个定长环形缓冲区，写入只来自日志消费者所在的事件循环
+ *
  * @author mac
  * 2021/8/18 星期三 9:06 下午
  */
-public class MemoryLogCache extends AbstractMemoryLogCache<DnsProviderType, DnsRecordLog> {
+public class MemoryLogCache extends AbstractMemoryLogCache<DnsAccount, DnsRecordLog> {
 
-    private final AsyncCache<DnsProviderType, Collection<DnsRecordLog>> cache;
+    private final Map<DnsAccount, LogRingBuffer<DnsRecordLog>> cache = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long duration;
+    private final TimeUnit unit;
 
-    public MemoryLogCache(long maximumSize, int duration, TimeUnit unit) {
-        this.cache = Caffeine.newBuilder()
-                             .expireAfterWrite(duration, unit)
-                             .maximumSize(maximumSize)
-                             .buildAsync();
+    /**
+     * @param capacity 每个账号保留的最大日志数量
+     * @param duration 日志保留时长
+     * @param unit     时长单位
+     */
+    public MemoryLogCache(int capacity, long duration, TimeUnit unit) {
+        this.capacity = capacity;
+        this.duration = duration;
+        this.unit = unit;
     }
 
 
     @Override
-    public void store(DnsProviderType key, DnsRecordLog dnsRecordLog) {
-        final var listCompletableFuture = cache.get(key, k -> this.createExpensiveLog(dnsRecordLog));
-        if (listCompletableFuture != null) {
-            cache.put(key, listCompletableFuture);
-        }
+    public void store(DnsAccount key, DnsRecordLog dnsRecordLog) {
+        final var logBuffer = this.cache.computeIfAbsent(key, k -> this.createExpensiveLog());
+        // 先设置序号再写入，读线程看到日志时序号已可见
+        dnsRecordLog.setEpoch(logBuffer.epoch())
+                    .setSeq(logBuffer.nextSeq());
+        logBuffer.append(dnsRecordLog);
     }
 
     @Override
-    public Collection<CompletableFuture<Collection<DnsRecordLog>>> getAll() {
-        return cache.asMap()
-                    .values();
+    public Collection<Collection<DnsRecordLog>> getAll() {
+        return this.cache.values()
+                         .stream()
+                         .map(LogRingBuffer::snapshot)
+                         .collect(Collectors.toList());
     }
 
 
     @Override
-    public CompletableFuture<Collection<DnsRecordLog>> get(DnsProviderType key) {
-        return cache.get(key, k -> this.createExpensiveLog());
+    public Collection<DnsRecordLog> get(DnsAccount key) {
+        // 账号来自客户端请求，只读取不创建
+        final var logBuffer = this.cache.get(key);
+        return logBuffer == null ? Collections.emptyList() : logBuffer.snapshot();
+    }
+
+    @Override
+    public List<DnsRecordLog> get(DnsAccount key, long epoch, long since, int limit) {
+        final var logBuffer = this.cache.get(key);
+        return logBuffer == null ? Collections.emptyList() : logBuffer.snapshot(epoch, since, limit);
     }
 
     @Override
-    public void remove(DnsProviderType key) {
-        cache.synchronous()
-             .invalidate(key);
+    public void remove(DnsAccount key) {
+        final var logBuffer = this.cache.get(key);
+        if (logBuffer != null) {
+            logBuffer.clear();
+        }
     }
 
+    @Override
+    protected LogRingBuffer<DnsRecordLog> createExpensiveLog() {
+        return new LogRingBuffer<>(this.capacity, this.duration, this.unit, log -> log.getTimestamp() == null ? 0 : log.getTimestamp());
+    }
 
 }
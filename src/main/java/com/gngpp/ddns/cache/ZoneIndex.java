@@ -0,0 +1,309 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.cache;
+
+import com.gngpp.ddns.api.auth.ProviderCredentials;
+import com.gngpp.ddns.api.provider.exception.ResolvedDomainException;
+import com.gngpp.ddns.concurrent.SingleFlight;
+import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.util.BinaryUtil;
+import com.gngpp.ddns.util.HttpUtil;
+import com.gngpp.ddns.util.LogUtil;
+import com.gngpp.ddns.util.StringUtil;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.json.JsonObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务商账号的主域名到区域id索引，持久化到工作目录，
+ * 启动时先使用本地索引，未命中的主域名按需单独查询，后台分页拉取全部区域进行校正
+ *
+ * @author mac
+ * 2022/4/14
+ */
+public class ZoneIndex {
+
+    private static final Logger log = LogManager.getLogger("[ZoneIndex]");
+    private static final int VERSION = 1;
+    /**
+     * 工作目录下存放区域索引的子目录
+     */
+    public static final String ZONE_DIR_NAME = "zones";
+    private static final String REFRESH_KEY = "*";
+
+    private final Vertx vertx;
+    private final ZoneFetcher zoneFetcher;
+    private final String zoneDir;
+    private final String filePath;
+    private final Map<String, String> zoneMap = new ConcurrentHashMap<>();
+    private final SingleFlight<String, String> lookupFlight = new SingleFlight<>();
+    private final SingleFlight<String, Void> refreshFlight = new SingleFlight<>();
+    private final AtomicBoolean saving = new AtomicBoolean();
+    private volatile boolean dirty;
+    private volatile Future<Void> loadFuture;
+
+    /**
+     * @param vertx       vertx
+     * @param zoneDir     索引文件目录
+     * @param type        服务商类型
+     * @param credentials 凭证，按凭证摘要区分索引文件，凭证更换后不会读到旧账号的区域
+     * @param zoneFetcher 区域查询
+     */
+    public ZoneIndex(Vertx vertx, String zoneDir, DnsProviderType type, ProviderCredentials credentials, ZoneFetcher zoneFetcher) {
+        this.vertx = vertx;
+        this.zoneFetcher = zoneFetcher;
+        this.zoneDir = zoneDir;
+        this.filePath = Path.of(zoneDir, type.name().toLowerCase() + "-" + digest(credentials) + ".json")
+                            .toString();
+    }
+
+    /**
+     * 查询域名所属区域id，本地未命中时按主域名查询，同一主域名的并发查询共享同一个请求
+     *
+     * @param domain 域名
+     * @return {@link Future<String>}
+     */
+    public Future<String> resolve(String domain) {
+        final String apex;
+        try {
+            apex = HttpUtil.extractDomain(domain)[0];
+        } catch (Exception e) {
+            return Future.failedFuture(e);
+        }
+        return this.load()
+                   .compose(v -> {
+                       final var zoneId = this.zoneMap.get(apex);
+                       if (!StringUtil.isEmpty(zoneId)) {
+                           return Future.succeededFuture(zoneId);
+                       }
+                       return this.lookupFlight.execute(apex, () -> this.zoneFetcher.fetchZoneId(apex)
+                                                                                     .compose(id -> {
+                                                                                         if (StringUtil.isEmpty(id)) {
+                                                                                             return Future.failedFuture(new ResolvedDomainException("Resolved primary domain name:" + domain + " does not exist"));
+                                                                                         }
+                                                                                         this.zoneMap.put(apex, id);
+                                                                                         this.save();
+                                                                                         return Future.succeededFuture(id);
+                                                                                     }));
+                   });
+    }
+
+    /**
+     * 已解析过的域名所属区域id
+     *
+     * @param domain 域名
+     * @return 不存在时抛出 {@link ResolvedDomainException}
+     */
+    public String get(String domain) {
+        final var zoneId = this.zoneMap.get(HttpUtil.extractDomain(domain)[0]);
+        if (StringUtil.isEmpty(zoneId)) {
+            throw new ResolvedDomainException("Resolved primary domain name:" + domain + " does not exist");
+        }
+        return zoneId;
+    }
+
+    /**
+     * 服务商返回区域不存在时丢弃该区域id，区域被删除或重建后下次调用重新查询
+     *
+     * @param zoneId 区域id
+     */
+    public void invalidate(String zoneId) {
+        if (StringUtil.isEmpty(zoneId)) {
+            return;
+        }
+        if (this.zoneMap.values()
+                        .removeIf(zoneId::equals)) {
+            LogUtil.printDebug(log, "zone " + zoneId + " not found, removed from the zone index");
+            this.save();
+        }
+    }
+
+    /**
+     * 分页拉取全部区域校正本地索引，执行中的刷新会被共享。
+     * 只移除拉取开始前已存在且未被修改的条目，拉取期间按需查询到的区域不会被覆盖
+     *
+     * @return {@link Future<Void>}
+     */
+    public Future<Void> refresh() {
+        return this.refreshFlight.execute(REFRESH_KEY, () -> {
+            final var before = new HashMap<>(this.zoneMap);
+            return this.fetchAll(1, new HashMap<>())
+                       .map(zones -> {
+                           this.zoneMap.putAll(zones);
+                           before.forEach((apex, zoneId) -> {
+                               if (!zones.containsKey(apex)) {
+                                   this.zoneMap.remove(apex, zoneId);
+                               }
+                           });
+                           this.save();
+                           return null;
+                       });
+        });
+    }
+
+    private Future<Map<String, String>> fetchAll(int pageNumber, Map<String, String> zones) {
+        return this.zoneFetcher.fetchPage(pageNumber)
+                               .compose(page -> {
+                                   zones.putAll(page.zones());
+                                   if (page.hasNext()) {
+                                       return this.fetchAll(pageNumber + 1, zones);
+                                   }
+                                   return Future.succeededFuture(zones);
+                               });
+    }
+
+    /**
+     * 首次使用时读取本地索引，读到后在后台刷新一次，校正已删除或新增的区域
+     */
+    private Future<Void> load() {
+        var future = this.loadFuture;
+        if (future == null) {
+            synchronized (this) {
+                future = this.loadFuture;
+                if (future == null) {
+                    future = this.loadFuture = this.read()
+                                                   .onSuccess(loaded -> {
+                                                       if (loaded) {
+                                                           this.refresh()
+                                                               .onFailure(e -> LogUtil.printDebug(log, "refresh zone index failed: " + e.getMessage(), e));
+                                                       }
+                                                   })
+                                                   .mapEmpty();
+                }
+            }
+        }
+        return future;
+    }
+
+    private Future<Boolean> read() {
+        final var fileSystem = this.vertx.fileSystem();
+        return fileSystem.exists(this.filePath)
+                         .compose(exists -> {
+                             if (!exists) {
+                                 return Future.succeededFuture(false);
+                             }
+                             return fileSystem.readFile(this.filePath)
+                                              .map(buffer -> {
+                                                  final var json = buffer.toJsonObject();
+                                                  if (json.getInteger("version", 0) != VERSION) {
+                                                      return false;
+                                                  }
+                                                  final var zones = json.getJsonObject("zones", new JsonObject());
+                                                  for (String apex : zones.fieldNames()) {
+                                                      this.zoneMap.putIfAbsent(apex, zones.getString(apex));
+                                                  }
+                                                  return !this.zoneMap.isEmpty();
+                                              });
+                         })
+                         // 索引文件损坏时当作不存在，按需重新查询
+                         .otherwise(e -> {
+                             LogUtil.printDebug(log, "read zone index failed: " + e.getMessage(), e);
+                             return false;
+                         });
+    }
+
+    /**
+     * 写入期间的修改在本次写入完成后再写一次，先写临时文件再替换，避免读到写了一半的文件
+     */
+    private void save() {
+        this.dirty = true;
+        if (!this.saving.compareAndSet(false, true)) {
+            return;
+        }
+        this.dirty = false;
+        final var fileSystem = this.vertx.fileSystem();
+        final var tempPath = this.filePath + ".tmp";
+        final var json = new JsonObject().put("version", VERSION)
+                                         .put("updatedAt", System.currentTimeMillis())
+                                         .put("zones", new JsonObject(new HashMap<>(this.zoneMap)));
+        fileSystem.mkdirs(this.zoneDir)
+                  .compose(v -> fileSystem.writeFile(tempPath, json.toBuffer()))
+                  .compose(v -> fileSystem.move(tempPath, this.filePath, new CopyOptions().setReplaceExisting(true)))
+                  .onComplete(ar -> {
+                      if (ar.failed()) {
+                          LogUtil.printDebug(log, "save zone index failed: " + ar.cause().getMessage(), ar.cause());
+                      }
+                      this.saving.set(false);
+                      if (this.dirty) {
+                          this.save();
+                      }
+                  });
+    }
+
+    private static String digest(ProviderCredentials credentials) {
+        try {
+            final var messageDigest = MessageDigest.getInstance("SHA-256");
+            final var content = credentials.getAccessKeyId() + ":" + credentials.getAccessKeySecret();
+            return BinaryUtil.toHex(messageDigest.digest(content.getBytes(StandardCharsets.UTF_8)))
+                             .substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 区域查询，由服务商实现
+     */
+    public interface ZoneFetcher {
+
+        /**
+         * 分页查询区域
+         *
+         * @param pageNumber 页码，从1开始
+         * @return {@link Future<ZonePage>}
+         */
+        Future<ZonePage> fetchPage(int pageNumber);
+
+        /**
+         * 按主域名查询区域id
+         *
+         * @param apex 主域名
+         * @return 区域不存在时返回null
+         */
+        Future<String> fetchZoneId(String apex);
+    }
+
+    /**
+     * @param zones   主域名到区域id
+     * @param hasNext 是否还有下一页
+     */
+    public record ZonePage(Map<String, String> zones, boolean hasNext) {
+    }
+}
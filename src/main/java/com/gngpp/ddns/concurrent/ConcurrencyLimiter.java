@@ -0,0 +1,143 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.concurrent;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 异步任务并发限制，超过并发数的任务进入有界队列，队列满时直接拒绝
+ *
+ * @author mac
+ * 2022/4/4
+ */
+public class ConcurrencyLimiter {
+
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Deque<Entry<?>> queue = new ArrayDeque<>();
+    private int active;
+
+    public ConcurrencyLimiter(int maxConcurrency, int queueCapacity) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.queueCapacity = Math.max(0, queueCapacity);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @param <T>  结果类型
+     * @return 队列已满时返回失败的 {@link Future}
+     */
+    public <T> Future<T> submit(Supplier<Future<T>> task) {
+        final var entry = new Entry<>(task);
+        synchronized (this) {
+            if (this.active >= this.maxConcurrency) {
+                if (this.queue.size() >= this.queueCapacity) {
+                    return Future.failedFuture(new RejectedExecutionException("The task queue is full, capacity: " + this.queueCapacity));
+                }
+                this.queue.offer(entry);
+                return entry.promise.future();
+            }
+            this.active++;
+        }
+        this.drain(entry);
+        return entry.promise.future();
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public synchronized int queued() {
+        return this.queue.size();
+    }
+
+    /**
+     * 执行中的任务数
+     */
+    public synchronized int active() {
+        return this.active;
+    }
+
+    /**
+     * 同步完成的任务在循环中继续执行下一个，避免递归过深
+     */
+    private void drain(Entry<?> entry) {
+        while (entry != null) {
+            if (!entry.run()) {
+                return;
+            }
+            entry = this.next();
+        }
+    }
+
+    private synchronized Entry<?> next() {
+        final var entry = this.queue.poll();
+        if (entry == null) {
+            this.active--;
+        }
+        return entry;
+    }
+
+    private final class Entry<T> {
+
+        private final Supplier<Future<T>> task;
+        private final Promise<T> promise = Promise.promise();
+
+        private Entry(Supplier<Future<T>> task) {
+            this.task = task;
+        }
+
+        /**
+         * @return 任务是否已同步完成
+         */
+        private boolean run() {
+            Future<T> future;
+            try {
+                future = this.task.get();
+            } catch (Exception e) {
+                future = Future.failedFuture(e);
+            }
+            if (future.isComplete()) {
+                this.promise.handle(future);
+                return true;
+            }
+            future.onComplete(ar -> {
+                this.promise.handle(ar);
+                ConcurrencyLimiter.this.drain(ConcurrencyLimiter.this.next());
+            });
+            return false;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.concurrent;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 按页拉取的流，消费当前页时预取后面的页，预取页数有上限，暂停消费时不再拉取，
+ * 拿到不满一页的结果时结束；达到最大页数且最后一页是满的，说明还有未拉取的数据，
+ * 已拉取的数据消费完后以 {@link PageLimitExceededException} 结束；需在创建时所在的context上使用
+ *
+ * @author mac
+ * 2022/4/14
+ */
+public class PagedReadStream<T> implements ReadStream<T> {
+
+    private final Context context;
+    private final PageFetcher<T> pageFetcher;
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetch;
+    /**
+     * 已拉取未开始消费的页
+     */
+    private final Deque<List<T>> pages = new ArrayDeque<>();
+    /**
+     * 正在消费的页
+     */
+    private final Deque<T> current = new ArrayDeque<>();
+    private int nextPage = 1;
+    private long demand = Long.MAX_VALUE;
+    private boolean fetching;
+    private boolean exhausted;
+    /**
+     * 达到最大页数时仍有后续页
+     */
+    private boolean truncated;
+    private boolean emitting;
+    private boolean ended;
+    private Handler<T> handler;
+    private Handler<Throwable> exceptionHandler;
+    private Handler<Void> endHandler;
+
+    /**
+     * @param vertx       vertx
+     * @param pageFetcher 按页码查询，页码从1开始
+     * @param pageSize    每页数量
+     * @param maxPages    最大页数
+     * @param prefetch    最多预取的页数
+     */
+    public PagedReadStream(Vertx vertx, PageFetcher<T> pageFetcher, int pageSize, int maxPages, int prefetch) {
+        this.context = vertx.getOrCreateContext();
+        this.pageFetcher = pageFetcher;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(1, maxPages);
+        this.prefetch = Math.max(1, prefetch);
+    }
+
+    @Override
+    public PagedReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public PagedReadStream<T> handler(Handler<T> handler) {
+        this.handler = handler;
+        if (handler != null) {
+            this.fetchPage();
+            this.drain();
+        }
+        return this;
+    }
+
+    @Override
+    public PagedReadStream<T> pause() {
+        this.demand = 0L;
+        return this;
+    }
+
+    @Override
+    public PagedReadStream<T> resume() {
+        return this.fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public PagedReadStream<T> fetch(long amount) {
+        if (amount > 0L) {
+            this.demand += amount;
+            if (this.demand < 0L) {
+                this.demand = Long.MAX_VALUE;
+            }
+            this.drain();
+        }
+        return this;
+    }
+
+    @Override
+    public PagedReadStream<T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    /**
+     * 预取未满且没有正在进行的请求时拉取下一页
+     */
+    private void fetchPage() {
+        if (this.fetching || this.exhausted || this.ended || this.pages.size() >= this.prefetch) {
+            return;
+        }
+        this.fetching = true;
+        final var pageNumber = this.nextPage++;
+        Future<List<T>> future;
+        try {
+            future = this.pageFetcher.fetch(pageNumber);
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onComplete(ar -> {
+            if (Vertx.currentContext() == this.context) {
+                this.handlePage(ar, pageNumber);
+            } else {
+                this.context.runOnContext(v -> this.handlePage(ar, pageNumber));
+            }
+        });
+    }
+
+    private void handlePage(AsyncResult<List<T>> ar, int pageNumber) {
+        this.fetching = false;
+        if (this.ended) {
+            return;
+        }
+        if (ar.failed()) {
+            this.pages.clear();
+            this.current.clear();
+            this.fail(ar.cause());
+            return;
+        }
+        final var page = ar.result();
+        // 不满一页的为最后一页
+        if (page == null || page.size() < this.pageSize) {
+            this.exhausted = true;
+        } else if (pageNumber >= this.maxPages) {
+            this.exhausted = true;
+            this.truncated = true;
+        }
+        if (page != null && !page.isEmpty()) {
+            this.pages.offer(page);
+        }
+        this.fetchPage();
+        this.drain();
+    }
+
+    private void drain() {
+        if (this.emitting) {
+            return;
+        }
+        this.emitting = true;
+        try {
+            while (!this.ended && this.demand > 0L && this.handler != null) {
+                if (this.current.isEmpty()) {
+                    final var page = this.pages.poll();
+                    if (page == null) {
+                        break;
+                    }
+                    this.current.addAll(page);
+                    // 开始消费新的一页，预取后面的页
+                    this.fetchPage();
+                }
+                if (this.demand != Long.MAX_VALUE) {
+                    this.demand--;
+                }
+                this.handler.handle(this.current.poll());
+            }
+            if (!this.ended && this.current.isEmpty() && this.pages.isEmpty() && this.exhausted && !this.fetching) {
+                if (this.truncated) {
+                    this.fail(new PageLimitExceededException(this.maxPages, this.pageSize));
+                    return;
+                }
+                this.ended = true;
+                final var endHandler = this.endHandler;
+                if (endHandler != null) {
+                    endHandler.handle(null);
+                }
+            }
+        } finally {
+            this.emitting = false;
+        }
+    }
+
+    private void fail(Throwable cause) {
+        this.ended = true;
+        final var exceptionHandler = this.exceptionHandler;
+        if (exceptionHandler != null) {
+            exceptionHandler.handle(cause);
+        }
+    }
+
+    /**
+     * 达到最大页数时仍有未拉取的页，已拉取的数据不完整
+     */
+    public static class PageLimitExceededException extends RuntimeException {
+
+        public PageLimitExceededException(int maxPages, int pageSize) {
+            super("Page limit exceeded: " + maxPages + " pages of " + pageSize + " were read and more remain");
+        }
+    }
+
+    /**
+     * 按页查询
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+
+        /**
+         * @param pageNumber 页码，从1开始
+         * @return 该页的数据
+         */
+        Future<List<T>> fetch(int pageNumber);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.concurrent;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同key的异步任务同一时间只执行一次，执行期间到达的调用者共享执行中的结果
+ *
+ * @author mac
+ * 2022/4/6
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Future<V>> inFlightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 执行任务，已有相同key的任务在执行时直接返回其结果
+     *
+     * @param key      key
+     * @param supplier 任务
+     * @return {@link Future<V>}
+     */
+    public Future<V> execute(K key, Supplier<Future<V>> supplier) {
+        final Promise<V> promise = Promise.promise();
+        final var inFlight = this.inFlightMap.putIfAbsent(key, promise.future());
+        if (inFlight != null) {
+            return inFlight;
+        }
+        Future<V> future;
+        try {
+            future = supplier.get();
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onComplete(ar -> {
+            this.inFlightMap.remove(key, promise.future());
+            promise.handle(ar);
+        });
+        return promise.future();
+    }
+
+    /**
+     * 是否有该key的任务在执行
+     */
+    public boolean isInFlight(K key) {
+        return this.inFlightMap.containsKey(key);
+    }
+
+    /**
+     * 执行中的任务数
+     */
+    public int size() {
+        return this.inFlightMap.size();
+    }
+}
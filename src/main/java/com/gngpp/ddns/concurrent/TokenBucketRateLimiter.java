@@ -0,0 +1,101 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.concurrent;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流，令牌不足时预占令牌并延迟到令牌生成后再放行，不阻塞线程
+ *
+ * @author mac
+ * 2022/4/7
+ */
+public class TokenBucketRateLimiter {
+
+    private final Vertx vertx;
+
+    /**
+     * 每纳秒生成的令牌数
+     */
+    private final double tokensPerNanos;
+
+    /**
+     * 桶容量
+     */
+    private final double burst;
+
+    private double tokens;
+
+    private long lastRefillTime;
+
+    public TokenBucketRateLimiter(Vertx vertx, double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        this.vertx = vertx;
+        this.tokensPerNanos = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return 获取到令牌后完成的 {@link Future}
+     */
+    public Future<Void> acquire() {
+        final var waitMillis = this.reserve();
+        if (waitMillis <= 0) {
+            return Future.succeededFuture();
+        }
+        final Promise<Void> promise = Promise.promise();
+        this.vertx.setTimer(waitMillis, id -> promise.complete());
+        return promise.future();
+    }
+
+    /**
+     * 预占一个令牌
+     *
+     * @return 需要等待的毫秒数
+     */
+    private synchronized long reserve() {
+        final var now = System.nanoTime();
+        this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefillTime) * this.tokensPerNanos);
+        this.lastRefillTime = now;
+        this.tokens -= 1;
+        if (this.tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-this.tokens / this.tokensPerNanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -28,6 +28,11 @@ package com.gngpp.ddns.config;
 
 import com.gngpp.ddns.config.property.AliyunDnsProperties;
 import com.gngpp.ddns.config.property.DefaultProperties;
+import com.gngpp.ddns.config.property.HttpClientProperties;
+import com.gngpp.ddns.config.property.IpDetectProperties;
+import com.gngpp.ddns.config.property.LogProperties;
+import com.gngpp.ddns.config.property.RateLimitProperties;
+import com.gngpp.ddns.config.property.ReconcileProperties;
 import com.gngpp.ddns.util.PropertyUtil;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
@@ -78,6 +83,31 @@ public class ConfigProperty {
         return PropertyUtil.getProperties(AliyunDnsProperties.class, jsonConfig);
     }
 
+    public static ReconcileProperties getReconcileProperties() {
+        final var jsonConfig = getInstance().getJsonConfig();
+        return PropertyUtil.getProperties(ReconcileProperties.class, jsonConfig);
+    }
+
+    public static RateLimitProperties getRateLimitProperties() {
+        final var jsonConfig = getInstance().getJsonConfig();
+        return PropertyUtil.getProperties(RateLimitProperties.class, jsonConfig);
+    }
+
+    public static HttpClientProperties getHttpClientProperties() {
+        final var jsonConfig = getInstance().getJsonConfig();
+        return PropertyUtil.getProperties(HttpClientProperties.class, jsonConfig);
+    }
+
+    public static IpDetectProperties getIpDetectProperties() {
+        final var jsonConfig = getInstance().getJsonConfig();
+        return PropertyUtil.getProperties(IpDetectProperties.class, jsonConfig);
+    }
+
+    public static LogProperties getLogProperties() {
+        final var jsonConfig = getInstance().getJsonConfig();
+        return PropertyUtil.getProperties(LogProperties.class, jsonConfig);
+    }
+
     public static SecureConfig getDefaultSecureConfig() {
         final var jsonConfig = getInstance().getJsonConfig();
         return PropertyUtil.getProperties(SecureConfig.class, jsonConfig);
@@ -0,0 +1,64 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config;
+
+import com.gngpp.ddns.enums.DnsProviderType;
+
+import java.util.Objects;
+
+/**
+ * 服务商账号，同一服务商可以配置多个账号，每个账号有独立的服务商实例、限流器和zone缓存
+ *
+ * @author mac
+ * 2022/4/13
+ */
+public record DnsAccount(DnsProviderType dnsProviderType, String account) {
+
+    /**
+     * 未配置账号时使用的默认账号
+     */
+    public static final String DEFAULT_ACCOUNT = "default";
+
+    public DnsAccount {
+        Objects.requireNonNull(dnsProviderType, "dnsProviderType");
+        account = normalize(account);
+    }
+
+    public static DnsAccount of(DnsProviderType dnsProviderType, String account) {
+        return new DnsAccount(dnsProviderType, account);
+    }
+
+    public static String normalize(String account) {
+        return account == null || account.isBlank() ? DEFAULT_ACCOUNT : account.trim();
+    }
+
+    @Override
+    public String toString() {
+        return this.dnsProviderType.name() + "@" + this.account;
+    }
+}
@@ -26,6 +26,7 @@
 
 package com.gngpp.ddns.config;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.gngpp.ddns.enums.DnsProviderType;
 
 import java.io.Serializable;
@@ -49,6 +50,10 @@ public class DnsConfig implements Serializable {
      * 服务商类型
      */
     private DnsProviderType dnsProviderType;
+    /**
+     * 账号名称，同一服务商配置多个账号时区分，为空时使用默认账号
+     */
+    private String account;
     /**
      * ipv4配置
      */
@@ -57,6 +62,19 @@ public class DnsConfig implements Serializable {
      * ipv6配置
      */
     private Ipv6Config ipv6Config;
+    /**
+     * 同步间隔（秒），为空时使用默认间隔
+     */
+    private Long periodicTime;
+
+    public Long getPeriodicTime() {
+        return periodicTime;
+    }
+
+    public DnsConfig setPeriodicTime(Long periodicTime) {
+        this.periodicTime = periodicTime;
+        return this;
+    }
 
     public Ipv6Config getIpv6Config() {
         return ipv6Config;
@@ -103,14 +121,30 @@ public class DnsConfig implements Serializable {
         return this;
     }
 
+    public String getAccount() {
+        return account;
+    }
+
+    public DnsConfig setAccount(String account) {
+        this.account = account;
+        return this;
+    }
+
+    @JsonIgnore
+    public DnsAccount getDnsAccount() {
+        return DnsAccount.of(this.dnsProviderType, this.account);
+    }
+
     @Override
     public String toString() {
         return "DnsConfig{" +
                 "id='" + id + '\'' +
                 ", secret='" + secret + '\'' +
                 ", dnsProviderType=" + dnsProviderType +
+                ", account='" + account + '\'' +
                 ", ipv4Config=" + ipv4Config +
                 ", ipv6Config=" + ipv6Config +
+                ", periodicTime=" + periodicTime +
                 '}';
     }
 
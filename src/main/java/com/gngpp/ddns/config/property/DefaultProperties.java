@@ -50,21 +50,35 @@ public class DefaultProperties {
     private String defaultPassword;
 
     /**
-     * ip Api
+     * 查询公网IPv4的ip api
      */
-    private List<String> ipApiList;
+    private List<String> ipv4ApiList;
+
+    /**
+     * 查询公网IPv6的ip api
+     */
+    private List<String> ipv6ApiList;
 
     /**
      * DNS Server List
      */
     private List<String> dnsServerList;
 
-    public List<String> getIpApiList() {
-        return ipApiList;
+    public List<String> getIpv4ApiList() {
+        return ipv4ApiList;
+    }
+
+    public DefaultProperties setIpv4ApiList(List<String> ipv4ApiList) {
+        this.ipv4ApiList = ipv4ApiList;
+        return this;
+    }
+
+    public List<String> getIpv6ApiList() {
+        return ipv6ApiList;
     }
 
-    public DefaultProperties setIpApiList(List<String> ipApiList) {
-        this.ipApiList = ipApiList;
+    public DefaultProperties setIpv6ApiList(List<String> ipv6ApiList) {
+        this.ipv6ApiList = ipv6ApiList;
         return this;
     }
 
@@ -98,7 +112,8 @@ public class DefaultProperties {
     @Override
     public String toString() {
         return "DefaultProperties{" +
-                "ipApiList=" + ipApiList +
+                "ipv4ApiList=" + ipv4ApiList +
+                ", ipv6ApiList=" + ipv6ApiList +
                 ", dnsServerList=" + dnsServerList +
                 '}';
     }
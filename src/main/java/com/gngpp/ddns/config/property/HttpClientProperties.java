@@ -0,0 +1,198 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config.property;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gngpp.ddns.annotation.ConfigPrefix;
+
+/**
+ * 出站HTTP客户端与DNS解析缓存配置
+ *
+ * @author mac
+ * 2022/4/8
+ */
+@ConfigPrefix(value = "httpClient")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HttpClientProperties {
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private int connectTimeout = 10_000;
+
+    /**
+     * 读超时（秒），连接上超过该时间没有读到数据则关闭连接
+     */
+    private int readTimeout = 30;
+
+    /**
+     * 空闲连接保活时间（秒）
+     */
+    private int keepAliveTimeout = 30;
+
+    /**
+     * 每个主机的HTTP/1.1最大连接数
+     */
+    private int maxPoolSize = 8;
+
+    /**
+     * 是否通过ALPN协商使用HTTP/2，服务端不支持时回退到HTTP/1.1
+     */
+    private boolean http2 = true;
+
+    /**
+     * 每个主机的HTTP/2最大连接数
+     */
+    private int http2MaxPoolSize = 1;
+
+    /**
+     * 单个HTTP/2连接上的最大并发流数量，-1表示使用服务端设置
+     */
+    private int http2MultiplexingLimit = -1;
+
+    /**
+     * DNS解析结果最短缓存时间（秒）
+     */
+    private int dnsCacheMinTtl = 60;
+
+    /**
+     * DNS解析结果最长缓存时间（秒）
+     */
+    private int dnsCacheMaxTtl = 600;
+
+    /**
+     * DNS解析失败结果缓存时间（秒）
+     */
+    private int dnsCacheNegativeTtl = 5;
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public HttpClientProperties setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public HttpClientProperties setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public HttpClientProperties setKeepAliveTimeout(int keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+        return this;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public HttpClientProperties setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    public boolean getHttp2() {
+        return http2;
+    }
+
+    public HttpClientProperties setHttp2(boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+
+    public int getHttp2MaxPoolSize() {
+        return http2MaxPoolSize;
+    }
+
+    public HttpClientProperties setHttp2MaxPoolSize(int http2MaxPoolSize) {
+        this.http2MaxPoolSize = http2MaxPoolSize;
+        return this;
+    }
+
+    public int getHttp2MultiplexingLimit() {
+        return http2MultiplexingLimit;
+    }
+
+    public HttpClientProperties setHttp2MultiplexingLimit(int http2MultiplexingLimit) {
+        this.http2MultiplexingLimit = http2MultiplexingLimit;
+        return this;
+    }
+
+    public int getDnsCacheMinTtl() {
+        return dnsCacheMinTtl;
+    }
+
+    public HttpClientProperties setDnsCacheMinTtl(int dnsCacheMinTtl) {
+        this.dnsCacheMinTtl = dnsCacheMinTtl;
+        return this;
+    }
+
+    public int getDnsCacheMaxTtl() {
+        return dnsCacheMaxTtl;
+    }
+
+    public HttpClientProperties setDnsCacheMaxTtl(int dnsCacheMaxTtl) {
+        this.dnsCacheMaxTtl = dnsCacheMaxTtl;
+        return this;
+    }
+
+    public int getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
+    public HttpClientProperties setDnsCacheNegativeTtl(int dnsCacheNegativeTtl) {
+        this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientProperties{" +
+                "connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", keepAliveTimeout=" + keepAliveTimeout +
+                ", maxPoolSize=" + maxPoolSize +
+                ", http2=" + http2 +
+                ", http2MaxPoolSize=" + http2MaxPoolSize +
+                ", http2MultiplexingLimit=" + http2MultiplexingLimit +
+                ", dnsCacheMinTtl=" + dnsCacheMinTtl +
+                ", dnsCacheMaxTtl=" + dnsCacheMaxTtl +
+                ", dnsCacheNegativeTtl=" + dnsCacheNegativeTtl +
+                '}';
+    }
+}
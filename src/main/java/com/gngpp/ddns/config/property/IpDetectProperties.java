@@ -0,0 +1,93 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config.property;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gngpp.ddns.annotation.ConfigPrefix;
+
+/**
+ * 公网IP查询配置，查询源使用 {@link DefaultProperties#getIpv4ApiList()}、{@link DefaultProperties#getIpv6ApiList()}
+ *
+ * @author mac
+ * 2022/4/9
+ */
+@ConfigPrefix(value = "ipDetect")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IpDetectProperties {
+
+    /**
+     * 对冲请求延迟（毫秒），当前查询源超过该时间未返回时并发请求下一个查询源
+     */
+    private long hedgeDelay = 300;
+
+    /**
+     * 单个查询源的请求超时（毫秒）
+     */
+    private long requestTimeout = 5000;
+
+    /**
+     * 需要多少个查询源返回相同的IP才采用，1表示采用最先返回的结果
+     */
+    private int quorum = 1;
+
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public IpDetectProperties setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+        return this;
+    }
+
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public IpDetectProperties setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    public IpDetectProperties setQuorum(int quorum) {
+        this.quorum = quorum;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "IpDetectProperties{" +
+                "hedgeDelay=" + hedgeDelay +
+                ", requestTimeout=" + requestTimeout +
+                ", quorum=" + quorum +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config.property;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gngpp.ddns.annotation.ConfigPrefix;
+
+/**
+ * 内存日志配置
+ *
+ * @author mac
+ * 2022/4/14
+ */
+@ConfigPrefix(value = "log")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LogProperties {
+
+    /**
+     * 每个服务商保留的最大日志数量，超过后覆盖最旧的日志
+     */
+    private int capacity = 1000;
+
+    /**
+     * 日志保留时长（分钟），小于等于0时只按数量淘汰
+     */
+    private long maxAge = 300;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public LogProperties setCapacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public LogProperties setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+}
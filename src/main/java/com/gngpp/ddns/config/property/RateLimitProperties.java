@@ -0,0 +1,159 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config.property;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gngpp.ddns.annotation.ConfigPrefix;
+import com.gngpp.ddns.enums.DnsProviderType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 服务商接口限流与重试配置
+ *
+ * @author mac
+ * 2022/4/7
+ */
+@ConfigPrefix(value = "rateLimit")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RateLimitProperties {
+
+    /**
+     * 请求被限流或出现临时错误时的最大重试次数
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 首次重试的退避时间（毫秒），之后按指数增长
+     */
+    private long baseBackoff = 500;
+
+    /**
+     * 单次重试的最大退避时间（毫秒）
+     */
+    private long maxBackoff = 10_000;
+
+    /**
+     * 各服务商的令牌桶配置，未配置的服务商使用 {@link #DEFAULT_BUCKET}
+     */
+    private Map<DnsProviderType, Bucket> providers = new EnumMap<>(DnsProviderType.class);
+
+    private static final Bucket DEFAULT_BUCKET = new Bucket();
+
+    public Bucket getBucket(DnsProviderType dnsProviderType) {
+        final var bucket = this.providers == null ? null : this.providers.get(dnsProviderType);
+        return bucket == null ? DEFAULT_BUCKET : bucket;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public RateLimitProperties setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public long getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    public RateLimitProperties setBaseBackoff(long baseBackoff) {
+        this.baseBackoff = baseBackoff;
+        return this;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public RateLimitProperties setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public Map<DnsProviderType, Bucket> getProviders() {
+        return providers;
+    }
+
+    public RateLimitProperties setProviders(Map<DnsProviderType, Bucket> providers) {
+        this.providers = providers;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitProperties{" +
+                "maxRetries=" + maxRetries +
+                ", baseBackoff=" + baseBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", providers=" + providers +
+                '}';
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Bucket {
+
+        /**
+         * 每秒生成的令牌数
+         */
+        private double ratePerSecond = 5;
+
+        /**
+         * 令牌桶容量，允许的突发请求数
+         */
+        private int burst = 5;
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public Bucket setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+            return this;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public Bucket setBurst(int burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                    "ratePerSecond=" + ratePerSecond +
+                    ", burst=" + burst +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.config.property;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gngpp.ddns.annotation.ConfigPrefix;
+
+/**
+ * 解析同步相关配置
+ *
+ * @author mac
+ * 2022/4/2
+ */
+@ConfigPrefix(value = "reconcile")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ReconcileProperties {
+
+    /**
+     * 强制全量同步间隔（分钟），即解析记录缓存的过期时间，过期后即使IP未变化也会重新查询服务商记录
+     */
+    private long forceResyncInterval = 60;
+
+    /**
+     * 解析记录缓存的最大数量
+     */
+    private long recordCacheSize = 10_000;
+
+    /**
+     * 默认同步间隔（秒）
+     */
+    private long periodicTime = 300;
+
+    /**
+     * 同步间隔抖动比例，避免所有域名在同一时刻请求服务商接口
+     */
+    private double jitterRatio = 0.1;
+
+    /**
+     * 获取到的IP缓存时间（秒），分散执行的域名共享同一次IP查询
+     */
+    private long ipCacheTime = 30;
+
+    /**
+     * 网卡地址检测间隔（秒），地址变化时立即同步，小于等于0时关闭
+     */
+    private long networkMonitorInterval = 5;
+
+    /**
+     * 触发同步的防抖时间（毫秒），该时间内的触发事件合并为一次同步
+     */
+    private long triggerDebounce = 1000;
+
+    /**
+     * 每个服务商同时执行的最大请求数
+     */
+    private int maxConcurrency = 4;
+
+    /**
+     * 每个服务商等待执行的最大任务数，超过后直接拒绝
+     */
+    private int queueCapacity = 1000;
+
+    public long getForceResyncInterval() {
+        return forceResyncInterval;
+    }
+
+    public ReconcileProperties setForceResyncInterval(long forceResyncInterval) {
+        this.forceResyncInterval = forceResyncInterval;
+        return this;
+    }
+
+    public long getRecordCacheSize() {
+        return recordCacheSize;
+    }
+
+    public ReconcileProperties setRecordCacheSize(long recordCacheSize) {
+        this.recordCacheSize = recordCacheSize;
+        return this;
+    }
+
+    public long getPeriodicTime() {
+        return periodicTime;
+    }
+
+    public ReconcileProperties setPeriodicTime(long periodicTime) {
+        this.periodicTime = periodicTime;
+        return this;
+    }
+
+    public double getJitterRatio() {
+        return jitterRatio;
+    }
+
+    public ReconcileProperties setJitterRatio(double jitterRatio) {
+        this.jitterRatio = jitterRatio;
+        return this;
+    }
+
+    public long getIpCacheTime() {
+        return ipCacheTime;
+    }
+
+    public ReconcileProperties setIpCacheTime(long ipCacheTime) {
+        this.ipCacheTime = ipCacheTime;
+        return this;
+    }
+
+    public long getNetworkMonitorInterval() {
+        return networkMonitorInterval;
+    }
+
+    public ReconcileProperties setNetworkMonitorInterval(long networkMonitorInterval) {
+        this.networkMonitorInterval = networkMonitorInterval;
+        return this;
+    }
+
+    public long getTriggerDebounce() {
+        return triggerDebounce;
+    }
+
+    public ReconcileProperties setTriggerDebounce(long triggerDebounce) {
+        this.triggerDebounce = triggerDebounce;
+        return this;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public ReconcileProperties setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public ReconcileProperties setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconcileProperties{" +
+                "forceResyncInterval=" + forceResyncInterval +
+                ", recordCacheSize=" + recordCacheSize +
+                ", periodicTime=" + periodicTime +
+                ", jitterRatio=" + jitterRatio +
+                ", ipCacheTime=" + ipCacheTime +
+                ", networkMonitorInterval=" + networkMonitorInterval +
+                ", triggerDebounce=" + triggerDebounce +
+                ", maxConcurrency=" + maxConcurrency +
+                ", queueCapacity=" + queueCapacity +
+                '}';
+    }
+}
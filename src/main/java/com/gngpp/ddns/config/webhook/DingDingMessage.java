@@ -84,6 +84,33 @@ public class DingDingMessage extends BaseMessage implements Serializable {
         this.markdown = markdownMessage;
     }
 
+    /**
+     * 复制一份用于发送，发送时会渲染模板并清除隐私字段，不影响缓存的配置
+     */
+    public DingDingMessage copy() {
+        final var copy = new DingDingMessage();
+        copy.enabled = this.enabled;
+        copy.url = this.url;
+        copy.secret = this.secret;
+        copy.msgType = this.msgType;
+        copy.at = this.at;
+        if (this.link != null) {
+            copy.link = new LinkMessageBuilder().setText(this.link.text)
+                                                .setTitle(this.link.title)
+                                                .setPicUrl(this.link.picUrl)
+                                                .setMessageUrl(this.link.messageUrl);
+        }
+        if (this.markdown != null) {
+            copy.markdown = new MarkdownMessageBuilder().setTitle(this.markdown.title)
+                                                        .setText(this.markdown.text)
+                                                        .setAt(this.markdown.at);
+        }
+        if (this.text != null) {
+            copy.text = new Text().setContent(this.text.content);
+        }
+        return copy;
+    }
+
     public static TextMessageBuildr newTextMessageBuilder() {
         return new TextMessageBuildr();
     }
@@ -85,6 +85,19 @@ public class LarkMessage extends BaseMessage implements Serializable {
         return this;
     }
 
+    /**
+     * 复制一份用于发送，发送时会渲染模板并清除隐私字段，不影响缓存的配置
+     */
+    public LarkMessage copy() {
+        final var copy = new LarkMessage().setUrl(this.url)
+                                          .setSecret(this.secret);
+        copy.enabled = this.enabled;
+        if (this.content != null) {
+            copy.content = new Content().setText(this.content.text);
+        }
+        return copy;
+    }
+
     public static LarkMessageBuilder newBuilder() {
         return new LarkMessageBuilder();
     }
@@ -86,6 +86,17 @@ public class ServerJMessage extends BaseMessage implements Serializable {
         return this;
     }
 
+    /**
+     * 复制一份用于发送，发送时会渲染模板并清除隐私字段，不影响缓存的配置
+     */
+    public ServerJMessage copy() {
+        final var copy = new ServerJMessage().setUrl(this.url)
+                                             .setTitle(this.title)
+                                             .setContent(this.content);
+        copy.enabled = this.enabled;
+        return copy;
+    }
+
     public static ServerJMessageBuilder newBuilder() {
         return new ServerJMessageBuilder();
     }
@@ -0,0 +1,85 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.enums;
+
+/**
+ * dyndns2 协议 /nic/update 的返回码
+ *
+ * @author mac
+ * 2022/4/12
+ */
+public enum NicUpdateStatus {
+
+    /**
+     * 已接受，将推送到服务商
+     */
+    GOOD("good"),
+    /**
+     * IP未变化
+     */
+    NOCHG("nochg"),
+    /**
+     * 域名不存在于配置中
+     */
+    NOHOST("nohost"),
+    /**
+     * 域名格式错误
+     */
+    NOTFQDN("notfqdn"),
+    /**
+     * 一次请求的域名过多
+     */
+    NUMHOST("numhost"),
+    /**
+     * 请求参数错误，例如myip不是合法的IP
+     */
+    BADAGENT("badagent"),
+    /**
+     * 无法确定要更新的IP
+     */
+    DNSERR("dnserr"),
+    /**
+     * 认证失败
+     */
+    BADAUTH("badauth"),
+    /**
+     * 服务端错误
+     */
+    SERVER_ERROR("911");
+
+    private final String value;
+
+    NicUpdateStatus(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+}
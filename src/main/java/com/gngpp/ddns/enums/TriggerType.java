@@ -0,0 +1,81 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.enums;
+
+/**
+ * 触发同步的来源
+ *
+ * @author mac
+ * 2022/4/11
+ */
+public enum TriggerType {
+
+    /**
+     * 定时任务
+     */
+    TIMER,
+    /**
+     * 检测到IP变化
+     */
+    IP_CHANGE,
+    /**
+     * 同步过程中查询到了新的IP，查询结果已是最新的，只需让其他记录跟上
+     */
+    IP_OBSERVED,
+    /**
+     * 手动触发
+     */
+    MANUAL,
+    /**
+     * 配置重新加载
+     */
+    CONFIG_RELOAD,
+    /**
+     * 外部webhook，例如路由器通知IP已变化
+     */
+    WEBHOOK;
+
+    /**
+     * IP可能已变化，需要丢弃缓存的IP重新查询
+     *
+     * @return boolean
+     */
+    public boolean mayChangeIp() {
+        return this == IP_CHANGE || this == MANUAL || this == WEBHOOK;
+    }
+
+    public static TriggerType checkType(String value) {
+        for (TriggerType type : values()) {
+            if (type.name()
+                    .equals(value)) {
+                return type;
+            }
+        }
+        throw new RuntimeException("The trigger type does not exist");
+    }
+}
@@ -30,22 +30,25 @@ import com.gngpp.ddns.pojo.DnsRecordLog;
 import com.gngpp.ddns.util.ParameterHelper;
 import com.gngpp.ddns.enums.LogStatus;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
+ * 模板只解析一次，编译为字面量和占位符片段，渲染时一次拼接
+ *
  * @author mac
  * 2021/8/26 星期四 10:30 下午
  */
 public class TemplateExpressionHandler implements ExpressionParser{
 
-    private static final String providerTag = "#provider";
-    private static final String sourceIpTag = "#sourceIp";
-    private static final String targetIpTag = "#targetIp";
-    private static final String timeTag = "#time";
-    private static final String statusTag = "#status";
-    private static final String domainTag = "#domain";
-    private static final Set<String> SET = Set.of(providerTag, sourceIpTag, targetIpTag, timeTag, statusTag, domainTag);
+    /**
+     * 模板来自webhook配置，数量很少，超过上限说明配置频繁变化，直接清空
+     */
+    private static final int MAX_CACHED_TEMPLATES = 64;
+    private final Map<String, CompiledTemplate> templateCache = new ConcurrentHashMap<>();
 
     public TemplateExpressionHandler() {
     }
@@ -53,50 +56,108 @@ public class TemplateExpressionHandler implements ExpressionParser{
 
     @Override
     public String replaceParser(DnsRecordLog dnsRecordLog, String content) {
-        final String finalContent = content;
-        boolean condition = false;
-        for (String tag : SET) {
-            if (finalContent.contains(tag)) {
-                condition = true;
-                break;
-            }
-        }
-
-        if (!condition) {
+        final var template = this.compile(content);
+        if (!template.hasTag()) {
             return dnsRecordLog.getContent();
         }
 
-        if (content.contains(providerTag) && dnsRecordLog.getDnsProviderType() != null) {
-            content = content.replaceAll(providerTag, dnsRecordLog.getDnsProviderType().name());
+        if (dnsRecordLog.getLogStatus() == LogStatus.ERROR) {
+            return "- DNS provider: " + dnsRecordLog.getDnsProviderType() +
+                    "\n- Status: " + dnsRecordLog.getLogStatus() +
+                    "\n- Message: " + dnsRecordLog.getDomainOrMessage();
         }
 
-        if (content.contains(sourceIpTag) && dnsRecordLog.getSourceIp() != null) {
-            content = content.replaceAll(sourceIpTag, dnsRecordLog.getSourceIp());
-        }
+        return template.render(dnsRecordLog);
+    }
 
-        if (content.contains(targetIpTag) && dnsRecordLog.getTargetIp() != null) {
-            content = content.replaceAll(targetIpTag, dnsRecordLog.getTargetIp());
+    private CompiledTemplate compile(String content) {
+        if (content == null) {
+            return CompiledTemplate.EMPTY;
         }
-
-        if (content.contains(timeTag) && dnsRecordLog.getTimestamp() != null) {
-            content = content.replaceAll(timeTag, ParameterHelper.getTime(new Date(dnsRecordLog.getTimestamp())));
+        final var template = this.templateCache.get(content);
+        if (template != null) {
+            return template;
+        }
+        if (this.templateCache.size() >= MAX_CACHED_TEMPLATES) {
+            this.templateCache.clear();
         }
+        return this.templateCache.computeIfAbsent(content, CompiledTemplate::compile);
+    }
 
-        if (content.contains(statusTag) && dnsRecordLog.getLogStatus() != null) {
-            content = content .replaceAll(statusTag, dnsRecordLog.getLogStatus().toString());
+    private enum Tag {
+
+        PROVIDER("#provider", log -> log.getDnsProviderType() == null ? null : log.getDnsProviderType().name()),
+        SOURCE_IP("#sourceIp", DnsRecordLog::getSourceIp),
+        TARGET_IP("#targetIp", DnsRecordLog::getTargetIp),
+        TIME("#time", log -> log.getTimestamp() == null ? null : ParameterHelper.getTime(new Date(log.getTimestamp()))),
+        STATUS("#status", log -> log.getLogStatus() == null ? null : log.getLogStatus().toString()),
+        DOMAIN("#domain", DnsRecordLog::getDomainOrMessage);
+
+        private static final Tag[] TAGS = values();
+        private final String name;
+        private final Function<DnsRecordLog, String> value;
+
+        Tag(String name, Function<DnsRecordLog, String> value) {
+            this.name = name;
+            this.value = value;
         }
 
-        if (content.contains(domainTag) && dnsRecordLog.getDomainOrMessage() != null) {
-            content = content.replaceAll(domainTag, dnsRecordLog.getDomainOrMessage());
+        private static Tag match(String content, int index) {
+            for (Tag tag : TAGS) {
+                if (content.startsWith(tag.name, index)) {
+                    return tag;
+                }
+            }
+            return null;
         }
+    }
 
-        if (dnsRecordLog.getLogStatus() == LogStatus.ERROR) {
-            content = "- DNS provider: " + dnsRecordLog.getDnsProviderType() +
-                    "\n- Status: " + dnsRecordLog.getLogStatus() +
-                    "\n- Message: " + dnsRecordLog.getDomainOrMessage();
+    /**
+     * 片段为{@link String}字面量或{@link Tag}占位符
+     */
+    private record CompiledTemplate(Object[] segments, int literalLength, boolean hasTag) {
+
+        private static final CompiledTemplate EMPTY = new CompiledTemplate(new Object[0], 0, false);
+
+        private static CompiledTemplate compile(String content) {
+            final var segments = new ArrayList<>();
+            var literalStart = 0;
+            var literalLength = 0;
+            var index = content.indexOf('#');
+            while (index >= 0) {
+                final var tag = Tag.match(content, index);
+                if (tag == null) {
+                    index = content.indexOf('#', index + 1);
+                    continue;
+                }
+                if (index > literalStart) {
+                    segments.add(content.substring(literalStart, index));
+                    literalLength += index - literalStart;
+                }
+                segments.add(tag);
+                literalStart = index + tag.name.length();
+                index = content.indexOf('#', literalStart);
+            }
+            if (literalStart < content.length()) {
+                segments.add(content.substring(literalStart));
+                literalLength += content.length() - literalStart;
+            }
+            return new CompiledTemplate(segments.toArray(), literalLength, literalStart > 0);
         }
 
-        return content;
+        private String render(DnsRecordLog dnsRecordLog) {
+            final var builder = new StringBuilder(this.literalLength + 16 * this.segments.length);
+            for (Object segment : this.segments) {
+                if (segment instanceof Tag tag) {
+                    final var value = tag.value.apply(dnsRecordLog);
+                    // 没有值时保留标签原文
+                    builder.append(value == null ? tag.name : value);
+                } else {
+                    builder.append((String) segment);
+                }
+            }
+            return builder.toString();
+        }
     }
 
-}
\ No newline at end of file
+}
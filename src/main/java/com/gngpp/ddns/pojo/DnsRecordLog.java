@@ -28,11 +28,14 @@ package com.gngpp.ddns.pojo;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.LogStatus;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * @author ant
@@ -42,14 +45,39 @@ import java.util.Date;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class DnsRecordLog implements Serializable {
 
+    private static final Set<LogStatus> SUPPORTED_STATUS = EnumSet.of(LogStatus.RAW,
+                                                                      LogStatus.CREATE,
+                                                                      LogStatus.CREATE_FAIL,
+                                                                      LogStatus.MODIFY,
+                                                                      LogStatus.MODIFY_FAIL,
+                                                                      LogStatus.ERROR);
+
     private DnsProviderType dnsProviderType;
 
+    /**
+     * 服务商账号名称，和服务商类型组成{@link DnsAccount}
+     */
+    private String account;
+
     private LogStatus logStatus;
 
+    /**
+     * 显式设置的内容，为空时由状态和原始字段按需生成
+     */
     private String content;
 
     private Long timestamp;
 
+    /**
+     * 服务商日志序号，单调递增，客户端据此增量拉取
+     */
+    private Long seq;
+
+    /**
+     * 序号空间标识，服务重启后改变，客户端据此判断游标是否仍然有效
+     */
+    private Long epoch;
+
     @JsonIgnore
     private String sourceIp;
 
@@ -63,29 +91,24 @@ public class DnsRecordLog implements Serializable {
 
     }
 
-    private DnsRecordLog(DnsProviderType dnsProviderType, String domainOrMessage, LogStatus logStatus) {
-        this(dnsProviderType, domainOrMessage, (String) null, logStatus);
+    private DnsRecordLog(DnsAccount dnsAccount, String domainOrMessage, LogStatus logStatus) {
+        this(dnsAccount, domainOrMessage, (String) null, logStatus);
     }
 
-    private DnsRecordLog(DnsProviderType dnsProviderType, String domainOrMessage, String ip, LogStatus logStatus) {
-        this(dnsProviderType, domainOrMessage, ip, (String) null, logStatus);
+    private DnsRecordLog(DnsAccount dnsAccount, String domainOrMessage, String ip, LogStatus logStatus) {
+        this(dnsAccount, domainOrMessage, ip, (String) null, logStatus);
     }
 
-    private DnsRecordLog(DnsProviderType dnsProviderType,
+    private DnsRecordLog(DnsAccount dnsAccount,
                          String domainOrMessage,
                          String targetIp,
                          String sourceIp,
                          LogStatus logStatus) {
-        switch (logStatus) {
-            case RAW -> this.content = "域名：" + domainOrMessage + " 没有发生变化, IP：" + targetIp;
-            case CREATE -> this.content = "新增域名解析：" + domainOrMessage + " 成功！IP：" + targetIp;
-            case CREATE_FAIL -> this.content = "新增域名解析：" + domainOrMessage + " 失败！";
-            case MODIFY -> this.content = "更新域名解析：" + domainOrMessage + " 成功！IP：" + sourceIp + " -> " + targetIp;
-            case MODIFY_FAIL -> this.content = "更新域名解析：" + domainOrMessage + " 失败！";
-            case ERROR -> this.content = domainOrMessage;
-            default -> throw new UnsupportedOperationException("Unsupported log status: " + logStatus.name());
+        if (!SUPPORTED_STATUS.contains(logStatus)) {
+            throw new UnsupportedOperationException("Unsupported log status: " + logStatus.name());
         }
-        this.dnsProviderType = dnsProviderType;
+        this.dnsProviderType = dnsAccount.dnsProviderType();
+        this.account = dnsAccount.account();
         this.logStatus = logStatus;
         this.timestamp = new Date().getTime();
         this.sourceIp = sourceIp;
@@ -93,28 +116,28 @@ public class DnsRecordLog implements Serializable {
         this.domainOrMessage = domainOrMessage;
     }
 
-    public static DnsRecordLog rawLog(DnsProviderType dnsProviderType, String domain, String ip) {
-        return new DnsRecordLog(dnsProviderType, domain, ip, LogStatus.RAW);
+    public static DnsRecordLog rawLog(DnsAccount dnsAccount, String domain, String ip) {
+        return new DnsRecordLog(dnsAccount, domain, ip, LogStatus.RAW);
     }
 
-    public static DnsRecordLog createLog(DnsProviderType dnsProviderType, String domain, String ip) {
-        return new DnsRecordLog(dnsProviderType, domain, ip, LogStatus.CREATE);
+    public static DnsRecordLog createLog(DnsAccount dnsAccount, String domain, String ip) {
+        return new DnsRecordLog(dnsAccount, domain, ip, LogStatus.CREATE);
     }
 
-    public static DnsRecordLog createFailLog(DnsProviderType dnsProviderType, String domain) {
-        return new DnsRecordLog(dnsProviderType, domain, LogStatus.CREATE_FAIL);
+    public static DnsRecordLog createFailLog(DnsAccount dnsAccount, String domain) {
+        return new DnsRecordLog(dnsAccount, domain, LogStatus.CREATE_FAIL);
     }
 
-    public static DnsRecordLog modifyLog(DnsProviderType dnsProviderType, String domain, String ip, String rawIp) {
-        return new DnsRecordLog(dnsProviderType, domain, ip, rawIp, LogStatus.MODIFY);
+    public static DnsRecordLog modifyLog(DnsAccount dnsAccount, String domain, String ip, String rawIp) {
+        return new DnsRecordLog(dnsAccount, domain, ip, rawIp, LogStatus.MODIFY);
     }
 
-    public static DnsRecordLog modifyFailLog(DnsProviderType dnsProviderType, String domain) {
-        return new DnsRecordLog(dnsProviderType, domain, LogStatus.MODIFY_FAIL);
+    public static DnsRecordLog modifyFailLog(DnsAccount dnsAccount, String domain) {
+        return new DnsRecordLog(dnsAccount, domain, LogStatus.MODIFY_FAIL);
     }
 
-    public static DnsRecordLog errorLog(DnsProviderType dnsProviderType, String message) {
-        return new DnsRecordLog(dnsProviderType, message, LogStatus.ERROR);
+    public static DnsRecordLog errorLog(DnsAccount dnsAccount, String message) {
+        return new DnsRecordLog(dnsAccount, message, LogStatus.ERROR);
     }
 
     public DnsProviderType getDnsProviderType() {
@@ -126,7 +149,46 @@ public class DnsRecordLog implements Serializable {
         return this;
     }
 
+    public String getAccount() {
+        return account;
+    }
+
+    public DnsRecordLog setAccount(String account) {
+        this.account = account;
+        return this;
+    }
+
+    /**
+     * 日志所属账号，服务商为空时返回null
+     */
+    @JsonIgnore
+    public DnsAccount getDnsAccount() {
+        return dnsProviderType == null ? null : DnsAccount.of(dnsProviderType, account);
+    }
+
+    /**
+     * 内容只在推送到页面和webhook时生成，不随日志缓存和事件总线传递
+     */
     public String getContent() {
+        if (content != null || logStatus == null) {
+            return content;
+        }
+        return switch (logStatus) {
+            case RAW -> "域名：" + domainOrMessage + " 没有发生变化, IP：" + targetIp;
+            case CREATE -> "新增域名解析：" + domainOrMessage + " 成功！IP：" + targetIp;
+            case CREATE_FAIL -> "新增域名解析：" + domainOrMessage + " 失败！";
+            case MODIFY -> "更新域名解析：" + domainOrMessage + " 成功！IP：" + sourceIp + " -> " + targetIp;
+            case MODIFY_FAIL -> "更新域名解析：" + domainOrMessage + " 失败！";
+            case ERROR -> domainOrMessage;
+            default -> null;
+        };
+    }
+
+    /**
+     * 显式设置的内容，编解码时使用
+     */
+    @JsonIgnore
+    public String getExplicitContent() {
         return content;
     }
 
@@ -180,13 +242,34 @@ public class DnsRecordLog implements Serializable {
         return this;
     }
 
+    public Long getSeq() {
+        return seq;
+    }
+
+    public DnsRecordLog setSeq(Long seq) {
+        this.seq = seq;
+        return this;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public DnsRecordLog setEpoch(Long epoch) {
+        this.epoch = epoch;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "DnsRecordLog{" +
                 "dnsProviderType=" + dnsProviderType +
+                ", account='" + account + '\'' +
                 ", logStatus=" + logStatus +
-                ", content='" + content + '\'' +
+                ", content='" + getContent() + '\'' +
                 ", timestamp=" + timestamp +
+                ", seq=" + seq +
+                ", epoch=" + epoch +
                 ", sourceIp='" + sourceIp + '\'' +
                 ", targetIp='" + targetIp + '\'' +
                 ", domainOrMessage='" + domainOrMessage + '\'' +
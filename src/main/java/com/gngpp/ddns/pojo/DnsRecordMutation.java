@@ -0,0 +1,60 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.pojo;
+
+import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.util.StringUtil;
+
+/**
+ * 批量操作中的一条记录变更，新增时id为空
+ *
+ * @param id            记录id
+ * @param domain        域名
+ * @param ip            ip，删除时为空
+ * @param dnsRecordType 记录类型
+ * @author mac
+ * 2022/4/14
+ */
+public record DnsRecordMutation(String id, String domain, String ip, DnsRecordType dnsRecordType) {
+
+    public static DnsRecordMutation create(String domain, String ip, DnsRecordType dnsRecordType) {
+        return new DnsRecordMutation(null, domain, ip, dnsRecordType);
+    }
+
+    public static DnsRecordMutation modify(String id, String domain, String ip, DnsRecordType dnsRecordType) {
+        return new DnsRecordMutation(id, domain, ip, dnsRecordType);
+    }
+
+    public static DnsRecordMutation delete(String id, String domain) {
+        return new DnsRecordMutation(id, domain, null, null);
+    }
+
+    public boolean isCreate() {
+        return StringUtil.isEmpty(this.id);
+    }
+}
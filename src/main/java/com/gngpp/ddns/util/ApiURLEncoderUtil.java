@@ -39,6 +39,7 @@ import java.util.regex.Pattern;
 public class ApiURLEncoderUtil {
     public final static Charset URL_ENCODING = StandardCharsets.UTF_8;
     private static final Pattern ENCODED_CHARACTERS_PATTERN;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
     static {
         ENCODED_CHARACTERS_PATTERN = Pattern.compile(Pattern.quote("+") + "|" + Pattern.quote("*") + "|" + Pattern.quote("%7E") + "|" + Pattern.quote("%2F"));
@@ -82,4 +83,45 @@ public class ApiURLEncoderUtil {
                                             .replace("%7E", "~") : null;
     }
 
+    /**
+     * 与 {@link #aliyunPercentEncode(String)} 结果一致，直接写入builder，不产生中间字符串
+     *
+     * @param builder builder
+     * @param value   值
+     * @param times   编码次数，1或2，2等同于对编码结果再编码一次
+     * @return {@link StringBuilder}
+     */
+    public static StringBuilder aliyunPercentEncode(StringBuilder builder, String value, int times) {
+        final var percent = times > 1 ? "%25" : "%";
+        final var length = value.length();
+        for (int i = 0; i < length; i++) {
+            final var c = value.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                builder.append(c);
+            } else if (c == ' ') {
+                builder.append(percent)
+                       .append("2B");
+            } else if (c < 0x80) {
+                appendHex(builder.append(percent), c);
+            } else {
+                // 非ASCII字符按UTF-8编码
+                var end = i + 1;
+                if (Character.isHighSurrogate(c) && end < length && Character.isLowSurrogate(value.charAt(end))) {
+                    end++;
+                }
+                for (byte b : value.substring(i, end).getBytes(URL_ENCODING)) {
+                    appendHex(builder.append(percent), b & 0xFF);
+                }
+                i = end - 1;
+            }
+        }
+        return builder;
+    }
+
+    private static void appendHex(StringBuilder builder, int b) {
+        builder.append(HEX_DIGITS[b >> 4 & 0xF])
+               .append(HEX_DIGITS[b & 0xF]);
+    }
+
 }
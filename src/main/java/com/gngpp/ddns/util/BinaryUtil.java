@@ -26,32 +26,24 @@
 
 package com.gngpp.ddns.util;
 
-import java.util.Locale;
-
 /**
  * @author mac
  * @date 2021/7/24
  */
 public class BinaryUtil {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public BinaryUtil() {
     }
 
     public static String toHex(byte[] data) {
-        StringBuilder sb = new StringBuilder(data.length * 2);
-
-        for (byte b : data) {
-            String hex = Integer.toHexString(b);
-            if (hex.length() == 1) {
-                sb.append("0");
-            } else if (hex.length() == 8) {
-                hex = hex.substring(6);
-            }
-
-            sb.append(hex);
+        final var chars = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(data[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[data[i] & 0xF];
         }
-
-        return sb.toString()
-                 .toLowerCase(Locale.getDefault());
+        return new String(chars);
     }
 
 }
@@ -0,0 +1,85 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.util;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步结果桥接为同步调用
+ *
+ * @author mac
+ * 2022/4/8
+ */
+public final class FutureUtil {
+
+    public static final long DEFAULT_AWAIT_TIMEOUT = 60000;
+
+    FutureUtil() {
+
+    }
+
+    public static <T> T await(Future<T> future) {
+        return await(future, DEFAULT_AWAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 阻塞等待异步结果，禁止在event loop线程调用
+     *
+     * @param future  异步结果
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return {@link T}
+     */
+    public static <T> T await(Future<T> future, long timeout, TimeUnit unit) {
+        if (Context.isOnEventLoopThread()) {
+            throw new IllegalStateException("Cannot block on an event loop thread, use the async api instead");
+        }
+        try {
+            return future.toCompletionStage()
+                         .toCompletableFuture()
+                         .get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Timed out after " + unit.toMillis(timeout) + "ms", e);
+        }
+    }
+}
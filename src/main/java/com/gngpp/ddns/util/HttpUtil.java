@@ -54,12 +54,17 @@ public final class HttpUtil {
     public static final Pattern IP6_EXTRACT_PATTERN = Pattern.compile("((([0-9A-Fa-f]{1,4}:){7}([0-9A-Fa-f]{1,4}|:))|(([0-9A-Fa-f]{1,4}:){6}(:[0-9A-Fa-f]{1,4}|((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3})|:))|(([0-9A-Fa-f]{1,4}:){5}(((:[0-9A-Fa-f]{1,4}){1,2})|:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3})|:))|(([0-9A-Fa-f]{1,4}:){4}(((:[0-9A-Fa-f]{1,4}){1,3})|((:[0-9A-Fa-f]{1,4})?:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}))|:))|(([0-9A-Fa-f]{1,4}:){3}(((:[0-9A-Fa-f]{1,4}){1,4})|((:[0-9A-Fa-f]{1,4}){0,2}:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}))|:))|(([0-9A-Fa-f]{1,4}:){2}(((:[0-9A-Fa-f]{1,4}){1,5})|((:[0-9A-Fa-f]{1,4}){0,3}:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}))|:))|(([0-9A-Fa-f]{1,4}:){1}(((:[0-9A-Fa-f]{1,4}){1,6})|((:[0-9A-Fa-f]{1,4}){0,4}:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}))|:))|(:(((:[0-9A-Fa-f]{1,4}){1,7})|((:[0-9A-Fa-f]{1,4}){0,5}:((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}))|:)))");
     private static final Pattern INNER_IP_PATTERN = Pattern.compile("^(127\\.0\\.0\\.1)|(0\\:0\\:0\\:0\\:0\\:0\\:0\\:1)|(localhost)|(10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})|(172\\.((1[6-9])|(2\\d)|(3[01]))\\.\\d{1,3}\\.\\d{1,3})|(192\\.168\\.\\d{1,3}\\.\\d{1,3})$");
     private static WebClient webClient;
+    /**
+     * 网卡地址快照的最长使用时间（毫秒）
+     */
+    private static final long NETWORK_SNAPSHOT_MAX_AGE = 10_000;
+    private static volatile NetworkInterfaceSnapshot networkSnapshot = NetworkInterfaceSnapshot.empty();
     private static final String DEFAULT_IPV4_API = "https://api-ipv4.ip.sb/ip";
     private static final String DEFAULT_IPV6_API = "https://api-ipv6.ip.sb/ip";
     private static final String[] staticDomain = {"com.cn", "org.cn", "net.cn", "ac.cn", "eu.org"};
 
     public static void initCustomWebClient(Vertx vertx) {
-        HttpUtil.webClient = WebClient.create(vertx);
+        HttpUtil.webClient = WebClientRegistry.getWebClient(vertx);
     }
 
     /**
@@ -136,6 +141,16 @@ public final class HttpUtil {
         return IP_CHECK_PATTERN.matcher(ip).matches();
     }
 
+    /**
+     * 判断ipv6格式是否正确
+     *
+     * @param ip ip
+     * @return {@link boolean}
+     */
+    public static boolean isIpv6(String ip) {
+        return IP6_EXTRACT_PATTERN.matcher(ip).matches();
+    }
+
     /**
      * 判断url格式是否正确
      *
@@ -254,21 +269,13 @@ public final class HttpUtil {
     }
 
     public static Future<String> getNetworkCardIpv4Ip(String card) {
-        for (String cardAndIp : getNetworkIpv4List()) {
-            if (cardAndIp.substring(0, cardAndIp.indexOf('(')).equals(card)) {
-                return Future.succeededFuture(cardAndIp.substring(cardAndIp.indexOf('(') + 1, cardAndIp.lastIndexOf(')')));
-            }
-        }
-        return Future.failedFuture("Not assigned to IPv4");
+        final var ip = getNetworkSnapshot().getIpv4(card);
+        return ip == null ? Future.failedFuture("Not assigned to IPv4") : Future.succeededFuture(ip);
     }
 
     public static Future<String> getNetworkCardIpv6Ip(String card) {
-        for (String cardAndIp : getNetworkIpv6List()) {
-            if (cardAndIp.substring(0, cardAndIp.indexOf('(')).equals(card)) {
-                return Future.succeededFuture(cardAndIp.substring(cardAndIp.indexOf('(') + 1, cardAndIp.lastIndexOf(')')));
-            }
-        }
-        return Future.failedFuture("Not assigned to IPv6");
+        final var ip = getNetworkSnapshot().getIpv6(card);
+        return ip == null ? Future.failedFuture("Not assigned to IPv6") : Future.succeededFuture(ip);
     }
 
     /**
@@ -277,27 +284,7 @@ public final class HttpUtil {
      * @return {@link List <String>}
      */
     public static List<String> getNetworkIpv4List() {
-        Enumeration<NetworkInterface> netInterfaces;
-        List<String> networkIpList = new ArrayList<>();
-        try {
-            // Get all network cards
-            netInterfaces = NetworkInterface.getNetworkInterfaces();
-            InetAddress ip;
-            // Traverse each network card and get the ip
-            while (netInterfaces.hasMoreElements()) {
-                NetworkInterface ni = netInterfaces.nextElement();
-                Enumeration<InetAddress> addresses = ni.getInetAddresses();
-                while (addresses.hasMoreElements()) {
-                    ip = addresses.nextElement();
-                    if (!ip.isLoopbackAddress() && ip instanceof Inet4Address && ip.getHostAddress().indexOf(':') == -1) {
-                        networkIpList.add(ni.getName() + "(" + ip.getHostAddress() + ")");
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return networkIpList;
+        return getNetworkSnapshot().toIpv4List();
     }
 
     /**
@@ -306,28 +293,36 @@ public final class HttpUtil {
      * @return {@link List<String>}
      */
     public static List<String> getNetworkIpv6List() {
-        Enumeration<NetworkInterface> netInterfaces;
-        List<String> networkIpList = new ArrayList<>();
+        return getNetworkSnapshot().toIpv6List();
+    }
+
+    /**
+     * 获取网卡地址快照，快照由网卡监听定时刷新，过期时重新枚举网卡
+     *
+     * @return {@link NetworkInterfaceSnapshot}
+     */
+    public static NetworkInterfaceSnapshot getNetworkSnapshot() {
+        final var snapshot = networkSnapshot;
+        if (System.currentTimeMillis() - snapshot.getCaptureTime() < NETWORK_SNAPSHOT_MAX_AGE) {
+            return snapshot;
+        }
+        return refreshNetworkSnapshot();
+    }
+
+    /**
+     * 重新枚举网卡并更新快照，枚举失败时返回上一次的快照
+     *
+     * @return {@link NetworkInterfaceSnapshot}
+     */
+    public static NetworkInterfaceSnapshot refreshNetworkSnapshot() {
         try {
-            // Get all network cards
-            netInterfaces = NetworkInterface.getNetworkInterfaces();
-            InetAddress ip;
-            // Traverse each network card and get the ip
-            while (netInterfaces.hasMoreElements()) {
-                NetworkInterface ni = netInterfaces.nextElement();
-                Enumeration<InetAddress> addresses = ni.getInetAddresses();
-                while (addresses.hasMoreElements()) {
-                    ip = addresses.nextElement();
-                    if (!ip.isLoopbackAddress() && ip instanceof Inet6Address && ip.getHostAddress().indexOf(':') != -1) {
-                        String hostAddress = ip.getHostAddress();
-                        networkIpList.add(ni.getName() + "(" + hostAddress.substring(0, hostAddress.indexOf('%')) + ")");
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            final var snapshot = NetworkInterfaceSnapshot.capture();
+            networkSnapshot = snapshot;
+            return snapshot;
+        } catch (SocketException e) {
+            LogUtil.printError(LOG, "enumerate network interfaces failed: " + e.getMessage(), e);
+            return networkSnapshot;
         }
-        return networkIpList;
     }
 
     @Deprecated
@@ -0,0 +1,215 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.*;
+import java.util.*;
+
+/**
+ * 网卡地址快照，网卡名称 -> IPv4/IPv6 地址，用于按网卡获取IP以及对比网卡地址变化
+ *
+ * @author mac
+ * 2022/4/10
+ */
+public final class NetworkInterfaceSnapshot {
+
+    private static final NetworkInterfaceSnapshot EMPTY = new NetworkInterfaceSnapshot(Map.of(), Map.of(), 0);
+
+    /**
+     * 查询默认路由用的公网地址，不会向其发送数据
+     */
+    private static final InetAddress IPV4_ROUTE_PROBE = probeAddress(new byte[]{8, 8, 8, 8});
+
+    private static final InetAddress IPV6_ROUTE_PROBE = probeAddress(new byte[]{0x20, 0x01, 0x48, 0x60, 0x48, 0x60, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0x88, (byte) 0x88});
+
+    private final Map<String, List<String>> ipv4Map;
+
+    private final Map<String, List<String>> ipv6Map;
+
+    private final long captureTime;
+
+    private NetworkInterfaceSnapshot(Map<String, List<String>> ipv4Map, Map<String, List<String>> ipv6Map, long captureTime) {
+        this.ipv4Map = ipv4Map;
+        this.ipv6Map = ipv6Map;
+        this.captureTime = captureTime;
+    }
+
+    public static NetworkInterfaceSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 枚举所有网卡获取快照，会进行系统调用，不要在event loop中频繁调用
+     *
+     * @return {@link NetworkInterfaceSnapshot}
+     * @throws SocketException 枚举网卡失败
+     */
+    public static NetworkInterfaceSnapshot capture() throws SocketException {
+        final var ipv4Map = new LinkedHashMap<String, List<String>>();
+        final var ipv6Map = new LinkedHashMap<String, List<String>>();
+        final var netInterfaces = NetworkInterface.getNetworkInterfaces();
+        while (netInterfaces != null && netInterfaces.hasMoreElements()) {
+            final var ni = netInterfaces.nextElement();
+            // down and loopback interfaces never carry the address of a record
+            if (!ni.isUp() || ni.isLoopback()) {
+                continue;
+            }
+            final var addresses = ni.getInetAddresses();
+            while (addresses.hasMoreElements()) {
+                final InetAddress ip = addresses.nextElement();
+                if (ip.isLoopbackAddress() || ip.isLinkLocalAddress()) {
+                    continue;
+                }
+                final var hostAddress = ip.getHostAddress();
+                if (ip instanceof Inet4Address) {
+                    ipv4Map.computeIfAbsent(ni.getName(), k -> new ArrayList<>(1))
+                           .add(hostAddress);
+                } else if (ip instanceof Inet6Address) {
+                    // strip the scope id
+                    final var index = hostAddress.indexOf('%');
+                    ipv6Map.computeIfAbsent(ni.getName(), k -> new ArrayList<>(2))
+                           .add(index == -1 ? hostAddress : hostAddress.substring(0, index));
+                }
+            }
+        }
+        return new NetworkInterfaceSnapshot(freeze(ipv4Map), freeze(ipv6Map), System.currentTimeMillis());
+    }
+
+    /**
+     * 查询默认路由所在的网卡，UDP连接只会查路由表，不会发送数据，会进行系统调用，不要在event loop中调用
+     *
+     * @param ipv6 true: IPv6默认路由，false: IPv4默认路由
+     * @return 网卡名称，没有默认路由时返回null
+     */
+    public static String defaultRouteInterface(boolean ipv6) {
+        try (var socket = new DatagramSocket()) {
+            socket.connect(ipv6 ? IPV6_ROUTE_PROBE : IPV4_ROUTE_PROBE, 53);
+            final var localAddress = socket.getLocalAddress();
+            if (localAddress == null || localAddress.isAnyLocalAddress()) {
+                return null;
+            }
+            final var ni = NetworkInterface.getByInetAddress(localAddress);
+            return ni == null ? null : ni.getName();
+        } catch (IOException | UncheckedIOException e) {
+            return null;
+        }
+    }
+
+    private static InetAddress probeAddress(byte[] address) {
+        try {
+            return InetAddress.getByAddress(address);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Map<String, List<String>> freeze(Map<String, List<String>> map) {
+        map.replaceAll((name, list) -> List.copyOf(list));
+        return Collections.unmodifiableMap(map);
+    }
+
+    public long getCaptureTime() {
+        return captureTime;
+    }
+
+    /**
+     * @param card 网卡名称
+     * @return 网卡的第一个IPv4地址，不存在时返回null
+     */
+    public String getIpv4(String card) {
+        final var list = this.ipv4Map.get(card);
+        return CollectionUtil.isEmpty(list) ? null : list.get(0);
+    }
+
+    /**
+     * @param card 网卡名称
+     * @return 网卡的第一个IPv6地址，不存在时返回null
+     */
+    public String getIpv6(String card) {
+        final var list = this.ipv6Map.get(card);
+        return CollectionUtil.isEmpty(list) ? null : list.get(0);
+    }
+
+    /**
+     * @return 页面展示用的 网卡(IP) 列表
+     */
+    public List<String> toIpv4List() {
+        return format(this.ipv4Map);
+    }
+
+    public List<String> toIpv6List() {
+        return format(this.ipv6Map);
+    }
+
+    private static List<String> format(Map<String, List<String>> map) {
+        final var list = new ArrayList<String>();
+        map.forEach((name, addresses) -> {
+            for (String address : addresses) {
+                list.add(name + "(" + address + ")");
+            }
+        });
+        return list;
+    }
+
+    /**
+     * 对比两个快照
+     *
+     * @param other 另一个快照
+     * @return 地址发生变化（新增、移除或改变）的网卡名称
+     */
+    public Set<String> diff(NetworkInterfaceSnapshot other) {
+        final var changed = new TreeSet<String>();
+        diff(this.ipv4Map, other.ipv4Map, changed);
+        diff(this.ipv6Map, other.ipv6Map, changed);
+        return changed;
+    }
+
+    private static void diff(Map<String, List<String>> left, Map<String, List<String>> right, Set<String> changed) {
+        left.forEach((name, addresses) -> {
+            if (!addresses.equals(right.get(name))) {
+                changed.add(name);
+            }
+        });
+        for (String name : right.keySet()) {
+            if (!left.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkInterfaceSnapshot{" +
+                "ipv4=" + ipv4Map +
+                ", ipv6=" + ipv6Map +
+                ", captureTime=" + captureTime +
+                '}';
+    }
+}
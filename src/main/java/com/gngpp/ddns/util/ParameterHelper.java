@@ -28,52 +28,76 @@ package com.gngpp.ddns.util;
 
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.*;
-
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 签名参数，格式化器都是线程安全的常量，每次签名都会调用，不再创建 SimpleDateFormat
+ */
 public class ParameterHelper {
 
-    private final static String TIME_ZONE = "GMT+8";
     private final static String FORMAT_DEFAULT = "yyyy-MM-dd HH:mm:ss";
     private final static String FORMAT_ISO8601_1 = "yyyy-MM-dd'T'HH:mm:ss'Z'";
     private final static String FORMAT_ISO8601_2 = "yyyyMMdd'T'HHmmss'Z'";
     private final static String FORMAT_RFC2616 = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    private final static DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter.ofPattern(FORMAT_DEFAULT);
+    private final static DateTimeFormatter ISO8601_1_FORMATTER = DateTimeFormatter.ofPattern(FORMAT_ISO8601_1)
+                                                                                  .withZone(ZoneOffset.UTC);
+    private final static DateTimeFormatter ISO8601_2_FORMATTER = DateTimeFormatter.ofPattern(FORMAT_ISO8601_2)
+                                                                                  .withZone(ZoneOffset.UTC);
+    private final static DateTimeFormatter RFC2616_FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH)
+                                                                                .withZone(ZoneOffset.UTC);
+    /**
+     * 随机数后缀，同一毫秒内同一线程产生的随机数也不会重复
+     */
+    private final static AtomicLong NONCE_SEQUENCE = new AtomicLong();
 
     public ParameterHelper() {
     }
 
     public static String getTime(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_DEFAULT);
-        return df.format(date);
+        return DEFAULT_FORMATTER.format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
     }
 
+    /**
+     * 64位随机数加自增序号，不使用UUID和 new Random()
+     */
     public static String getUniqueNonce() {
-        StringBuilder uniqueNonce = new StringBuilder();
-        UUID uuid = UUID.randomUUID();
-        uniqueNonce.append(uuid);
-        uniqueNonce.append(System.currentTimeMillis());
-        uniqueNonce.append(Thread.currentThread()
-                                 .getId());
-        uniqueNonce.append(new Random().nextDouble());
-        return uniqueNonce.toString();
+        return Long.toHexString(ThreadLocalRandom.current().nextLong()) + Long.toHexString(NONCE_SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * 正整数随机数
+     */
+    public static long getNumericNonce() {
+        return ThreadLocalRandom.current().nextLong(1, Integer.MAX_VALUE);
     }
 
     public static String getISO8601Time2(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_ISO8601_2);
-        df.setTimeZone(new SimpleTimeZone(0, TIME_ZONE));
-        return df.format(date);
+        return ISO8601_2_FORMATTER.format(date.toInstant());
     }
 
     public static String getISO8601Time1(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_ISO8601_1);
-        df.setTimeZone(new SimpleTimeZone(0, TIME_ZONE));
-        return df.format(date);
+        return ISO8601_1_FORMATTER.format(date.toInstant());
+    }
+
+    /**
+     * 当前时间
+     */
+    public static String getISO8601Time1() {
+        return ISO8601_1_FORMATTER.format(Instant.now());
     }
 
     public static String getRFC2616Date(Date date) {
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_RFC2616, Locale.ENGLISH);
-        df.setTimeZone(new SimpleTimeZone(0, TIME_ZONE));
-        return df.format(date);
+        return RFC2616_FORMATTER.format(date.toInstant());
     }
 
     public static Date parse(String strDate) throws ParseException {
@@ -98,19 +122,22 @@ public class ParameterHelper {
         if (strDate.length() != (FORMAT_ISO8601_1.length() - 4)) {
             return null;
         }
-
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_ISO8601_1);
-        df.setTimeZone(new SimpleTimeZone(0, TIME_ZONE));
-        return df.parse(strDate);
+        return parse(strDate, ISO8601_1_FORMATTER);
     }
 
     public static Date parseRFC2616(String strDate) throws ParseException {
         if (null == strDate || "".equals(strDate) || strDate.length() != FORMAT_RFC2616.length()) {
             return null;
         }
-        SimpleDateFormat df = new SimpleDateFormat(FORMAT_RFC2616, Locale.ENGLISH);
-        df.setTimeZone(new SimpleTimeZone(0, TIME_ZONE));
-        return df.parse(strDate);
+        return parse(strDate, RFC2616_FORMATTER);
+    }
+
+    private static Date parse(String strDate, DateTimeFormatter formatter) throws ParseException {
+        try {
+            return Date.from(Instant.from(formatter.parse(strDate)));
+        } catch (DateTimeParseException e) {
+            throw new ParseException(e.getMessage(), e.getErrorIndex());
+        }
     }
 
 }
@@ -0,0 +1,85 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.util;
+
+import com.gngpp.ddns.config.ConfigProperty;
+import com.gngpp.ddns.config.property.HttpClientProperties;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 出站HTTP客户端注册表，服务商接口、IP查询、Webhook共用同一个连接池，复用长连接与TLS会话
+ *
+ * @author mac
+ * 2022/4/8
+ */
+public final class WebClientRegistry {
+
+    private static final Map<Vertx, WebClient> CLIENT_MAP = new ConcurrentHashMap<>(1);
+
+    private WebClientRegistry() {
+
+    }
+
+    /**
+     * 获取共享的WebClient，同一个Vert.x实例只创建一次
+     *
+     * @param vertx vertx
+     * @return {@link WebClient}
+     */
+    public static WebClient getWebClient(Vertx vertx) {
+        return CLIENT_MAP.computeIfAbsent(vertx, v -> WebClient.create(v, createOptions(ConfigProperty.getHttpClientProperties())));
+    }
+
+    private static WebClientOptions createOptions(HttpClientProperties properties) {
+        final var options = new WebClientOptions().setConnectTimeout(properties.getConnectTimeout())
+                                                  .setReadIdleTimeout(properties.getReadTimeout())
+                                                  .setIdleTimeout(properties.getKeepAliveTimeout())
+                                                  .setKeepAlive(true)
+                                                  .setKeepAliveTimeout(properties.getKeepAliveTimeout())
+                                                  .setTcpKeepAlive(true)
+                                                  .setMaxPoolSize(properties.getMaxPoolSize())
+                                                  .setTryUseCompression(true);
+        if (properties.getHttp2()) {
+            // ALPN协商，服务端不支持HTTP/2时使用HTTP/1.1
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                   .setUseAlpn(true)
+                   .setAlpnVersions(List.of(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1))
+                   .setHttp2MaxPoolSize(properties.getHttp2MaxPoolSize())
+                   .setHttp2MultiplexingLimit(properties.getHttp2MultiplexingLimit())
+                   .setHttp2KeepAliveTimeout(properties.getKeepAliveTimeout());
+        }
+        return options;
+    }
+}
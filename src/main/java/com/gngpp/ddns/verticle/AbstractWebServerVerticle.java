@@ -57,6 +57,7 @@ import org.apache.logging.log4j.Logger;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author mac
@@ -78,6 +79,16 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
     protected AesUtil.AesKey aesKey;
     protected DnsRecordService dnsRecordService;
     protected Boolean notAllowWanAccess = Boolean.TRUE;
+    /**
+     * 安全配置缓存，每个请求都会读取，写入配置时更新
+     */
+    private volatile SecureConfig secureConfig;
+    /**
+     * webhook配置缓存，每条日志通知都会读取，写入配置后失效。
+     * 版本号用于丢弃写入前开始、写入后才完成的读取结果
+     */
+    private volatile WebhookConfig webhookConfig;
+    private final AtomicInteger webhookConfigVersion = new AtomicInteger();
 
     protected synchronized Router getRouter() {
         return router;
@@ -224,7 +235,7 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
     protected Future<Void> newDnsRecordService(List<DnsConfig> dnsConfigList) {
         try {
             if (Objects.isNull(this.dnsRecordService)) {
-                this.dnsRecordService = new DnsRecordServiceImpl(dnsConfigList, this.vertx);
+                this.dnsRecordService = new DnsRecordServiceImpl(dnsConfigList, this.vertx, this.workDir);
             } else {
                 this.dnsRecordService.reloadProviderCredentials(dnsConfigList);
             }
@@ -271,7 +282,11 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
 
     protected Future<Void> writeWebhookConfig(WebhookConfig webhookConfig) {
         final var absolutePath = this.toAbsolutePath(workDir, WEBHOOK_CONFIG_FILENAME);
-        return this.writeJsonToFile(absolutePath, Json.encodePrettily(webhookConfig));
+        return this.writeJsonToFile(absolutePath, Json.encodePrettily(webhookConfig))
+                   .onSuccess(v -> {
+                       this.webhookConfigVersion.incrementAndGet();
+                       this.webhookConfig = null;
+                   });
     }
 
     /**
@@ -291,8 +306,8 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
                                       .compose(v -> newDnsRecordService(dnsConfigList));
                        } else {
                            try {
-                               dnsConfigList.removeIf(config -> dnsConfig.getDnsProviderType()
-                                                                         .equals(config.getDnsProviderType()));
+                               dnsConfigList.removeIf(config -> dnsConfig.getDnsAccount()
+                                                                         .equals(config.getDnsAccount()));
                                dnsConfigList.add(dnsConfig);
                                return this.writeJsonToFile(absolutePath, Json.encodePrettily(dnsConfigList))
                                           .compose(v -> newDnsRecordService(dnsConfigList));
@@ -314,6 +329,7 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
         return this.writeJsonToFile(absolutePath, Json.encodePrettily(secureConfig))
                    .compose(v -> {
                        this.notAllowWanAccess = secureConfig.getNotAllowWanAccess() == null? Boolean.TRUE : Boolean.FALSE;
+                       this.secureConfig = secureConfig;
                        return Future.succeededFuture();
                    });
     }
@@ -373,6 +389,10 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
     }
 
     protected Future<SecureConfig> readSecureConfig() {
+        final var cachedConfig = this.secureConfig;
+        if (cachedConfig != null) {
+            return Future.succeededFuture(cachedConfig);
+        }
         String absolutePath = this.toAbsolutePath(workDir, SECURE_CONFIG_FILENAME);
         return vertx.fileSystem()
                     .readFile(absolutePath)
@@ -387,6 +407,7 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
                             }
                             SecureConfig secureConfig = Json.decodeValue(buffer, SecureConfig.class);
                             this.notAllowWanAccess = secureConfig.getNotAllowWanAccess() == null? Boolean.TRUE : Boolean.FALSE;
+                            this.secureConfig = secureConfig;
                         return Future.succeededFuture(secureConfig);
                     } catch (Exception e) {
                         log.error(e.getMessage(), e.getCause());
@@ -395,8 +416,28 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
                 });
     }
 
+    /**
+     * 读取缓存的webhook配置，调用方不能修改返回的配置
+     */
     @Override
     public Future<WebhookConfig> readWebhookConfig() {
+        final var cachedConfig = this.webhookConfig;
+        if (cachedConfig != null) {
+            return Future.succeededFuture(cachedConfig);
+        }
+        final var version = this.webhookConfigVersion.get();
+        return this.loadWebhookConfig()
+                   .onSuccess(webhookConfig -> {
+                       if (this.webhookConfigVersion.get() == version) {
+                           this.webhookConfig = webhookConfig;
+                       }
+                   });
+    }
+
+    /**
+     * 从文件读取webhook配置，每次返回新的对象，修改后写回
+     */
+    protected Future<WebhookConfig> loadWebhookConfig() {
         String absolutePath = toAbsolutePath(workDir, WEBHOOK_CONFIG_FILENAME);
         return vertx.fileSystem()
                     .readFile(absolutePath)
@@ -492,7 +533,7 @@ public abstract class AbstractWebServerVerticle extends AbstractVerticle impleme
             return readDnsConfig()
                     .compose(ddnsConfigList -> {
                         for (DnsConfig rawConfig : ddnsConfigList) {
-                            if (dnsConfig.getDnsProviderType().equals(rawConfig.getDnsProviderType())) {
+                            if (dnsConfig.getDnsAccount().equals(rawConfig.getDnsAccount())) {
                                 // cloudflare only token is used as access key
                                 if (!dnsConfig.getDnsProviderType().equals(DnsProviderType.CLOUDFLARE)) {
                                     if (this.isHide(rawConfig.getId(), dnsConfig.getId()) && this.isHide(rawConfig.getSecret(), dnsConfig.getSecret())) {
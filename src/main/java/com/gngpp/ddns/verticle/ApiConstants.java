@@ -40,6 +40,8 @@ public interface ApiConstants {
 
     String DDNS_PROVIDER_TYPE = "dnsProviderType";
 
+    String ACCOUNT = "account";
+
     String DOMAIN = "domain";
 
     String RECORD_ID = "recordId";
@@ -50,17 +52,13 @@ public interface ApiConstants {
 
     String CONFIG_SUBJECT_ADDRESS = "config.subject.address";
 
-    String DEFAULT_CONFIG_PERIODIC_ID = "default.config.periodic.id";
+    String SCHEDULER_REFRESH_ADDRESS = "scheduler.refresh.address";
 
-    String RUNNING_CONFIG_ID = "running.config.periodic.id";
+    String RECONCILE_TRIGGER_ADDRESS = "reconcile.trigger.address";
 
     String VERTICLE_PERIODIC_DEPLOY_ID = "verticle.periodic.id";
 
-    String SHARE_MAP_ID = "sockjs.d";
-
-    String SOCKJS_WRITE_HANDLER_ID = "sockjs.write.handler.id";
-
-    String SOCKJS_SELECT_PROVIDER_TYPE = "sockjs.select.provider.type";
+    String LOG_STREAM_ADDRESS = "log.stream.address";
 
     String PERIODIC = "periodicId";
 
@@ -26,22 +26,27 @@
 
 package com.gngpp.ddns.verticle;
 
+import com.gngpp.ddns.config.ConfigProperty;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.pojo.DnsRecordLog;
 import com.gngpp.ddns.verticle.codec.DnsRecordLogMessageCodec;
 import com.gngpp.ddns.verticle.handler.log.LogCacheHandler;
 import com.gngpp.ddns.verticle.handler.webhook.CompositeWebhookHandler;
 import com.gngpp.ddns.verticle.timer.AbstractDnsRecordSubject;
 import com.gngpp.ddns.verticle.timer.DnsRecordObserver;
-import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.verticle.timer.DnsRecordScheduler;
+import com.gngpp.ddns.verticle.timer.NetworkInterfaceMonitor;
+import com.gngpp.ddns.verticle.timer.ReconcileTrigger;
 import com.gngpp.ddns.enums.LogStatus;
+import com.gngpp.ddns.enums.TriggerType;
 import com.gngpp.ddns.util.CollectionUtil;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
-import io.vertx.core.json.Json;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author mac
@@ -50,13 +55,15 @@ import java.util.List;
 public class PeriodicVerticle extends AbstractDnsRecordSubject {
 
     private final Logger log = LogManager.getLogger("[PeriodicVerticle]");
-    private static final long DEFAULT_PERIODIC_TIME = 5 * 60 * 1000;
     private final DnsRecordLogMessageCodec dnsRecordLogMessageCodec = new DnsRecordLogMessageCodec();
-    private final LogCacheHandler<DnsProviderType, DnsRecordLog> consumerHandler;
+    private final LogCacheHandler<DnsAccount, DnsRecordLog> consumerHandler;
     private final CompositeWebhookHandler compositeWebhookHandler;
+    private DnsRecordScheduler scheduler;
+    private NetworkInterfaceMonitor networkMonitor;
+    private ReconcileTrigger reconcileTrigger;
 
     public PeriodicVerticle(DnsRecordObserver observer,
-                            LogCacheHandler<DnsProviderType, DnsRecordLog> logCacheHandler,
+                            LogCacheHandler<DnsAccount, DnsRecordLog> logCacheHandler,
                             CompositeWebhookHandler compositeWebhookHandler) {
         this.addObserver(observer);
         this.consumerHandler = logCacheHandler;
@@ -64,7 +71,7 @@ public class PeriodicVerticle extends AbstractDnsRecordSubject {
     }
 
     public PeriodicVerticle(List<DnsRecordObserver> observers,
-                            LogCacheHandler<DnsProviderType, DnsRecordLog> logCacheHandler,
+                            LogCacheHandler<DnsAccount, DnsRecordLog> logCacheHandler,
                             CompositeWebhookHandler compositeWebhookHandler) {
         this.consumerHandler = logCacheHandler;
         this.compositeWebhookHandler =compositeWebhookHandler;
@@ -80,51 +87,53 @@ public class PeriodicVerticle extends AbstractDnsRecordSubject {
         final var eventBus = vertx.eventBus();
         // custom message codec
         eventBus.registerDefaultCodec(DnsRecordLog.class, this.dnsRecordLogMessageCodec);
-        // local async map
-        final var localAsyncMap = vertx.sharedData()
-                                       .getLocalAsyncMap(ApiConstants.SHARE_MAP_ID);
-        // send dns record resolve log
+        // store dns record resolve log and publish it to the connected log streams
         eventBus.consumer(ApiConstants.CONFIG_SUBJECT_ADDRESS, logResult -> {
             DnsRecordLog recordLog = (DnsRecordLog) logResult.body();
-            localAsyncMap.compose(shareMap -> shareMap.get(ApiConstants.SOCKJS_WRITE_HANDLER_ID))
-                         .compose(writeHandlerId -> this.storeMemoryLog(writeHandlerId, recordLog))
-                         .compose(writeHandlerId -> localAsyncMap.compose(shareMap -> shareMap.get(ApiConstants.SOCKJS_SELECT_PROVIDER_TYPE))
-                                 .compose(providerType -> this.checkDnsProviderType(writeHandlerId, providerType, recordLog)))
-                         .onSuccess(writeHandlerId -> {
-                             if (writeHandlerId != null) {
-                                 eventBus.send(writeHandlerId, Json.encode(recordLog));
-                             }
-                             if (!(recordLog.getLogStatus() == LogStatus.RAW)) {
-                                 this.compositeWebhookHandler.send(recordLog)
-                                         .onSuccess(compositeFuture -> compositeFuture.onFailure(err -> {
-                                             log.error(err);
-                                             eventBus.send(writeHandlerId, Json.encode(err.getMessage()));
-                                         }))
-                                         .onFailure(err -> {
-                                             log.error(err);
-                                             eventBus.send(writeHandlerId, Json.encode(DnsRecordLog.createFailLog(recordLog.getDnsProviderType(), err.getMessage())));
-                                         });
-                             }
-                         })
-                         .onFailure(err -> log.error(err.getMessage(), err.getCause()));
+            this.storeMemoryLog(recordLog)
+                .onSuccess(v -> {
+                    eventBus.publish(ApiConstants.LOG_STREAM_ADDRESS, recordLog);
+                    if (!(recordLog.getLogStatus() == LogStatus.RAW)) {
+                        this.compositeWebhookHandler.send(recordLog)
+                                                    .onSuccess(compositeFuture -> compositeFuture.onFailure(err -> {
+                                                        log.error(err);
+                                                        eventBus.publish(ApiConstants.LOG_STREAM_ADDRESS, DnsRecordLog.errorLog(recordLog.getDnsAccount(), err.getMessage()));
+                                                    }))
+                                                    .onFailure(err -> {
+                                                        log.error(err);
+                                                        eventBus.publish(ApiConstants.LOG_STREAM_ADDRESS, DnsRecordLog.errorLog(recordLog.getDnsAccount(), err.getMessage()));
+                                                    });
+                    }
+                })
+                .onFailure(err -> log.error(err.getMessage(), err.getCause()));
         });
         super.start(startPromise);
     }
 
     @Override
     public void start() throws Exception {
-        final var localAsyncMap = vertx.sharedData().getLocalAsyncMap(ApiConstants.SHARE_MAP_ID);
-        final var periodicId = vertx.setPeriodic(DEFAULT_PERIODIC_TIME, id -> localAsyncMap.compose(shareMap -> shareMap.get(ApiConstants.RUNNING_CONFIG_ID))
-                                                                                           .compose(v -> {
-                                                                                               if (!(v instanceof Boolean bool && bool)) {
-                                                                                                   this.notifyObserver();
-                                                                                                   return Future.succeededFuture();
-                                                                                               } else {
-                                                                                                   return localAsyncMap.compose(shareMap -> shareMap.remove(ApiConstants.RUNNING_CONFIG_ID));
-                                                                                               }
-                                                                                           })
-                                                                                           .onFailure(err -> log.error(err.getMessage(), err.getCause())));
-        context.put(ApiConstants.DEFAULT_CONFIG_PERIODIC_ID, periodicId);
+        final var reconcileProperties = ConfigProperty.getReconcileProperties();
+        this.scheduler = new DnsRecordScheduler(vertx,
+                                                this.observers,
+                                                TimeUnit.SECONDS.toMillis(reconcileProperties.getPeriodicTime()),
+                                                reconcileProperties.getJitterRatio())
+                .dispatchHandler((observer, tasks) -> {
+                    if (tasks.isEmpty()) {
+                        // observers without their own tasks go through the trigger, merged with other sources
+                        ReconcileTrigger.fire(vertx, TriggerType.TIMER, null);
+                    } else {
+                        observer.update(tasks);
+                    }
+                });
+        this.scheduler.refresh();
+        // configuration reloaded
+        vertx.eventBus()
+             .consumer(ApiConstants.SCHEDULER_REFRESH_ADDRESS, message -> this.scheduler.refresh());
+        // ip change, manual, config reload and webhook triggers, coalesced into one reconcile
+        this.reconcileTrigger = new ReconcileTrigger(vertx, this.observers, reconcileProperties.getTriggerDebounce());
+        this.reconcileTrigger.start();
+        this.networkMonitor = new NetworkInterfaceMonitor(vertx, this.observers, TimeUnit.SECONDS.toMillis(reconcileProperties.getNetworkMonitorInterval()));
+        this.networkMonitor.start();
     }
 
     @Override
@@ -132,30 +141,21 @@ public class PeriodicVerticle extends AbstractDnsRecordSubject {
         for (DnsRecordObserver observer : this.observers) {
             this.removeObserver(observer);
         }
-        final var periodicId = context.get(ApiConstants.DEFAULT_CONFIG_PERIODIC_ID);
-        if (vertx.cancelTimer((Long) periodicId)) {
-            log.info("cancel the PeriodicVerticle deployment and cancel the timer!");
+        if (this.networkMonitor != null) {
+            this.networkMonitor.stop();
         }
-    }
-
-    protected Future<String> storeMemoryLog(Object writeHandlerId, DnsRecordLog recordLog) {
-        try {
-            String sendId = (String) writeHandlerId;
-            return this.consumerHandler.add(recordLog.getDnsProviderType(), recordLog)
-                                       .compose(v -> Future.succeededFuture(sendId));
-        } catch (Exception e) {
-            return Future.failedFuture(e.getMessage());
+        if (this.reconcileTrigger != null) {
+            this.reconcileTrigger.stop();
+        }
+        if (this.scheduler != null) {
+            this.scheduler.stop();
+            log.info("cancel the PeriodicVerticle deployment and cancel the scheduler!");
         }
     }
 
-    private Future<String> checkDnsProviderType(String writeHandlerId, Object v, DnsRecordLog dnsRecordLog) {
+    protected Future<Boolean> storeMemoryLog(DnsRecordLog recordLog) {
         try {
-            final var dnsProviderType = (DnsProviderType) v;
-            if (dnsRecordLog.getDnsProviderType()
-                         .check(dnsProviderType)) {
-                return Future.succeededFuture(writeHandlerId);
-            }
-            return Future.succeededFuture();
+            return this.consumerHandler.add(recordLog.getDnsAccount(), recordLog);
         } catch (Exception e) {
             return Future.failedFuture(e.getMessage());
         }
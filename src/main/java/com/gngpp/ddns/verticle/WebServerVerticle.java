@@ -32,9 +32,12 @@ import com.gngpp.ddns.pojo.DnsRecordLog;
 import com.gngpp.ddns.util.*;
 import com.gngpp.ddns.verticle.handler.log.LogCacheHandler;
 import com.gngpp.ddns.verticle.handler.log.LogCacheHandlerImpl;
+import com.gngpp.ddns.verticle.handler.log.LogStreamHub;
 import com.gngpp.ddns.verticle.handler.webhook.CompositeWebhookHandler;
+import com.gngpp.ddns.verticle.provider.impl.BasicAuthenticationProvider;
 import com.gngpp.ddns.verticle.provider.impl.RedirectAuthenticationProvider;
 import com.gngpp.ddns.verticle.provider.impl.UsernamePasswordAuthenticationProvider;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.config.DnsConfig;
 import com.gngpp.ddns.config.SecureConfig;
 import com.gngpp.ddns.config.webhook.DingDingMessage;
@@ -42,13 +45,16 @@ import com.gngpp.ddns.config.webhook.LarkMessage;
 import com.gngpp.ddns.config.webhook.ServerJMessage;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.enums.NicUpdateStatus;
+import com.gngpp.ddns.enums.TriggerType;
 import com.gngpp.ddns.enums.WebhookProviderType;
-import io.vertx.core.Future;
+import com.gngpp.ddns.verticle.timer.ReconcileTrigger;
 import io.vertx.core.Promise;
 import io.vertx.core.http.Cookie;
 import io.vertx.core.http.CookieSameSite;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerRequest;
-import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.client.WebClient;
@@ -56,8 +62,6 @@ import io.vertx.ext.web.handler.*;
 import io.vertx.ext.web.handler.sockjs.SockJSHandler;
 import io.vertx.ext.web.handler.sockjs.SockJSHandlerOptions;
 import io.vertx.ext.web.sstore.LocalSessionStore;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.http.HttpHeaders;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -70,8 +74,24 @@ import java.util.Map;
 public class WebServerVerticle extends AbstractWebServerVerticle {
 
     private final Logger log = LogManager.getLogger("[WebServerVerticle]");
+    private static final String BASIC_AUTH_REALM = "vertx-ddns";
+    /**
+     * 一次 /nic/update 请求最多更新的域名数
+     */
+    private static final int NIC_UPDATE_MAX_HOSTS = 20;
     private WebClient webClient;
-    private LogCacheHandler<DnsProviderType, DnsRecordLog> logCacheHandler;
+    /**
+     * 日志推送合并窗口（毫秒）
+     */
+    private static final long LOG_FLUSH_INTERVAL = 100;
+    /**
+     * 日志补发每页默认条数与上限
+     */
+    private static final int LOG_PAGE_SIZE = 200;
+    private static final int LOG_MAX_PAGE_SIZE = 1000;
+    private LogCacheHandler<DnsAccount, DnsRecordLog> logCacheHandler;
+    private LogStreamHub logStreamHub;
+    private final BasicAuthenticationProvider basicAuthenticationProvider = new BasicAuthenticationProvider(this);
 
     @Override
     public void start(Promise<Void> startPromise) {
@@ -86,7 +106,6 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                                                      .setDirectLoggedInOKURL(ApiConstants.INDEX_PATH)
                                                      .setReturnURLParam(ApiConstants.INDEX_PATH);
         SockJSHandlerOptions options = new SockJSHandlerOptions()
-                .setRegisterWriteHandler(true)
                 .setHeartbeatInterval(2000);
         SockJSHandler sockJSHandler = SockJSHandler.create(vertx, options);
         router.mountSubRouter("/api/logs", this.dnsRecordLogHandler(sockJSHandler));
@@ -145,6 +164,13 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
         router.post("/api/webhook/test")
               .handler(BodyHandler.create())
               .handler(this::sendWebhookTest);
+        // external trigger, e.g. the router reports that the ip has changed
+        router.route("/trigger")
+              .handler(BasicAuthHandler.create(this.basicAuthenticationProvider, BASIC_AUTH_REALM))
+              .handler(this::webhookTriggerHandler);
+        // dyndns2 compatible update, e.g. /nic/update?hostname=home.example.com&myip=1.2.3.4
+        router.get("/nic/update")
+              .handler(this::nicUpdateHandler);
         // obtain the RSA public key
         router.get("/common/rsa/public_key")
               .handler(this::readRsaPublicKeyHandler);
@@ -169,8 +195,12 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
 
     @Override
     public void start() throws Exception {
-        this.webClient = WebClient.create(vertx);
+        this.webClient = WebClientRegistry.getWebClient(vertx);
         this.logCacheHandler = new LogCacheHandlerImpl(vertx);
+        this.logStreamHub = new LogStreamHub(vertx, this.logCacheHandler, LOG_FLUSH_INTERVAL);
+        // 日志由PeriodicVerticle发布，在当前上下文中分发给各个连接
+        this.vertx.eventBus()
+                  .<DnsRecordLog>localConsumer(ApiConstants.LOG_STREAM_ADDRESS, message -> this.logStreamHub.publish(message.body()));
         this.vertx.deployVerticle(new PeriodicVerticle(this.dnsRecordService,
                 this.logCacheHandler,
                 new CompositeWebhookHandler(vertx, this)
@@ -215,7 +245,7 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                     serverJMessage.setUrl(decodeUrl);
                     Validator.of(serverJMessage)
                              .withValidated(v -> HttpUtil.isURL(v.getUrl()), "this is not url");
-                    this.readWebhookConfig()
+                    this.loadWebhookConfig()
                             .compose(webhookConfig -> {
                                 webhookConfig.setServerJMessage(serverJMessage);
                                 return this.writeWebhookConfig(webhookConfig);
@@ -232,7 +262,7 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                     Validator.of(larkMessage)
                             .withValidated(v -> HttpUtil.isURL(v.getUrl()), "this is not url")
                             .withValidated(v -> !StringUtil.isEmpty(v.getSecret()), "title webhook url secret cannot been empty");
-                    this.readWebhookConfig()
+                    this.loadWebhookConfig()
                             .compose(webhookConfig -> {
                                 webhookConfig.setLarkMessage(larkMessage);
                                 return this.writeWebhookConfig(webhookConfig);
@@ -249,7 +279,7 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                     Validator.of(dingDingMessage)
                             .withValidated(v -> HttpUtil.isURL(v.getUrl()), "this is not url")
                             .withValidated(v -> !StringUtil.isEmpty(v.getSecret()), "title webhook url secret cannot been empty");
-                    this.readWebhookConfig()
+                    this.loadWebhookConfig()
                             .compose(webhookConfig -> {
                                 final var dingDingMessageList = webhookConfig.getDingDingMessageList();
                                 dingDingMessageList.removeIf(v -> v.getMsgType().equals(dingDingMessage.getMsgType()));
@@ -285,7 +315,7 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                     final var timestamp = System.currentTimeMillis() / 1000;
                     var stringToSign = timestamp + "\n" + secret;
                     var signData = Signer.getSHA256Signer().signString("", stringToSign);
-                    final var sign = new String(Base64.encodeBase64(signData));
+                    final var sign = Base64Util.encryptToString(signData);
                     final var buffer = ctx.getBodyAsJson()
                             .put("timestamp", timestamp)
                             .put("sign", sign)
@@ -302,10 +332,10 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
                     String stringToSign = timestamp + "\n" + secret;
                     var signData = Signer.getSHA256Signer()
                             .signString(stringToSign, secret);
-                    String sign = ApiURLEncoderUtil.encode(new String(Base64.encodeBase64(signData)));
+                    String sign = ApiURLEncoderUtil.encode(Base64Util.encryptToString(signData));
                     final String completeUrl = url + "&timestamp=" + timestamp + "&sign=" + sign;
                     this.webClient.postAbs(completeUrl)
-                            .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .putHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
                             .sendBuffer(ctx.getBody())
                             .onSuccess(event -> this.routeSuccessHandler(ctx, event.bodyAsString()))
                                   .onFailure(err -> this.routeErrorHandler(ctx, err.getMessage()));
@@ -325,29 +355,33 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
      * @return {@link Router}
      */
     private Router dnsRecordLogHandler(SockJSHandler sockJSHandler) {
-        return sockJSHandler.socketHandler(socket -> vertx.sharedData()
-                                                      .getLocalAsyncMap(ApiConstants.SHARE_MAP_ID)
-                                                      .compose(shareMap -> {
-                                                          socket.handler(providerType -> {
-                                                                    final DnsProviderType dnsProviderType;
-                                                                    try {
-                                                                        dnsProviderType = DnsProviderType.checkType(providerType.toString());
-                                                                    } catch (Exception e) {
-                                                                        socket.write(e.getMessage());
-                                                                        return;
-                                                                    }
-                                                                    this.logCacheHandler.get(dnsProviderType)
-                                                                                        .compose(collection -> shareMap.put(ApiConstants.SOCKJS_SELECT_PROVIDER_TYPE, dnsProviderType)
-                                                                                                                          .compose(v -> socket.write(Json.encodePrettily(collection))))
-                                                                                        .onFailure(err -> log.error(err.getMessage(), err.getCause()));
-                                                                })
-                                                                .exceptionHandler(log::error);
-                                                          if (socket.writeHandlerID() != null) {
-                                                              return shareMap.put(ApiConstants.SOCKJS_WRITE_HANDLER_ID, socket.writeHandlerID());
-                                                          }
-                                                          return Future.failedFuture("No authentication, please log in for authentication");
-                                                      })
-                                                      .onFailure(err -> log.error(err.getMessage(), err.getCause())));
+        return sockJSHandler.socketHandler(socket -> {
+            this.logStreamHub.register(socket);
+            // 请求格式：{"provider":"ALIYUN","account":"default","epoch":1650096550123,"since":10,"limit":200}，兼容只发送服务商类型的旧格式
+            socket.handler(buffer -> {
+                      final DnsAccount dnsAccount;
+                      long epoch = -1;
+                      long since = -1;
+                      int limit = LOG_PAGE_SIZE;
+                      try {
+                          final var request = buffer.toString();
+                          if (request.startsWith("{")) {
+                              final var json = new JsonObject(request);
+                              dnsAccount = DnsAccount.of(DnsProviderType.checkType(json.getString("provider")), json.getString("account"));
+                              epoch = json.getLong("epoch", epoch);
+                              since = json.getLong("since", since);
+                              limit = Math.min(json.getInteger("limit", limit), LOG_MAX_PAGE_SIZE);
+                          } else {
+                              dnsAccount = DnsAccount.of(DnsProviderType.checkType(request), null);
+                          }
+                      } catch (Exception e) {
+                          socket.write(e.getMessage());
+                          return;
+                      }
+                      this.logStreamHub.subscribe(socket, dnsAccount, epoch, since, limit);
+                  })
+                  .exceptionHandler(log::error);
+        });
     }
 
     /**
@@ -417,8 +451,9 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
             final var request = ctx.request();
             final var dnsRecordType = DnsRecordType.checkType(request.getParam(ApiConstants.DNS_RECORD_TYPE));
             final var dnsProviderType = DnsProviderType.checkType(request.getParam(ApiConstants.DDNS_PROVIDER_TYPE));
+            final var dnsAccount = DnsAccount.of(dnsProviderType, request.getParam(ApiConstants.ACCOUNT));
             final var domain = request.getParam(ApiConstants.DOMAIN);
-            this.dnsRecordService.findRecordListAsync(dnsProviderType, domain, dnsRecordType)
+            this.dnsRecordService.findRecordListAsync(dnsAccount, domain, dnsRecordType)
                                  .onSuccess(bool -> this.routeSuccessHandler(ctx, bool))
                                  .onFailure(err -> this.routeBadRequestHandler(ctx, err));
         } catch (Exception e) {
@@ -436,8 +471,9 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
             final var request = ctx.request();
             final var recordId = request.getParam(ApiConstants.RECORD_ID);
             final var dnsProviderType = DnsProviderType.checkType(request.getParam(ApiConstants.DDNS_PROVIDER_TYPE));
+            final var dnsAccount = DnsAccount.of(dnsProviderType, request.getParam(ApiConstants.ACCOUNT));
             final var domain = request.getParam(ApiConstants.DOMAIN);
-            this.dnsRecordService.deleteRecordAsync(dnsProviderType, recordId, domain)
+            this.dnsRecordService.deleteRecordAsync(dnsAccount, recordId, domain)
                                  .onSuccess(bool -> this.routeSuccessHandler(ctx, bool))
                                  .onFailure(err -> this.routeBadRequestHandler(ctx, err));
         } catch (Exception e) {
@@ -451,11 +487,10 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
      * @param ctx routing context
      */
     protected void clearDnsRecordLogHandler(RoutingContext ctx) {
-        final var type = ctx.request()
-                            .getParam("type");
+        final var request = ctx.request();
         try {
-            final var dnsProviderType = DnsProviderType.checkType(type);
-            this.logCacheHandler.clear(dnsProviderType)
+            final var dnsProviderType = DnsProviderType.checkType(request.getParam("type"));
+            this.logCacheHandler.clear(DnsAccount.of(dnsProviderType, request.getParam(ApiConstants.ACCOUNT)))
                                 .onSuccess(event -> this.routeSuccessHandler(ctx))
                                 .onFailure(err -> this.routeErrorHandler(ctx, err.getMessage()));
         } catch (Exception e) {
@@ -470,7 +505,107 @@ public class WebServerVerticle extends AbstractWebServerVerticle {
      * @param ctx routing context
      */
     protected void resolveDnsRecordHandler(RoutingContext ctx) {
-        this.dnsRecordService.update();
+        ReconcileTrigger.fire(vertx, TriggerType.MANUAL, null);
+        this.routeSuccessHandler(ctx);
+    }
+
+    /**
+     * dyndns2 nic update handler, the ip is queued for reconcile and the reply does not wait for the provider
+     *
+     * @param ctx routing context
+     */
+    protected void nicUpdateHandler(RoutingContext ctx) {
+        final var request = ctx.request();
+        final var credentials = this.parseBasicAuthorization(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (credentials == null) {
+            this.nicUpdateResponse(ctx, 401, NicUpdateStatus.BADAUTH.toString());
+            return;
+        }
+        this.basicAuthenticationProvider.authenticate(credentials, ar -> {
+            if (ar.failed()) {
+                this.nicUpdateResponse(ctx, 401, NicUpdateStatus.BADAUTH.toString());
+                return;
+            }
+            final var hostnames = request.getParam("hostname");
+            final var myip = request.getParam("myip");
+            final var ip = StringUtil.isEmpty(myip) ? HttpUtil.getIpAddress(request) : myip.trim();
+            final DnsRecordType dnsRecordType;
+            if (HttpUtil.isIp(ip)) {
+                dnsRecordType = DnsRecordType.A;
+            } else if (HttpUtil.isIpv6(ip)) {
+                dnsRecordType = DnsRecordType.AAAA;
+            } else {
+                // an invalid myip is a bad request, an unusable remote address is our side
+                this.nicUpdateResponse(ctx, 400, (StringUtil.isEmpty(myip) ? NicUpdateStatus.DNSERR : NicUpdateStatus.BADAGENT).toString());
+                return;
+            }
+            if (StringUtil.isEmpty(hostnames)) {
+                this.nicUpdateResponse(ctx, 400, NicUpdateStatus.NOTFQDN.toString());
+                return;
+            }
+            final var hostnameArray = hostnames.split(",");
+            if (hostnameArray.length > NIC_UPDATE_MAX_HOSTS) {
+                this.nicUpdateResponse(ctx, 400, NicUpdateStatus.NUMHOST.toString());
+                return;
+            }
+            final var body = new StringBuilder(hostnameArray.length * 24);
+            try {
+                for (String hostname : hostnameArray) {
+                    final var status = this.dnsRecordService.pushRecordIp(hostname.trim(), ip, dnsRecordType);
+                    if (body.length() > 0) {
+                        body.append('\n');
+                    }
+                    body.append(status);
+                    if (status == NicUpdateStatus.GOOD || status == NicUpdateStatus.NOCHG) {
+                        body.append(' ')
+                            .append(ip);
+                    }
+                }
+            } catch (Exception e) {
+                LogUtil.printInfo(log, e.getMessage(), e);
+                this.nicUpdateResponse(ctx, 500, NicUpdateStatus.SERVER_ERROR.toString());
+                return;
+            }
+            this.nicUpdateResponse(ctx, 200, body.toString());
+        });
+    }
+
+    private JsonObject parseBasicAuthorization(String authorization) {
+        if (authorization == null || authorization.length() <= 6 || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        try {
+            final var decoded = Base64Util.decryptToString(authorization.substring(6)
+                                                                        .trim());
+            final var index = decoded.indexOf(':');
+            if (index == -1) {
+                return null;
+            }
+            return new JsonObject().put("username", decoded.substring(0, index))
+                                   .put("password", decoded.substring(index + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void nicUpdateResponse(RoutingContext ctx, int statusCode, String body) {
+        final var response = ctx.response()
+                                .setStatusCode(statusCode)
+                                .putHeader(HttpHeaders.CONTENT_TYPE, "text/plain; charset=utf-8")
+                                .putHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (statusCode == 401) {
+            response.putHeader("WWW-Authenticate", "Basic realm=\"" + BASIC_AUTH_REALM + "\"");
+        }
+        response.end(body);
+    }
+
+    /**
+     * external webhook trigger handler
+     *
+     * @param ctx routing context
+     */
+    protected void webhookTriggerHandler(RoutingContext ctx) {
+        ReconcileTrigger.fire(vertx, TriggerType.WEBHOOK, HttpUtil.getIpAddress(ctx.request()));
         this.routeSuccessHandler(ctx);
     }
 
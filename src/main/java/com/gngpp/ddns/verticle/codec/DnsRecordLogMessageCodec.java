@@ -26,33 +26,71 @@
 
 package com.gngpp.ddns.verticle.codec;
 
+import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.enums.LogStatus;
 import com.gngpp.ddns.pojo.DnsRecordLog;
-import io.netty.util.CharsetUtil;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
-import io.vertx.core.json.Json;
 
 import java.nio.charset.StandardCharsets;
 
 /**
+ * 二进制编码，格式：
+ * <pre>
+ * version(1) | provider(1) | status(1) | timestamp(varint) | seq(varint) | epoch(varint) | domainOrMessage | targetIp | sourceIp | content | account
+ * </pre>
+ * 枚举按序号+1编码，0表示null；时间戳、seq、epoch按varint编码+1，0表示null；
+ * 字符串为varint(UTF-8字节长度+1)加字节，0表示null。content只在显式设置时写入，其余由原始字段生成
+ *
  * @author mac
  * 2021/8/17 星期二 3:18 上午
  */
 public class DnsRecordLogMessageCodec implements MessageCodec<DnsRecordLog, DnsRecordLog> {
+
+    private static final byte VERSION = 1;
+    private static final DnsProviderType[] PROVIDER_TYPES = DnsProviderType.values();
+    private static final LogStatus[] LOG_STATUSES = LogStatus.values();
+
     @Override
     public void encodeToWire(Buffer buffer, DnsRecordLog dnsRecordLog) {
-        final var jsonString = Json.encodePrettily(dnsRecordLog);
-        buffer.appendInt(jsonString.length());
-        buffer.appendBytes(jsonString.getBytes(StandardCharsets.UTF_8));
+        buffer.appendByte(VERSION);
+        buffer.appendByte(ordinal(dnsRecordLog.getDnsProviderType()));
+        buffer.appendByte(ordinal(dnsRecordLog.getLogStatus()));
+        final var timestamp = dnsRecordLog.getTimestamp();
+        appendVarLong(buffer, timestamp == null ? 0 : timestamp + 1);
+        final var seq = dnsRecordLog.getSeq();
+        appendVarLong(buffer, seq == null ? 0 : seq + 1);
+        final var epoch = dnsRecordLog.getEpoch();
+        appendVarLong(buffer, epoch == null ? 0 : epoch + 1);
+        appendString(buffer, dnsRecordLog.getDomainOrMessage());
+        appendString(buffer, dnsRecordLog.getTargetIp());
+        appendString(buffer, dnsRecordLog.getSourceIp());
+        appendString(buffer, dnsRecordLog.getExplicitContent());
+        appendString(buffer, dnsRecordLog.getAccount());
     }
 
     @Override
     public DnsRecordLog decodeFromWire(int pos, Buffer buffer) {
-        final var length = buffer.getInt(pos);
-        pos += 4;
-        final var bytes = buffer.getBytes(pos, pos + length);
-        final var jsonString = new String(bytes, CharsetUtil.UTF_8);
-        return Json.decodeValue(jsonString, DnsRecordLog.class);
+        final var version = buffer.getByte(pos);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported DnsRecordLog codec version: " + version);
+        }
+        final var cursor = new int[]{pos + 1};
+        final var dnsProviderType = valueOf(PROVIDER_TYPES, buffer.getByte(cursor[0]++));
+        final var logStatus = valueOf(LOG_STATUSES, buffer.getByte(cursor[0]++));
+        final var timestamp = readVarLong(buffer, cursor);
+        final var seq = readVarLong(buffer, cursor);
+        final var epoch = readVarLong(buffer, cursor);
+        return new DnsRecordLog().setDnsProviderType(dnsProviderType)
+                                  .setLogStatus(logStatus)
+                                  .setTimestamp(timestamp == 0 ? null : timestamp - 1)
+                                  .setSeq(seq == 0 ? null : seq - 1)
+                                  .setEpoch(epoch == 0 ? null : epoch - 1)
+                                  .setDomainOrMessage(readString(buffer, cursor))
+                                  .setTargetIp(readString(buffer, cursor))
+                                  .setSourceIp(readString(buffer, cursor))
+                                  .setContent(readString(buffer, cursor))
+                                  .setAccount(readString(buffer, cursor));
     }
 
     @Override
@@ -69,4 +107,55 @@ public class DnsRecordLogMessageCodec implements MessageCodec<DnsRecordLog, DnsR
     public byte systemCodecID() {
         return -1;
     }
+
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static <E> E valueOf(E[] values, byte ordinal) {
+        if (ordinal <= 0 || ordinal > values.length) {
+            return null;
+        }
+        return values[ordinal - 1];
+    }
+
+    private static void appendString(Buffer buffer, String value) {
+        if (value == null) {
+            buffer.appendByte((byte) 0);
+            return;
+        }
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        appendVarLong(buffer, bytes.length + 1L);
+        buffer.appendBytes(bytes);
+    }
+
+    private static String readString(Buffer buffer, int[] cursor) {
+        final var length = (int) readVarLong(buffer, cursor);
+        if (length == 0) {
+            return null;
+        }
+        final var start = cursor[0];
+        cursor[0] += length - 1;
+        return buffer.getString(start, cursor[0], StandardCharsets.UTF_8.name());
+    }
+
+    private static void appendVarLong(Buffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.appendByte((byte) value);
+    }
+
+    private static long readVarLong(Buffer buffer, int[] cursor) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.getByte(cursor[0]++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
 }
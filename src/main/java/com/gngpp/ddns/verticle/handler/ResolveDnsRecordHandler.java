@@ -26,8 +26,8 @@
 
 package com.gngpp.ddns.verticle.handler;
 
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.config.DnsConfig;
-import com.gngpp.ddns.enums.DnsProviderType;
 
 /**
  * @author ant
@@ -35,8 +35,8 @@ import com.gngpp.ddns.enums.DnsProviderType;
  */
 public interface ResolveDnsRecordHandler {
 
-    void resolveDnsRecordForIpv4(DnsProviderType dnsProviderType, DnsConfig.Ipv4Config ipv4Config);
+    void resolveDnsRecordForIpv4(DnsAccount dnsAccount, DnsConfig.Ipv4Config ipv4Config);
 
-    void resolveDnsRecordForIpv6(DnsProviderType dnsProviderType, DnsConfig.Ipv6Config ipv6Config);
+    void resolveDnsRecordForIpv6(DnsAccount dnsAccount, DnsConfig.Ipv6Config ipv6Config);
 
 }
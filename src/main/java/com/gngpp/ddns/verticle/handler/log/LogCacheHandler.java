@@ -29,6 +29,7 @@ package com.gngpp.ddns.verticle.handler.log;
 import io.vertx.core.Future;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author mac
@@ -40,6 +41,11 @@ public interface LogCacheHandler<K, V> {
 
     Future<Collection<V>> get(K k);
 
+    /**
+     * 按游标分页读取，返回序号大于since的日志，最多limit条，epoch与当前不一致时从头读取
+     */
+    Future<List<V>> get(K k, long epoch, long since, int limit);
+
     Future<Void> clear(K k);
 
 }
@@ -26,50 +26,53 @@
 
 package com.gngpp.ddns.verticle.handler.log;
 
+import com.gngpp.ddns.config.ConfigProperty;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.pojo.DnsRecordLog;
 import com.gngpp.ddns.cache.AbstractMemoryLogCache;
 import com.gngpp.ddns.cache.MemoryLogCache;
-import com.gngpp.ddns.enums.DnsProviderType;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * @author mac
  * 2021/8/26 星期四 9:03 下午
  */
-public class LogCacheHandlerImpl implements LogCacheHandler<DnsProviderType, DnsRecordLog> {
+public class LogCacheHandlerImpl implements LogCacheHandler<DnsAccount, DnsRecordLog> {
 
-    private final AbstractMemoryLogCache<DnsProviderType, DnsRecordLog> memoryLogCache;
+    private final AbstractMemoryLogCache<DnsAccount, DnsRecordLog> memoryLogCache;
     private final Vertx vertx;
 
     public LogCacheHandlerImpl(Vertx vertx) {
-        this.memoryLogCache = new MemoryLogCache(10_000, 5, TimeUnit.HOURS);
+        final var logProperties = ConfigProperty.getLogProperties();
+        this.memoryLogCache = new MemoryLogCache(logProperties.getCapacity(), logProperties.getMaxAge(), TimeUnit.MINUTES);
         this.vertx = vertx;
     }
 
     @Override
-    public Future<Void> clear(DnsProviderType dnsProviderType) {
-        final var completableFuture = this.memoryLogCache.get(dnsProviderType);
-        return Future.fromCompletionStage(completableFuture, vertx.getOrCreateContext())
-                     .compose(v -> {
-                         v.clear();
-                         return Future.succeededFuture();
-                     });
+    public Future<Void> clear(DnsAccount dnsAccount) {
+        this.memoryLogCache.remove(dnsAccount);
+        return Future.succeededFuture();
     }
 
     @Override
-    public Future<Boolean> add(DnsProviderType dnsProviderType, DnsRecordLog dnsRecordLog) {
-        return this.get(dnsProviderType)
-                   .compose(v -> Future.succeededFuture(v.add(dnsRecordLog)));
+    public Future<Boolean> add(DnsAccount dnsAccount, DnsRecordLog dnsRecordLog) {
+        this.memoryLogCache.store(dnsAccount, dnsRecordLog);
+        return Future.succeededFuture(Boolean.TRUE);
     }
 
     @Override
-    public Future<Collection<DnsRecordLog>> get(DnsProviderType dnsProviderType) {
-        final var completableFuture = this.memoryLogCache.get(dnsProviderType);
-        return Future.fromCompletionStage(completableFuture, vertx.getOrCreateContext());
+    public Future<Collection<DnsRecordLog>> get(DnsAccount dnsAccount) {
+        return Future.succeededFuture(this.memoryLogCache.get(dnsAccount));
+    }
+
+    @Override
+    public Future<List<DnsRecordLog>> get(DnsAccount dnsAccount, long epoch, long since, int limit) {
+        return Future.succeededFuture(this.memoryLogCache.get(dnsAccount, epoch, since, limit));
     }
 
 }
@@ -0,0 +1,232 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.handler.log;
+
+import com.gngpp.ddns.config.DnsAccount;
+import com.gngpp.ddns.pojo.DnsRecordLog;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.handler.sockjs.SockJSSocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 日志推送中心，每个SockJS连接独立订阅服务商账号的日志。
+ * 订阅时从客户端游标开始分页补发历史日志，补发完成后接着推送实时日志，重连只需补发断开期间的日志。
+ * 同一时间窗口内的日志合并为一帧发送，连接写队列已满时暂存，超过上限丢弃最旧的日志。
+ * 只在所属verticle的上下文中调用，无需加锁
+ *
+ * @author mac
+ * @date 2022/4/14
+ */
+public class LogStreamHub {
+
+    /**
+     * 每个连接最多暂存的日志数量
+     */
+    private static final int MAX_PENDING = 500;
+    private final Vertx vertx;
+    private final LogCacheHandler<DnsAccount, DnsRecordLog> logCacheHandler;
+    private final long flushInterval;
+    private final Map<SockJSSocket, Subscriber> subscribers = new HashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param vertx           vertx
+     * @param logCacheHandler 日志缓存，用于补发历史日志
+     * @param flushInterval   合并发送的时间窗口（毫秒）
+     */
+    public LogStreamHub(Vertx vertx, LogCacheHandler<DnsAccount, DnsRecordLog> logCacheHandler, long flushInterval) {
+        this.vertx = vertx;
+        this.logCacheHandler = logCacheHandler;
+        this.flushInterval = Math.max(1, flushInterval);
+    }
+
+    /**
+     * 注册连接，选择账号之前不推送日志
+     *
+     * @param socket SockJS连接
+     */
+    public void register(SockJSSocket socket) {
+        this.subscribers.put(socket, new Subscriber(socket));
+        socket.closeHandler(v -> this.subscribers.remove(socket));
+    }
+
+    /**
+     * 切换连接订阅的服务商账号，分页补发序号大于since的历史日志后转为实时推送，
+     * epoch与当前不一致（服务已重启）时补发全部
+     *
+     * @param socket          SockJS连接
+     * @param dnsAccount      服务商账号
+     * @param epoch           客户端游标所属的序号空间，-1表示未知
+     * @param since           客户端已收到的最后一条日志序号，-1表示全部
+     * @param pageSize        每帧补发的日志数量
+     */
+    public void subscribe(SockJSSocket socket, DnsAccount dnsAccount, long epoch, long since, int pageSize) {
+        final var subscriber = this.subscribers.get(socket);
+        if (subscriber == null) {
+            return;
+        }
+        subscriber.dnsAccount = dnsAccount;
+        subscriber.epoch = epoch;
+        subscriber.cursor = since;
+        subscriber.replaying = true;
+        subscriber.generation++;
+        subscriber.pending.clear();
+        subscriber.dropped = 0;
+        this.replay(subscriber, subscriber.generation, Math.max(1, pageSize));
+    }
+
+    private void replay(Subscriber subscriber, int generation, int pageSize) {
+        // 已重新订阅或连接已关闭
+        if (subscriber.generation != generation || this.subscribers.get(subscriber.socket) != subscriber) {
+            return;
+        }
+        if (subscriber.socket.writeQueueFull()) {
+            subscriber.onDrain(() -> this.replay(subscriber, generation, pageSize));
+            return;
+        }
+        this.logCacheHandler.get(subscriber.dnsAccount, subscriber.epoch, subscriber.cursor, pageSize)
+                            .onSuccess(page -> {
+                                if (subscriber.generation != generation) {
+                                    return;
+                                }
+                                if (!page.isEmpty()) {
+                                    final var last = page.get(page.size() - 1);
+                                    subscriber.epoch = last.getEpoch();
+                                    subscriber.cursor = last.getSeq();
+                                    subscriber.socket.write(Json.encode(page));
+                                }
+                                if (page.size() < pageSize) {
+                                    // 已追上，补发期间写入的日志已包含在最后一页中，之后由实时推送按游标去重
+                                    subscriber.replaying = false;
+                                } else {
+                                    this.vertx.runOnContext(v -> this.replay(subscriber, generation, pageSize));
+                                }
+                            })
+                            .onFailure(err -> subscriber.replaying = false);
+    }
+
+    public void publish(DnsRecordLog dnsRecordLog) {
+        var matched = false;
+        for (Subscriber subscriber : this.subscribers.values()) {
+            if (subscriber.dnsAccount != null && subscriber.dnsAccount.equals(dnsRecordLog.getDnsAccount())) {
+                subscriber.offer(dnsRecordLog);
+                matched = true;
+            }
+        }
+        if (matched && !this.flushScheduled) {
+            this.flushScheduled = true;
+            this.vertx.setTimer(this.flushInterval, id -> {
+                this.flushScheduled = false;
+                this.subscribers.values()
+                                .forEach(Subscriber::flush);
+            });
+        }
+    }
+
+    public int size() {
+        return this.subscribers.size();
+    }
+
+    private static class Subscriber {
+
+        private final SockJSSocket socket;
+        private final ArrayDeque<DnsRecordLog> pending = new ArrayDeque<>();
+        private DnsAccount dnsAccount;
+        /**
+         * 游标所属的序号空间
+         */
+        private long epoch = -1;
+        /**
+         * 已发送的最后一条日志序号
+         */
+        private long cursor = -1;
+        private boolean replaying;
+        private int generation;
+        private int dropped;
+        private boolean awaitingDrain;
+
+        private Subscriber(SockJSSocket socket) {
+            this.socket = socket;
+        }
+
+        private void offer(DnsRecordLog dnsRecordLog) {
+            final var seq = dnsRecordLog.getSeq();
+            if (seq != null) {
+                // 补发中由分页读取
+                if (this.replaying) {
+                    return;
+                }
+                // 游标属于重启前的序号空间时不能按序号去重
+                final var epoch = dnsRecordLog.getEpoch();
+                if (epoch != null && epoch != this.epoch) {
+                    this.epoch = epoch;
+                } else if (seq <= this.cursor) {
+                    return;
+                }
+                this.cursor = seq;
+            }
+            if (this.pending.size() >= MAX_PENDING) {
+                this.pending.pollFirst();
+                this.dropped++;
+            }
+            this.pending.addLast(dnsRecordLog);
+        }
+
+        private void flush() {
+            if (this.pending.isEmpty() || this.awaitingDrain) {
+                return;
+            }
+            // 客户端处理慢，等写队列排空后再发送
+            if (this.socket.writeQueueFull()) {
+                this.onDrain(this::flush);
+                return;
+            }
+            final var frame = new ArrayList<DnsRecordLog>(this.pending.size() + 1);
+            if (this.dropped > 0) {
+                frame.add(DnsRecordLog.errorLog(this.dnsAccount, "推送过慢，已丢弃 " + this.dropped + " 条日志"));
+                this.dropped = 0;
+            }
+            frame.addAll(this.pending);
+            this.pending.clear();
+            this.socket.write(Json.encode(frame));
+        }
+
+        private void onDrain(Runnable action) {
+            this.awaitingDrain = true;
+            this.socket.drainHandler(v -> {
+                this.awaitingDrain = false;
+                action.run();
+            });
+        }
+    }
+}
@@ -36,11 +36,11 @@ import com.gngpp.ddns.config.webhook.DingDingMessage;
 import com.gngpp.ddns.config.webhook.LarkMessage;
 import com.gngpp.ddns.config.webhook.ServerJMessage;
 import com.gngpp.ddns.util.CollectionUtil;
+import com.gngpp.ddns.util.WebClientRegistry;
 import com.gngpp.ddns.verticle.handler.spi.WebhookHandler;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
-import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -67,7 +67,7 @@ public class CompositeWebhookHandler {
 
     public CompositeWebhookHandler(Vertx vertx, WebhookProvider webhookProvider) {
         this.webhookProvider = webhookProvider;
-        final var webClient = WebClient.create(vertx);
+        final var webClient = WebClientRegistry.getWebClient(vertx);
         final var serviceLoader = ServiceLoader.load(WebhookHandler.class);
         for (WebhookHandler webhookHandler : serviceLoader) {
             webhookHandler.initClient(webClient);
@@ -76,19 +76,21 @@ public class CompositeWebhookHandler {
     }
 
 
+    /**
+     * 配置来自缓存，每条消息复制后再渲染模板和发送，不修改缓存的配置
+     */
     public Future<CompositeFuture> send(DnsRecordLog dnsRecordLog) {
         return this.webhookProvider.readWebhookConfig()
-                                   .compose(webhookConfig -> this.compositeExpressionParser(dnsRecordLog, webhookConfig))
-                                   .compose(this::compositeSend);
+                                   .compose(webhookConfig -> this.compositeSend(dnsRecordLog, webhookConfig));
     }
 
-    private Future<CompositeFuture> compositeSend(WebhookConfig webhookConfig) {
+    private Future<CompositeFuture> compositeSend(DnsRecordLog dnsRecordLog, WebhookConfig webhookConfig) {
         List<Future> futureList = new ArrayList<>();
         for (WebhookHandler webhookHandler : this.webhookHandlerList) {
             if (webhookHandler instanceof ServerJWebhookHandler serverJWebhookHandler) {
                 final var serverJMessage = webhookConfig.getServerJMessage();
                 if (serverJMessage != null && serverJMessage.getEnabled()) {
-                    futureList.add(serverJWebhookHandler.send(serverJMessage));
+                    futureList.add(serverJWebhookHandler.send(this.expressionParser(dnsRecordLog, serverJMessage.copy())));
                 }
             }
             if (webhookHandler instanceof DingDingWebhookHandler dingDingWebhookHandler) {
@@ -96,7 +98,7 @@ public class CompositeWebhookHandler {
                 if (!CollectionUtil.isEmpty(dingDingMessageList)) {
                     for (DingDingMessage dingDingMessage : dingDingMessageList) {
                         if (dingDingMessage != null && dingDingMessage.getEnabled()) {
-                            futureList.add(dingDingWebhookHandler.send(dingDingMessage));
+                            futureList.add(dingDingWebhookHandler.send(this.expressionParser(dnsRecordLog, dingDingMessage.copy())));
                         }
                     }
                 }
@@ -104,34 +106,14 @@ public class CompositeWebhookHandler {
             if (webhookHandler instanceof LarkWebhookHandler larkWebhookHandler) {
                 final var larkMessage = webhookConfig.getLarkMessage();
                 if (larkMessage != null && larkMessage.getEnabled()) {
-                    futureList.add(larkWebhookHandler.send(larkMessage));
+                    futureList.add(larkWebhookHandler.send(this.expressionParser(dnsRecordLog, larkMessage.copy())));
                 }
             }
         }
         return Future.succeededFuture(CompositeFuture.all(futureList));
     }
 
-    private Future<WebhookConfig> compositeExpressionParser(DnsRecordLog dnsRecordLog, WebhookConfig webhookConfig) {
-        final var serverJMessage = webhookConfig.getServerJMessage();
-        if (serverJMessage != null) {
-            this.expressionParser(dnsRecordLog, serverJMessage);
-        }
-        final var dingDingMessageList = webhookConfig.getDingDingMessageList();
-        if (!CollectionUtil.isEmpty(dingDingMessageList)) {
-            for (DingDingMessage dingDingMessage : dingDingMessageList) {
-                this.expressionParser(dnsRecordLog, dingDingMessage);
-            }
-        }
-        final var larkMessage = webhookConfig.getLarkMessage();
-        if (larkMessage != null) {
-            this.expressionParser(dnsRecordLog, larkMessage);
-        }
-        return Future.succeededFuture(webhookConfig);
-    }
-
-
-
-    private void expressionParser(DnsRecordLog dnsRecordLog, BaseMessage baseMessage) {
+    private <T extends BaseMessage> T expressionParser(DnsRecordLog dnsRecordLog, T baseMessage) {
         switch (baseMessage.getWebhookProviderType()) {
             case DING_DING -> {
                 DingDingMessage dingDingMessage = (DingDingMessage) baseMessage;
@@ -164,5 +146,6 @@ public class CompositeWebhookHandler {
                 larkMessage.getContent().setText(parserContent);
             }
         }
+        return baseMessage;
     }
 }
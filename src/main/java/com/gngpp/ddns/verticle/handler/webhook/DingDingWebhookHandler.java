@@ -28,13 +28,13 @@ package com.gngpp.ddns.verticle.handler.webhook;
 
 import com.gngpp.ddns.api.signer.algorithm.Signer;
 import com.gngpp.ddns.util.ApiURLEncoderUtil;
+import com.gngpp.ddns.util.Base64Util;
 import com.gngpp.ddns.config.webhook.DingDingMessage;
 import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.client.HttpResponse;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.http.HttpHeaders;
 
 /**
  * @author mac
@@ -54,7 +54,7 @@ public class DingDingWebhookHandler extends AbstractWebhookHandler<DingDingMessa
         final var signUrl = this.signUrl(dingDingMessage.getSecret(), dingDingMessage.getUrl());
         this.clearPrivacy(dingDingMessage);
         return super.client.postAbs(signUrl)
-                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .putHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
                 .sendBuffer(Json.encodeToBuffer(dingDingMessage));
     }
 
@@ -63,7 +63,7 @@ public class DingDingWebhookHandler extends AbstractWebhookHandler<DingDingMessa
         String stringToSign = timestamp + "\n" + secret;
         var signData = Signer.getSHA256Signer()
                              .signString(stringToSign, secret);
-        String sign = ApiURLEncoderUtil.encode(new String(Base64.encodeBase64(signData)));
+        String sign = ApiURLEncoderUtil.encode(Base64Util.encryptToString(signData));
         return url + "&timestamp=" + timestamp + "&sign=" + sign;
     }
 
@@ -28,12 +28,12 @@ package com.gngpp.ddns.verticle.handler.webhook;
 
 import com.gngpp.ddns.api.signer.algorithm.Signer;
 import com.gngpp.ddns.config.webhook.LarkMessage;
+import com.gngpp.ddns.util.Base64Util;
 import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.client.HttpResponse;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.http.HttpHeaders;
 
 /**
  * @author mac
@@ -60,14 +60,14 @@ public class LarkWebhookHandler extends AbstractWebhookHandler<LarkMessage> {
                 .put("timestamp", timeMillis)
                 .put("sign", sign).toBuffer();
         return super.client.postAbs(url)
-                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .putHeader(HttpHeaders.CONTENT_TYPE.toString(), "application/json")
                 .sendBuffer(buffer);
     }
 
     private String genSign(String secret, long timestamp) {
         var stringToSign = timestamp + "\n" + secret;
         var signData = Signer.getSHA256Signer().signString("", stringToSign);
-        return new String(Base64.encodeBase64(signData));
+        return Base64Util.encryptToString(signData);
     }
 
     @Override
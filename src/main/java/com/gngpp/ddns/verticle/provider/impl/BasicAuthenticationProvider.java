@@ -0,0 +1,80 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.provider.impl;
+
+import com.gngpp.ddns.verticle.provider.SecureProvider;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.AuthenticationProvider;
+import io.vertx.ext.auth.impl.UserImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * HTTP Basic 认证，用于路由器等外部客户端调用，用户名和密码为明文，与登录配置比较
+ *
+ * @author mac
+ * 2022/4/11
+ */
+public record BasicAuthenticationProvider(
+        SecureProvider secureProvider) implements AuthenticationProvider {
+
+    private static final String usernameKey = "username";
+    private static final String passwordKey = "password";
+
+    @Override
+    public void authenticate(JsonObject credentials, Handler<AsyncResult<User>> resultHandler) {
+        this.secureProvider.readLoginConfig()
+                           .compose(loginConfig -> this.checkUser(loginConfig, credentials))
+                           .onComplete(resultHandler);
+    }
+
+    private Future<User> checkUser(Map<String, String> usernamePassword, JsonObject credentials) {
+        final var username = credentials.getString(usernameKey);
+        final var password = credentials.getString(passwordKey);
+        // compare both in constant time, a mismatch must not leak which one was wrong
+        final var usernameMatch = equals(usernamePassword.get(usernameKey), username);
+        final var passwordMatch = equals(usernamePassword.get(passwordKey), password);
+        if (usernameMatch & passwordMatch) {
+            return Future.succeededFuture(new UserImpl(new JsonObject().put(usernameKey, username)));
+        }
+        return Future.failedFuture("wrong user name or password!");
+    }
+
+    private static boolean equals(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
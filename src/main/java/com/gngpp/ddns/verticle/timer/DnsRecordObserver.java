@@ -26,6 +26,13 @@
 
 package com.gngpp.ddns.verticle.timer;
 
+import com.gngpp.ddns.enums.TriggerType;
+import io.vertx.core.Future;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * @author mac
  * 2021/8/11 星期三 9:52 下午
@@ -34,4 +41,33 @@ public interface DnsRecordObserver {
 
     void update();
 
+    /**
+     * 需要调度的任务，为空时按默认间隔调用 {@link #update()}
+     *
+     * @return {@link Collection<DnsRecordTask>}
+     */
+    default Collection<DnsRecordTask> tasks() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 执行到期的任务
+     *
+     * @param tasks 到期任务
+     * @return 执行完成的 {@link Future}
+     */
+    default Future<Void> update(Collection<DnsRecordTask> tasks) {
+        this.update();
+        return Future.succeededFuture();
+    }
+
+    /**
+     * 由 {@link ReconcileTrigger} 合并后的触发事件，默认同步全部任务
+     *
+     * @param triggerTypes 合并的触发来源
+     */
+    default void triggered(Set<TriggerType> triggerTypes) {
+        this.update();
+    }
+
 }
@@ -0,0 +1,220 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer;
+
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+/**
+ * 按下次执行时间排序的任务调度器，支持每个配置独立的同步间隔、随机抖动，
+ * 以及将同一间隔内的任务均匀分散执行。非线程安全，只能在所属verticle的context中调用
+ *
+ * @author mac
+ * 2022/4/3
+ */
+public class DnsRecordScheduler {
+
+    private final Logger log = LogManager.getLogger("[DnsRecordScheduler]");
+
+    /**
+     * 在该窗口内到期的任务合并为一次执行
+     */
+    private static final long COALESCE_WINDOW = 1000;
+
+    /**
+     * 最小执行间隔
+     */
+    private static final long MIN_INTERVAL = 1000;
+
+    private final Vertx vertx;
+    private final Collection<DnsRecordObserver> observers;
+    private final long defaultInterval;
+    private final double jitterRatio;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.dueTime));
+    private final Map<String, Entry> entryMap = new HashMap<>();
+    private BiConsumer<DnsRecordObserver, Collection<DnsRecordTask>> dispatchHandler = DnsRecordScheduler::dispatch;
+    private long timerId = -1;
+    private long timerDueTime = Long.MAX_VALUE;
+
+    public DnsRecordScheduler(Vertx vertx, Collection<DnsRecordObserver> observers, long defaultInterval, double jitterRatio) {
+        this.vertx = vertx;
+        this.observers = observers;
+        this.defaultInterval = Math.max(defaultInterval, MIN_INTERVAL);
+        this.jitterRatio = Math.max(0, Math.min(jitterRatio, 0.5));
+    }
+
+    public DnsRecordScheduler dispatchHandler(BiConsumer<DnsRecordObserver, Collection<DnsRecordTask>> dispatchHandler) {
+        this.dispatchHandler = dispatchHandler;
+        return this;
+    }
+
+    /**
+     * 重新拉取观察者的任务，已存在的任务保留原执行时间但替换为新任务（配置可能已修改），新任务在其间隔内均匀分散
+     */
+    public void refresh() {
+        final var now = System.currentTimeMillis();
+        final var retained = new HashSet<String>();
+        final var addedMap = new TreeMap<Long, List<Entry>>();
+        for (DnsRecordObserver observer : this.observers) {
+            final var tasks = observer.tasks();
+            if (tasks.isEmpty()) {
+                final var key = "observer@" + System.identityHashCode(observer);
+                retained.add(key);
+                if (!this.entryMap.containsKey(key)) {
+                    addedMap.computeIfAbsent(this.defaultInterval, k -> new ArrayList<>())
+                            .add(new Entry(key, observer, null, this.defaultInterval));
+                }
+                continue;
+            }
+            for (DnsRecordTask task : tasks) {
+                final var key = task.getKey();
+                if (!retained.add(key)) {
+                    continue;
+                }
+                final var existing = this.entryMap.get(key);
+                if (existing != null) {
+                    // key不包含IP获取方式等配置，替换任务才能使用保存后的配置
+                    existing.task = task;
+                    continue;
+                }
+                final var interval = task.getInterval() > 0 ? Math.max(task.getInterval(), MIN_INTERVAL) : this.defaultInterval;
+                addedMap.computeIfAbsent(interval, k -> new ArrayList<>())
+                        .add(new Entry(key, observer, task, interval));
+            }
+        }
+        // removed tasks
+        final var iterator = this.entryMap.values()
+                                          .iterator();
+        while (iterator.hasNext()) {
+            final var entry = iterator.next();
+            if (!retained.contains(entry.key)) {
+                entry.cancelled = true;
+                iterator.remove();
+            }
+        }
+        // spread new tasks across their interval
+        for (List<Entry> entries : addedMap.values()) {
+            entries.sort(Comparator.comparing(entry -> entry.key));
+            final var size = entries.size();
+            for (int i = 0; i < size; i++) {
+                final var entry = entries.get(i);
+                entry.dueTime = now + entry.interval * (i + 1) / size + this.jitter(entry.interval / size);
+                this.entryMap.put(entry.key, entry);
+                this.queue.offer(entry);
+            }
+        }
+        this.queue.removeIf(entry -> entry.cancelled);
+        log.debug("scheduler refreshed, tasks: {}", this.entryMap.size());
+        this.arm();
+    }
+
+    public void stop() {
+        if (this.timerId != -1) {
+            this.vertx.cancelTimer(this.timerId);
+            this.timerId = -1;
+        }
+        this.timerDueTime = Long.MAX_VALUE;
+        this.queue.clear();
+        this.entryMap.clear();
+    }
+
+    private void run() {
+        this.timerId = -1;
+        this.timerDueTime = Long.MAX_VALUE;
+        final var now = System.currentTimeMillis();
+        final var dueMap = new LinkedHashMap<DnsRecordObserver, List<DnsRecordTask>>();
+        while (!this.queue.isEmpty() && this.queue.peek().dueTime <= now + COALESCE_WINDOW) {
+            final var entry = this.queue.poll();
+            if (entry.cancelled) {
+                continue;
+            }
+            final var tasks = dueMap.computeIfAbsent(entry.observer, k -> new ArrayList<>());
+            if (entry.task != null) {
+                tasks.add(entry.task);
+            }
+            entry.dueTime = now + entry.interval + this.jitter(entry.interval);
+            this.queue.offer(entry);
+        }
+        dueMap.forEach((observer, tasks) -> {
+            try {
+                this.dispatchHandler.accept(observer, tasks);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        });
+        this.arm();
+    }
+
+    private void arm() {
+        final var head = this.queue.peek();
+        if (head == null || (this.timerId != -1 && head.dueTime >= this.timerDueTime)) {
+            return;
+        }
+        if (this.timerId != -1) {
+            this.vertx.cancelTimer(this.timerId);
+        }
+        this.timerDueTime = head.dueTime;
+        this.timerId = this.vertx.setTimer(Math.max(1, head.dueTime - System.currentTimeMillis()), id -> this.run());
+    }
+
+    private long jitter(long interval) {
+        final var bound = (long) (interval * this.jitterRatio);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current()
+                                                 .nextLong(-bound, bound + 1);
+    }
+
+    private static void dispatch(DnsRecordObserver observer, Collection<DnsRecordTask> tasks) {
+        if (tasks.isEmpty()) {
+            observer.update();
+        } else {
+            observer.update(tasks);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String key;
+        private final DnsRecordObserver observer;
+        private DnsRecordTask task;
+        private final long interval;
+        private long dueTime;
+        private boolean cancelled;
+
+        private Entry(String key, DnsRecordObserver observer, DnsRecordTask task, long interval) {
+            this.key = key;
+            this.observer = observer;
+            this.task = task;
+            this.interval = interval;
+        }
+    }
+}
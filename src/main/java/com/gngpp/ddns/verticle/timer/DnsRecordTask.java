@@ -0,0 +1,97 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer;
+
+import com.gngpp.ddns.config.DnsConfig;
+import com.gngpp.ddns.enums.DnsRecordType;
+
+/**
+ * 调度任务，对应配置中的一条域名记录
+ *
+ * @author mac
+ * 2022/4/3
+ */
+public class DnsRecordTask {
+
+    /**
+     * 所属配置
+     */
+    private final DnsConfig dnsConfig;
+
+    /**
+     * 记录类型
+     */
+    private final DnsRecordType dnsRecordType;
+
+    /**
+     * 域名和ip组合 -> www.baidu.com:1.1.1.1
+     */
+    private final String domainAndIp;
+
+    /**
+     * 同步间隔（毫秒）
+     */
+    private final long interval;
+
+    public DnsRecordTask(DnsConfig dnsConfig, DnsRecordType dnsRecordType, String domainAndIp, long interval) {
+        this.dnsConfig = dnsConfig;
+        this.dnsRecordType = dnsRecordType;
+        this.domainAndIp = domainAndIp;
+        this.interval = interval;
+    }
+
+    public DnsConfig getDnsConfig() {
+        return dnsConfig;
+    }
+
+    public DnsRecordType getDnsRecordType() {
+        return dnsRecordType;
+    }
+
+    public String getDomainAndIp() {
+        return domainAndIp;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * 任务唯一标识，配置重新加载后用于保留原有的执行时间
+     */
+    public String getKey() {
+        return dnsConfig.getDnsAccount() + ":" + dnsRecordType + ":" + domainAndIp + ":" + interval;
+    }
+
+    @Override
+    public String toString() {
+        return "DnsRecordTask{" +
+                "key='" + getKey() + '\'' +
+                '}';
+    }
+}
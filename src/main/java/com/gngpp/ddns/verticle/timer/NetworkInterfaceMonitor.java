@@ -0,0 +1,162 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer;
+
+import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.enums.TriggerType;
+import com.gngpp.ddns.util.HttpUtil;
+import com.gngpp.ddns.util.LogUtil;
+import com.gngpp.ddns.util.NetworkInterfaceSnapshot;
+import com.gngpp.ddns.util.StringUtil;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 网卡地址监听，在worker线程中定时刷新网卡地址快照并与上一次对比，
+ * 只关注启用的配置中按网卡取IP的网卡，以及通过ip api取IP时默认路由所在的网卡，
+ * 这些网卡地址变化时发布 {@link TriggerType#IP_CHANGE} 触发同步，而不必等待下一次定时任务。
+ * 非线程安全，只能在所属verticle的context中调用
+ *
+ * @author mac
+ * 2022/4/10
+ */
+public class NetworkInterfaceMonitor {
+
+    private final Logger log = LogManager.getLogger("[NetworkInterfaceMonitor]");
+
+    private final Vertx vertx;
+    private final Collection<DnsRecordObserver> observers;
+    private final long interval;
+    private NetworkInterfaceSnapshot lastSnapshot;
+    private boolean checking;
+    private long timerId = -1;
+
+    public NetworkInterfaceMonitor(Vertx vertx, Collection<DnsRecordObserver> observers, long interval) {
+        this.vertx = vertx;
+        this.observers = observers;
+        this.interval = interval;
+    }
+
+    /**
+     * 开始监听，间隔小于等于0时不监听
+     */
+    public void start() {
+        if (this.interval <= 0 || this.timerId != -1) {
+            return;
+        }
+        this.check();
+        this.timerId = this.vertx.setPeriodic(this.interval, id -> this.check());
+    }
+
+    public void stop() {
+        if (this.timerId != -1) {
+            this.vertx.cancelTimer(this.timerId);
+            this.timerId = -1;
+        }
+    }
+
+    private void check() {
+        // the previous enumeration is still running
+        if (this.checking) {
+            return;
+        }
+        this.checking = true;
+        final var cards = new HashSet<String>();
+        final var defaultRoute = new boolean[2];
+        this.collectWatched(cards, defaultRoute);
+        this.vertx.<NetworkInterfaceSnapshot>executeBlocking(promise -> {
+                      // the default route may move between interfaces, look it up with the snapshot
+                      if (defaultRoute[0]) {
+                          addIfPresent(cards, NetworkInterfaceSnapshot.defaultRouteInterface(false));
+                      }
+                      if (defaultRoute[1]) {
+                          addIfPresent(cards, NetworkInterfaceSnapshot.defaultRouteInterface(true));
+                      }
+                      promise.complete(HttpUtil.refreshNetworkSnapshot());
+                  }, false)
+                  .onComplete(ar -> {
+                      this.checking = false;
+                      if (ar.failed()) {
+                          LogUtil.printDebug(log, ar.cause().getMessage(), ar.cause());
+                          return;
+                      }
+                      final var snapshot = ar.result();
+                      final var previous = this.lastSnapshot;
+                      this.lastSnapshot = snapshot;
+                      if (previous == null) {
+                          return;
+                      }
+                      final var changed = previous.diff(snapshot);
+                      // addresses of interfaces no record is resolved from do not matter
+                      changed.retainAll(cards);
+                      if (!changed.isEmpty()) {
+                          LogUtil.printInfo(log, "network interface address changed: " + changed);
+                          ReconcileTrigger.fire(this.vertx, TriggerType.IP_CHANGE, String.join(",", changed));
+                      }
+                  });
+    }
+
+    /**
+     * 收集需要关注的网卡
+     *
+     * @param cards        按网卡取IP的网卡名称
+     * @param defaultRoute [0]: 存在通过ip api取IPv4的配置，[1]: 存在通过ip api取IPv6的配置
+     */
+    private void collectWatched(Set<String> cards, boolean[] defaultRoute) {
+        for (DnsRecordObserver observer : this.observers) {
+            for (DnsRecordTask task : observer.tasks()) {
+                final var config = task.getDnsConfig();
+                final Boolean selectIpMethod;
+                final String card;
+                if (task.getDnsRecordType() == DnsRecordType.A) {
+                    selectIpMethod = config.getIpv4Config().getSelectIpMethod();
+                    card = config.getIpv4Config().getCard();
+                } else {
+                    selectIpMethod = config.getIpv6Config().getSelectIpMethod();
+                    card = config.getIpv6Config().getCard();
+                }
+                if (!Boolean.FALSE.equals(selectIpMethod)) {
+                    defaultRoute[task.getDnsRecordType() == DnsRecordType.A ? 0 : 1] = true;
+                } else {
+                    addIfPresent(cards, card);
+                }
+            }
+        }
+    }
+
+    private static void addIfPresent(Set<String> cards, String card) {
+        if (!StringUtil.isEmpty(card)) {
+            cards.add(card);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer;
+
+import com.gngpp.ddns.config.property.IpDetectProperties;
+import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.util.HttpUtil;
+import com.gngpp.ddns.util.LogUtil;
+import com.gngpp.ddns.util.StringUtil;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 公网IP查询，按地址族分别使用多个查询源，只有IPv4或只有IPv6的查询源不会用于另一个地址族：
+ * 先请求得分最高的查询源，超过对冲延迟未返回或失败时再请求下一个，采用最先返回（或达到法定数量）的结果；
+ * 按查询源记录延迟与成功率的指数加权平均值用于排序；结果缓存一段时间，同一轮同步的所有服务商共享
+ *
+ * @author mac
+ * 2022/4/9
+ */
+public class PublicIpDetector {
+
+    private final Logger log = LogManager.getLogger("[PublicIpDetector]");
+
+    /**
+     * 指数加权平均的权重
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    /**
+     * 未请求过的查询源的默认延迟（毫秒）
+     */
+    private static final double DEFAULT_LATENCY = 1000;
+
+    private final Vertx vertx;
+    private final WebClient webClient;
+    private final List<String> ipv4SourceList;
+    private final List<String> ipv6SourceList;
+    private final long hedgeDelay;
+    private final long requestTimeout;
+    private final int quorum;
+    private final long cacheMillis;
+    private final Map<String, SourceScore> scoreMap = new ConcurrentHashMap<>();
+    private final Map<String, CachedIp> cacheMap = new ConcurrentHashMap<>();
+
+    public PublicIpDetector(Vertx vertx,
+                            WebClient webClient,
+                            List<String> ipv4SourceList,
+                            List<String> ipv6SourceList,
+                            IpDetectProperties properties,
+                            long cacheTime,
+                            TimeUnit unit) {
+        this.vertx = vertx;
+        this.webClient = webClient;
+        this.ipv4SourceList = ipv4SourceList == null ? List.of() : List.copyOf(ipv4SourceList);
+        this.ipv6SourceList = ipv6SourceList == null ? List.of() : List.copyOf(ipv6SourceList);
+        this.hedgeDelay = properties.getHedgeDelay();
+        this.requestTimeout = properties.getRequestTimeout();
+        this.quorum = Math.max(1, properties.getQuorum());
+        this.cacheMillis = unit.toMillis(cacheTime);
+    }
+
+    /**
+     * 查询公网IP
+     *
+     * @param dnsRecordType 记录类型，A查询IPv4，AAAA查询IPv6
+     * @param preferredApi  用户配置的查询源，可靠时优先使用
+     * @return {@link Future<String>}
+     */
+    public Future<String> detect(DnsRecordType dnsRecordType, String preferredApi) {
+        final var key = dnsRecordType + ":" + (preferredApi == null ? "" : preferredApi);
+        final var now = System.currentTimeMillis();
+        final var cached = this.cacheMap.get(key);
+        if (cached != null && cached.expireTime > now) {
+            return cached.future;
+        }
+        final var candidates = this.candidates(dnsRecordType, preferredApi);
+        if (candidates.isEmpty()) {
+            return Future.failedFuture("No ip api available");
+        }
+        final var future = new Race(candidates, dnsRecordType).start();
+        this.cacheMap.put(key, new CachedIp(future, now + this.cacheMillis));
+        // failed lookups are not cached
+        future.onFailure(err -> this.cacheMap.remove(key));
+        return future;
+    }
+
+    public void invalidate() {
+        this.cacheMap.clear();
+    }
+
+    private List<String> candidates(DnsRecordType dnsRecordType, String preferredApi) {
+        final var sourceList = dnsRecordType == DnsRecordType.A ? this.ipv4SourceList : this.ipv6SourceList;
+        final var candidates = new ArrayList<String>(sourceList.size() + 1);
+        for (String source : sourceList) {
+            if (!source.equals(preferredApi)) {
+                candidates.add(source);
+            }
+        }
+        // snapshot the ranks, scores keep changing while late responses arrive
+        final var rankMap = new HashMap<String, Double>(candidates.size());
+        for (String source : candidates) {
+            rankMap.put(source, this.score(source, dnsRecordType).rank());
+        }
+        candidates.sort(Comparator.comparingDouble(rankMap::get));
+        if (!StringUtil.isEmpty(preferredApi)) {
+            // 用户配置的查询源持续失败时不再优先
+            if (this.score(preferredApi, dnsRecordType).isHealthy()) {
+                candidates.add(0, preferredApi);
+            } else {
+                candidates.add(preferredApi);
+            }
+        }
+        return candidates;
+    }
+
+    private SourceScore score(String source, DnsRecordType dnsRecordType) {
+        return this.scoreMap.computeIfAbsent(dnsRecordType + "#" + source, k -> new SourceScore());
+    }
+
+    private Future<String> request(String source, DnsRecordType dnsRecordType) {
+        final var pattern = dnsRecordType == DnsRecordType.A ? HttpUtil.IPV4_EXTRACT_PATTERN : HttpUtil.IP6_EXTRACT_PATTERN;
+        return this.webClient.getAbs(source)
+                             .timeout(this.requestTimeout)
+                             .send()
+                             .compose(response -> this.extractIp(response, pattern, source));
+    }
+
+    private Future<String> extractIp(HttpResponse<Buffer> response, Pattern pattern, String source) {
+        if (response.statusCode() / 100 != 2) {
+            return Future.failedFuture(source + " responded with status " + response.statusCode());
+        }
+        final var body = response.bodyAsString();
+        final var matcher = body == null ? null : pattern.matcher(body);
+        if (matcher == null || !matcher.find()) {
+            return Future.failedFuture(source + " responded without an ip address");
+        }
+        return Future.succeededFuture(matcher.group()
+                                             .trim());
+    }
+
+    /**
+     * 一次查询：按顺序对冲请求查询源，直到得到结果或所有查询源都失败
+     */
+    private final class Race {
+
+        private final List<String> candidates;
+        private final DnsRecordType dnsRecordType;
+        private final Promise<String> promise = Promise.promise();
+        private final Map<String, Integer> votes = new HashMap<>(4);
+        private int nextIndex;
+        private int inFlight;
+        private long hedgeTimerId = -1;
+        private boolean done;
+        private Throwable lastError;
+
+        private Race(List<String> candidates, DnsRecordType dnsRecordType) {
+            this.candidates = candidates;
+            this.dnsRecordType = dnsRecordType;
+        }
+
+        private Future<String> start() {
+            this.launchNext();
+            return this.promise.future();
+        }
+
+        private void launchNext() {
+            final String source;
+            synchronized (this) {
+                if (this.done || this.nextIndex >= this.candidates.size()) {
+                    return;
+                }
+                source = this.candidates.get(this.nextIndex++);
+                this.inFlight++;
+                this.cancelHedgeTimer();
+                if (this.nextIndex < this.candidates.size()) {
+                    this.hedgeTimerId = vertx.setTimer(hedgeDelay, id -> this.launchNext());
+                }
+            }
+            final var startTime = System.nanoTime();
+            request(source, this.dnsRecordType).onComplete(ar -> this.onResult(source, startTime, ar));
+        }
+
+        private void onResult(String source, long startTime, AsyncResult<String> ar) {
+            final var score = score(source, this.dnsRecordType);
+            if (ar.succeeded()) {
+                score.success(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            } else {
+                score.failure();
+                LogUtil.printDebug(log, "ip api " + source + " failed: " + ar.cause().getMessage());
+            }
+            String result = null;
+            boolean launchNext = false;
+            boolean exhausted = false;
+            synchronized (this) {
+                this.inFlight--;
+                if (this.done) {
+                    return;
+                }
+                if (ar.succeeded()) {
+                    final var count = this.votes.merge(ar.result(), 1, Integer::sum);
+                    if (count >= quorum) {
+                        result = ar.result();
+                    }
+                } else {
+                    this.lastError = ar.cause();
+                }
+                if (result == null) {
+                    // 失败或票数不足时立即请求下一个查询源，不等待对冲延迟
+                    if (this.nextIndex < this.candidates.size()) {
+                        launchNext = true;
+                    } else if (this.inFlight == 0) {
+                        exhausted = true;
+                        result = this.plurality();
+                    }
+                }
+                if (result != null || exhausted) {
+                    this.done = true;
+                    this.cancelHedgeTimer();
+                }
+            }
+            if (result != null) {
+                if (exhausted) {
+                    LogUtil.printDebug(log, "ip quorum " + quorum + " not reached, use " + result + " votes: " + this.votes);
+                }
+                this.promise.complete(result);
+            } else if (exhausted) {
+                this.promise.fail(this.lastError == null ? new RuntimeException("No ip api available") : this.lastError);
+            } else if (launchNext) {
+                this.launchNext();
+            }
+        }
+
+        private String plurality() {
+            return this.votes.entrySet()
+                             .stream()
+                             .max(Map.Entry.comparingByValue())
+                             .map(Map.Entry::getKey)
+                             .orElse(null);
+        }
+
+        private void cancelHedgeTimer() {
+            if (this.hedgeTimerId != -1) {
+                vertx.cancelTimer(this.hedgeTimerId);
+                this.hedgeTimerId = -1;
+            }
+        }
+    }
+
+    /**
+     * 查询源得分：延迟与成功率的指数加权平均
+     */
+    private static final class SourceScore {
+
+        private double latency = -1;
+
+        private double successRate = 1.0;
+
+        private synchronized void success(long latencyMillis) {
+            this.latency = this.latency < 0 ? latencyMillis : EWMA_ALPHA * latencyMillis + (1 - EWMA_ALPHA) * this.latency;
+            this.successRate = EWMA_ALPHA + (1 - EWMA_ALPHA) * this.successRate;
+        }
+
+        private synchronized void failure() {
+            this.successRate = (1 - EWMA_ALPHA) * this.successRate;
+        }
+
+        private synchronized boolean isHealthy() {
+            return this.successRate >= 0.5;
+        }
+
+        /**
+         * 越小越优先
+         */
+        private synchronized double rank() {
+            final var latency = this.latency < 0 ? DEFAULT_LATENCY : this.latency;
+            return latency / Math.max(this.successRate, 0.05);
+        }
+    }
+
+    private static final class CachedIp {
+
+        private final Future<String> future;
+
+        private final long expireTime;
+
+        private CachedIp(Future<String> future, long expireTime) {
+            this.future = future;
+            this.expireTime = expireTime;
+        }
+    }
+}
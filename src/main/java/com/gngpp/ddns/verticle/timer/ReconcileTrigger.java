@@ -0,0 +1,147 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer;
+
+import com.gngpp.ddns.enums.TriggerType;
+import com.gngpp.ddns.util.LogUtil;
+import com.gngpp.ddns.verticle.ApiConstants;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * 同步触发器，各个来源通过 {@link #fire(Vertx, TriggerType, String)} 向 {@link ApiConstants#RECONCILE_TRIGGER_ADDRESS} 发布触发事件，
+ * 防抖时间内的事件合并为一次同步，持续触发时最多延迟 {@link #MAX_DELAY_FACTOR} 倍防抖时间。
+ * 非线程安全，只能在所属verticle的context中调用
+ *
+ * @author mac
+ * 2022/4/11
+ */
+public class ReconcileTrigger {
+
+    private final Logger log = LogManager.getLogger("[ReconcileTrigger]");
+
+    private static final int MAX_DELAY_FACTOR = 5;
+
+    private final Vertx vertx;
+    private final Collection<DnsRecordObserver> observers;
+    private final long debounce;
+    private final Set<TriggerType> pendingTypes = EnumSet.noneOf(TriggerType.class);
+    private final Set<String> pendingSources = new LinkedHashSet<>();
+    private MessageConsumer<JsonObject> consumer;
+    private long firstTriggerTime;
+    private long timerId = -1;
+
+    public ReconcileTrigger(Vertx vertx, Collection<DnsRecordObserver> observers, long debounce) {
+        this.vertx = vertx;
+        this.observers = observers;
+        this.debounce = Math.max(0, debounce);
+    }
+
+    /**
+     * 发布触发事件
+     *
+     * @param vertx       vertx
+     * @param triggerType 触发来源
+     * @param source      触发详情，例如发生变化的网卡，仅用于日志
+     */
+    public static void fire(Vertx vertx, TriggerType triggerType, String source) {
+        final var message = new JsonObject().put("type", triggerType.name());
+        if (source != null) {
+            message.put("source", source);
+        }
+        vertx.eventBus()
+             .publish(ApiConstants.RECONCILE_TRIGGER_ADDRESS, message);
+    }
+
+    public void start() {
+        if (this.consumer == null) {
+            this.consumer = this.vertx.eventBus()
+                                      .consumer(ApiConstants.RECONCILE_TRIGGER_ADDRESS, this::handle);
+        }
+    }
+
+    public void stop() {
+        if (this.consumer != null) {
+            this.consumer.unregister();
+            this.consumer = null;
+        }
+        if (this.timerId != -1) {
+            this.vertx.cancelTimer(this.timerId);
+            this.timerId = -1;
+        }
+        this.pendingTypes.clear();
+        this.pendingSources.clear();
+    }
+
+    private void handle(Message<JsonObject> message) {
+        final TriggerType triggerType;
+        try {
+            triggerType = TriggerType.checkType(message.body()
+                                                       .getString("type"));
+        } catch (Exception e) {
+            LogUtil.printDebug(log, e.getMessage(), e);
+            return;
+        }
+        final var source = message.body()
+                                  .getString("source");
+        final var now = System.currentTimeMillis();
+        if (this.pendingTypes.isEmpty()) {
+            this.firstTriggerTime = now;
+        }
+        this.pendingTypes.add(triggerType);
+        this.pendingSources.add(source == null ? triggerType.name() : triggerType.name() + "(" + source + ")");
+        if (this.timerId != -1) {
+            this.vertx.cancelTimer(this.timerId);
+        }
+        // debounce, but never postpone past the max delay
+        final var deadline = this.firstTriggerTime + this.debounce * MAX_DELAY_FACTOR;
+        final var delay = Math.min(this.debounce, deadline - now);
+        this.timerId = this.vertx.setTimer(Math.max(1, delay), id -> this.dispatch());
+    }
+
+    private void dispatch() {
+        this.timerId = -1;
+        final var triggerTypes = Collections.unmodifiableSet(EnumSet.copyOf(this.pendingTypes));
+        LogUtil.printDebug(log, "reconcile triggered by " + this.pendingSources);
+        this.pendingTypes.clear();
+        this.pendingSources.clear();
+        for (DnsRecordObserver observer : this.observers) {
+            try {
+                observer.triggered(triggerTypes);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -27,25 +27,45 @@
 package com.gngpp.ddns.verticle.timer.service;
 
 import com.gngpp.ddns.api.provider.*;
+import com.gngpp.ddns.cache.DnsRecordCache;
+import com.gngpp.ddns.cache.IpStateCache;
+import com.gngpp.ddns.cache.ZoneIndex;
+import com.gngpp.ddns.concurrent.ConcurrencyLimiter;
+import com.gngpp.ddns.concurrent.PagedReadStream;
+import com.gngpp.ddns.concurrent.SingleFlight;
+import com.gngpp.ddns.config.ConfigProperty;
 import com.gngpp.ddns.pojo.*;
 import com.gngpp.ddns.pojo.vo.DnsRecord;
 import com.gngpp.ddns.util.*;
 import com.gngpp.ddns.verticle.handler.ResolveDnsRecordHandler;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.config.DnsConfig;
 import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.enums.LogStatus;
+import com.gngpp.ddns.enums.NicUpdateStatus;
+import com.gngpp.ddns.enums.TriggerType;
 import com.gngpp.ddns.verticle.ApiConstants;
+import com.gngpp.ddns.verticle.timer.DnsRecordTask;
+import com.gngpp.ddns.verticle.timer.PublicIpDetector;
+import com.gngpp.ddns.verticle.timer.ReconcileTrigger;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * @author ant
@@ -54,55 +74,230 @@ import java.util.stream.Collectors;
 @SuppressWarnings("rawtypes")
 public abstract class AbstractDnsRecordService implements ResolveDnsRecordHandler, DnsRecordService {
 
+    /**
+     * 推送的IP的有效期为同步间隔的倍数
+     */
+    private static final int PUSHED_IP_TTL_FACTOR = 3;
     protected final Logger log = LogManager.getLogger("[AbstractDnsRecordService]");
     protected final Vertx vertx;
-    protected final Map<DnsProviderType, DnsRecordProvider> providerMap;
-    private final List<DnsConfig> dnsConfigList = new LinkedList<>();
-
-    protected AbstractDnsRecordService(List<DnsConfig> dnsConfigList, Vertx vertx) {
-        this(new ConcurrentHashMap<>(4), vertx);
+    /**
+     * 所有服务商共享的WebClient
+     */
+    protected final WebClient webClient;
+    /**
+     * 每个服务商账号一个实例，各自持有限流器和zone缓存
+     */
+    protected final Map<DnsAccount, DnsRecordProvider> providerMap;
+    protected final IpStateCache ipStateCache;
+    protected final DnsRecordCache recordCache;
+    /**
+     * 区域索引文件目录，位于项目工作目录下
+     */
+    private final String zoneDir;
+    private final List<DnsConfig> dnsConfigList = new CopyOnWriteArrayList<>();
+    private final PublicIpDetector ipDetector;
+    /**
+     * 每个账号独立排队，单个账号大量的记录不会占满其他账号的并发
+     */
+    private final Map<DnsAccount, ConcurrencyLimiter> limiterMap = new ConcurrentHashMap<>(4);
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final SingleFlight<String, DnsRecordLog> singleFlight = new SingleFlight<>();
+    /**
+     * 域名 -> 接受推送的服务商
+     */
+    private volatile Map<String, List<PushRoute>> pushRouteMap = Map.of();
+    /**
+     * 通过 /nic/update 推送的IP，有效期内优先于获取到的IP，过期后重新使用获取到的IP
+     */
+    private final Map<String, PushedIp> pushedIpMap = new ConcurrentHashMap<>();
+    private final Object tickLock = new Object();
+    private final Map<String, DnsRecordTask> pendingTasks = new LinkedHashMap<>();
+    private Promise<Void> pendingTickPromise;
+    private boolean runningTick;
+
+    protected AbstractDnsRecordService(List<DnsConfig> dnsConfigList, Vertx vertx, String workDir) {
+        this(new ConcurrentHashMap<>(4), vertx, workDir);
         this.initDnsProvider(dnsConfigList);
     }
 
-    protected AbstractDnsRecordService(Map<DnsProviderType, DnsRecordProvider> providerMap, Vertx vertx) {
+    protected AbstractDnsRecordService(Map<DnsAccount, DnsRecordProvider> providerMap, Vertx vertx, String workDir) {
         this.providerMap = providerMap;
         if (vertx == null) {
             throw new RuntimeException("Vert.x instance cannot be null");
         }
+        if (workDir == null) {
+            throw new RuntimeException("Work directory cannot be null");
+        }
         this.vertx = vertx;
+        this.zoneDir = Path.of(workDir, ZoneIndex.ZONE_DIR_NAME)
+                           .toString();
+        this.webClient = WebClientRegistry.getWebClient(vertx);
+        final var reconcileProperties = ConfigProperty.getReconcileProperties();
+        this.ipStateCache = new IpStateCache();
+        this.recordCache = new DnsRecordCache(reconcileProperties.getRecordCacheSize(), reconcileProperties.getForceResyncInterval(), TimeUnit.MINUTES);
+        final var defaultProperties = ConfigProperty.getDefaultProperties();
+        this.ipDetector = new PublicIpDetector(vertx,
+                                               this.webClient,
+                                               defaultProperties.getIpv4ApiList(),
+                                               defaultProperties.getIpv6ApiList(),
+                                               ConfigProperty.getIpDetectProperties(),
+                                               reconcileProperties.getIpCacheTime(),
+                                               TimeUnit.SECONDS);
+        this.maxConcurrency = reconcileProperties.getMaxConcurrency();
+        this.queueCapacity = reconcileProperties.getQueueCapacity();
     }
 
     private void initDnsProvider(List<DnsConfig> dnsConfigList) {
         if (!CollectionUtil.isEmpty(this.dnsConfigList)) {
             this.dnsConfigList.clear();
         }
+        final var accounts = new HashSet<DnsAccount>();
         for (DnsConfig config : dnsConfigList) {
             if (config.getId() != null && config.getSecret() != null) {
-                final var provider = this.providerMap.get(config.getDnsProviderType());
+                final var dnsAccount = config.getDnsAccount();
+                accounts.add(dnsAccount);
+                final var provider = this.providerMap.get(dnsAccount);
                 if (provider == null) {
                     switch (config.getDnsProviderType()) {
-                        case ALIYUN -> providerMap.put(DnsProviderType.ALIYUN, new AliyunDnsProvider(config.getId(), config.getSecret(), vertx));
-                        case DNSPOD -> providerMap.put(DnsProviderType.DNSPOD, new DnspodDnsProvider(config.getId(), config.getSecret(), vertx));
-                        case HUAWEI -> providerMap.put(DnsProviderType.HUAWEI, new HuaweiDnsProvider(config.getId(), config.getSecret(), vertx));
-                        case CLOUDFLARE -> providerMap.put(DnsProviderType.CLOUDFLARE, new CloudflareDnsProvider(config.getSecret(), vertx));
+                        case ALIYUN -> providerMap.put(dnsAccount, new AliyunDnsProvider(config.getId(), config.getSecret(), vertx, webClient));
+                        case DNSPOD -> providerMap.put(dnsAccount, new DnspodDnsProvider(config.getId(), config.getSecret(), vertx, webClient));
+                        case HUAWEI -> providerMap.put(dnsAccount, new HuaweiDnsProvider(config.getId(), config.getSecret(), zoneDir, vertx, webClient));
+                        case CLOUDFLARE -> providerMap.put(dnsAccount, new CloudflareDnsProvider(config.getSecret(), zoneDir, vertx, webClient));
                     }
                 } else {
                     provider.reloadCredentials(config.getId(), config.getSecret());
                 }
             }
         }
+        // removed accounts
+        this.providerMap.keySet()
+                        .retainAll(accounts);
+        this.limiterMap.keySet()
+                       .retainAll(accounts);
         this.dnsConfigList.addAll(dnsConfigList);
+        this.initPushRoute(dnsConfigList);
+    }
+
+    /**
+     * 建立域名到服务商的索引，固定IP的域名不接受推送
+     */
+    private void initPushRoute(List<DnsConfig> dnsConfigList) {
+        final var pushRouteMap = new HashMap<String, List<PushRoute>>();
+        final var defaultPeriodicTime = ConfigProperty.getReconcileProperties()
+                                                      .getPeriodicTime();
+        for (DnsConfig config : dnsConfigList) {
+            // a pushed ip outlives a few missed pushes, then detection takes over again
+            final var periodicTime = config.getPeriodicTime() == null || config.getPeriodicTime() <= 0 ? defaultPeriodicTime : config.getPeriodicTime();
+            final var ttl = TimeUnit.SECONDS.toMillis(periodicTime) * PUSHED_IP_TTL_FACTOR;
+            final var ipv4Config = config.getIpv4Config();
+            if (Objects.nonNull(ipv4Config) && ipv4Config.getEnable() && !CollectionUtil.isEmpty(ipv4Config.getDomainList())) {
+                this.addPushRoute(pushRouteMap, config.getDnsAccount(), DnsRecordType.A, ipv4Config.getDomainList(), ttl);
+            }
+            final var ipv6Config = config.getIpv6Config();
+            if (Objects.nonNull(ipv6Config) && ipv6Config.getEnable() && !CollectionUtil.isEmpty(ipv6Config.getDomainList())) {
+                this.addPushRoute(pushRouteMap, config.getDnsAccount(), DnsRecordType.AAAA, ipv6Config.getDomainList(), ttl);
+            }
+        }
+        this.pushRouteMap = pushRouteMap;
+        // forget pushed ips of domains that are no longer configured
+        final var routeKeys = new HashSet<String>();
+        pushRouteMap.values()
+                    .forEach(routes -> routes.forEach(route -> routeKeys.add(route.key())));
+        this.pushedIpMap.keySet()
+                        .retainAll(routeKeys);
+    }
+
+    private void addPushRoute(Map<String, List<PushRoute>> pushRouteMap, DnsAccount dnsAccount, DnsRecordType dnsRecordType, List<String> domainList, long ttl) {
+        for (String domain : domainList) {
+            if (!StringUtil.isEmpty(domain) && domain.indexOf(':') == -1) {
+                pushRouteMap.computeIfAbsent(domain.toLowerCase(Locale.ROOT), k -> new ArrayList<>(1))
+                            .add(new PushRoute(dnsAccount, domain, dnsRecordType, ttl));
+            }
+        }
+    }
+
+    @Override
+    public NicUpdateStatus pushRecordIp(String hostname, String ip, DnsRecordType dnsRecordType) {
+        final var routes = this.pushRouteMap.get(hostname.toLowerCase(Locale.ROOT));
+        if (routes == null) {
+            return NicUpdateStatus.NOHOST;
+        }
+        var status = NicUpdateStatus.NOHOST;
+        for (PushRoute route : routes) {
+            if (route.dnsRecordType() != dnsRecordType) {
+                continue;
+            }
+            final var key = route.key();
+            final var previous = this.pushedIpMap.put(key, new PushedIp(ip, System.currentTimeMillis() + route.ttl()));
+            if (previous != null && Objects.equals(previous.ip(), ip) && this.recordCache.isSynced(route.dnsAccount(), route.domain(), dnsRecordType, ip)) {
+                if (status == NicUpdateStatus.NOHOST) {
+                    status = NicUpdateStatus.NOCHG;
+                }
+                continue;
+            }
+            status = NicUpdateStatus.GOOD;
+            this.submitPushedIp(route, ip);
+        }
+        return status;
+    }
+
+    /**
+     * @param key 记录
+     * @return 有效期内推送的IP，没有推送或已过期时返回null
+     */
+    private String getPushedIp(String key) {
+        final var pushedIp = this.pushedIpMap.get(key);
+        if (pushedIp == null) {
+            return null;
+        }
+        if (pushedIp.expireTime() <= System.currentTimeMillis()) {
+            this.pushedIpMap.remove(key, pushedIp);
+            LogUtil.printDebug(this.log, key + " pushed ip " + pushedIp.ip() + " expired, use the detected ip");
+            return null;
+        }
+        return pushedIp.ip();
+    }
+
+    private void submitPushedIp(PushRoute route, String ip) {
+        final var key = route.key();
+        final Supplier<Future<DnsRecordLog>> supplier = () -> {
+            final var batch = this.newMutationBatch(route.dnsAccount(), Collections.singleton(route.domain()));
+            return this.resolveDomainRecordHandler(this.getLimiter(route.dnsAccount()),
+                                                   new HashMap<>(1),
+                                                   Collections.emptyMap(),
+                                                   batch,
+                                                   route.dnsAccount(),
+                                                   route.domain(),
+                                                   ip,
+                                                   route.dnsRecordType())
+                       .onComplete(ar -> batch.arrive(route.domain()));
+        };
+        if (this.singleFlight.isInFlight(key)) {
+            // the run in flight may still push the previous ip, follow up once it is done
+            this.singleFlight.execute(key, supplier)
+                             .onComplete(ar -> {
+                                 if (Objects.equals(this.getPushedIp(key), ip)) {
+                                     this.singleFlight.execute(key, supplier);
+                                 }
+                             });
+        } else {
+            this.singleFlight.execute(key, supplier);
+        }
     }
 
     public void reloadProviderCredentials(List<DnsConfig> dnsConfigList) {
         this.initDnsProvider(dnsConfigList);
-        vertx.sharedData()
-             .getLocalAsyncMap(ApiConstants.SHARE_MAP_ID)
-             .compose(shareMap -> shareMap.put(ApiConstants.RUNNING_CONFIG_ID, true))
-             .onSuccess(event -> {
-                 this.update();
-             })
-             .onFailure(err -> log.error(err.getMessage(), err.getCause()));
+        // credentials or domains may have changed, force a full resync
+        for (DnsConfig config : dnsConfigList) {
+            this.ipStateCache.invalidate(config.getDnsAccount());
+            this.recordCache.invalidate(config.getDnsAccount());
+        }
+        this.ipDetector.invalidate();
+        vertx.eventBus()
+             .publish(ApiConstants.SCHEDULER_REFRESH_ADDRESS, null);
+        // runs already in flight for the same record are joined, not duplicated
+        ReconcileTrigger.fire(vertx, TriggerType.CONFIG_RELOAD, null);
     }
 
     protected void checkIp(String ip) {
@@ -133,6 +328,27 @@ public abstract class AbstractDnsRecordService implements ResolveDnsRecordHandle
         return Boolean.FALSE;
     }
 
+    /**
+     * 提取新增记录的id
+     */
+    protected String createdRecordIdHandler(Object result) {
+        if (result instanceof DnspodDataResult dnspodDataResult && dnspodDataResult.getResponse() != null) {
+            return dnspodDataResult.getResponse()
+                                   .getRecordId();
+        } else if (result instanceof CloudflareDataResult cloudflareDataResult && !CollectionUtil.isEmpty(cloudflareDataResult.getResult())) {
+            return cloudflareDataResult.getResult()
+                                       .get(0)
+                                       .getId();
+        } else if (result instanceof AliyunDataResult aliyunDataResult) {
+            return aliyunDataResult.getRecordId();
+        } else if (result instanceof HuaweiDataResult huaweiDataResult && !CollectionUtil.isEmpty(huaweiDataResult.getRecordsets())) {
+            return huaweiDataResult.getRecordsets()
+                                   .get(0)
+                                   .getId();
+        }
+        return null;
+    }
+
     protected Boolean modifyGenericsResultHandler(Object result) {
         if (result instanceof DnspodDataResult dnspodDataResult) {
             final var response = dnspodDataResult.getResponse();
@@ -166,7 +382,7 @@ public abstract class AbstractDnsRecordService implements ResolveDnsRecordHandle
     }
 
     protected List<DnsRecord> findGenericsResultHandler(Object result, String domain) {
-        List<DnsRecord> recordVoList = new LinkedList<>();
+        List<DnsRecord> recordVoList = new ArrayList<>();
         if (result instanceof AliyunDataResult aliyunDataResult && aliyunDataResult.getDomainRecords() != null) {
             final var domainRecords = aliyunDataResult.getDomainRecords()
                                             .getRecordList();
@@ -238,114 +454,300 @@ public abstract class AbstractDnsRecordService implements ResolveDnsRecordHandle
 
     @Override
     public void update() {
-        if (!CollectionUtil.isEmpty(this.dnsConfigList)) {
-            for (DnsConfig config : dnsConfigList) {
-                this.resolveDnsRecordForIpv4(config.getDnsProviderType(), config.getIpv4Config());
-                this.resolveDnsRecordForIpv6(config.getDnsProviderType(), config.getIpv6Config());
-            }
+        this.reconcile(this.tasks());
+    }
+
+    @Override
+    public void triggered(Set<TriggerType> triggerTypes) {
+        // the public ip may have changed, do not wait for the cached lookup to expire
+        if (triggerTypes.stream()
+                        .anyMatch(TriggerType::mayChangeIp)) {
+            this.ipDetector.invalidate();
         }
+        this.update();
     }
 
     @Override
-    public void resolveDnsRecordForIpv4(DnsProviderType dnsProviderType, DnsConfig.Ipv4Config ipv4Config) {
-        if (Objects.nonNull(ipv4Config) && ipv4Config.getEnable()) {
-            // use ip api or network
-            Future.succeededFuture(ipv4Config.getSelectIpMethod())
-                  .compose(bool -> {
-                      // get ip from api
-                      if (bool) {
-                          return HttpUtil.getCurrentHostIpv4(ipv4Config.getInputIpApi());
-                      } else {
-                          // get ip from network
-                          return HttpUtil.getNetworkCardIpv4Ip(ipv4Config.getCard());
-                      }
-                  })
-                  .onSuccess(resultIp -> this.resolveDnsRecordForIpv4Handler(dnsProviderType, ipv4Config, resultIp))
-                  .onFailure(err -> {
-                      LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
-                      vertx.eventBus()
-                           .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsProviderType, err.getMessage()));
-                  });
+    public Collection<DnsRecordTask> tasks() {
+        final var tasks = new ArrayList<DnsRecordTask>();
+        for (DnsConfig config : this.dnsConfigList) {
+            this.addTasks(tasks, config);
         }
+        return tasks;
     }
 
+    @Override
+    public Future<Void> update(Collection<DnsRecordTask> tasks) {
+        return this.reconcile(tasks);
+    }
 
     @Override
-    public void resolveDnsRecordForIpv6(DnsProviderType dnsProviderType, DnsConfig.Ipv6Config ipv6Config) {
-        if (Objects.nonNull(ipv6Config) && ipv6Config.getEnable()) {
-            // use ip api or network
-            Future.succeededFuture(ipv6Config.getSelectIpMethod())
-                  .compose(bool -> {
-                      // get ip from api
-                      if (bool) {
-                          return HttpUtil.getCurrentHostIpv4(ipv6Config.getInputIpApi());
-                      } else {
-                          return HttpUtil.getNetworkCardIpv6Ip(ipv6Config.getCard());
-                      }
-                  })
-                  .onSuccess(resultIp -> this.resolveDnsRecordForIpv6Handler(dnsProviderType, ipv6Config, resultIp))
-                  .onFailure(err -> {
-                      LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
-                      vertx.eventBus()
-                           .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsProviderType, err.getMessage()));
-                  });
-        }
-    }
-
-    private void resolveDnsRecordForIpv4Handler(DnsProviderType dnsProviderType,
-                                                DnsConfig.Ipv4Config ipv4Config,
-                                                String resultIp) {
-        @SuppressWarnings("DuplicatedCode") String defaultIp = StringUtil.isEmpty(resultIp) ? "" : resultIp;
-        final var domainList = ipv4Config.getDomainList();
-        for (String domainAndIp : domainList) {
+    public void resolveDnsRecordForIpv4(DnsAccount dnsAccount, DnsConfig.Ipv4Config ipv4Config) {
+        final var tasks = new ArrayList<DnsRecordTask>();
+        this.addTasks(tasks, new DnsConfig().setDnsProviderType(dnsAccount.dnsProviderType())
+                                            .setAccount(dnsAccount.account())
+                                            .setIpv4Config(ipv4Config));
+        this.reconcile(tasks);
+    }
 
-            final var extractDomainAndIp = this.extractDomainAndIp(domainAndIp, defaultIp);
-            if (!ObjectUtil.isEmpty(extractDomainAndIp)) {
-                final String domain = extractDomainAndIp[0];
-                final String ip = extractDomainAndIp[1];
-                this.findRecordListAsync(dnsProviderType, domain, DnsRecordType.A)
-                    .compose(recordList -> this.validateDnsRecordStatus(recordList, dnsProviderType, domain, ip, DnsRecordType.A))
-                    .onSuccess(recordLog -> {
-                        LogUtil.printInfo(this.log, recordLog);
-                        vertx.eventBus()
-                             .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, recordLog);
-                    })
-                    .onFailure(err -> {
-                        LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
-                        vertx.eventBus()
-                             .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsProviderType, err.getMessage()));
-                    });
+    @Override
+    public void resolveDnsRecordForIpv6(DnsAccount dnsAccount, DnsConfig.Ipv6Config ipv6Config) {
+        final var tasks = new ArrayList<DnsRecordTask>();
+        this.addTasks(tasks, new DnsConfig().setDnsProviderType(dnsAccount.dnsProviderType())
+                                            .setAccount(dnsAccount.account())
+                                            .setIpv6Config(ipv6Config));
+        this.reconcile(tasks);
+    }
+
+    private void addTasks(List<DnsRecordTask> tasks, DnsConfig config) {
+        final var interval = config.getPeriodicTime() == null ? 0 : TimeUnit.SECONDS.toMillis(config.getPeriodicTime());
+        final var ipv4Config = config.getIpv4Config();
+        if (Objects.nonNull(ipv4Config) && ipv4Config.getEnable() && !CollectionUtil.isEmpty(ipv4Config.getDomainList())) {
+            for (String domainAndIp : ipv4Config.getDomainList()) {
+                tasks.add(new DnsRecordTask(config, DnsRecordType.A, domainAndIp, interval));
+            }
+        }
+        final var ipv6Config = config.getIpv6Config();
+        if (Objects.nonNull(ipv6Config) && ipv6Config.getEnable() && !CollectionUtil.isEmpty(ipv6Config.getDomainList())) {
+            for (String domainAndIp : ipv6Config.getDomainList()) {
+                tasks.add(new DnsRecordTask(config, DnsRecordType.AAAA, domainAndIp, interval));
+            }
+        }
+    }
+
+    /**
+     * 执行一次同步，上一次同步未完成时合并到下一次执行
+     *
+     * @param tasks 任务
+     * @return 本次同步完成的 {@link Future}
+     */
+    protected Future<Void> reconcile(Collection<DnsRecordTask> tasks) {
+        if (CollectionUtil.isEmpty(tasks)) {
+            return Future.succeededFuture();
+        }
+        synchronized (this.tickLock) {
+            if (this.runningTick) {
+                if (this.pendingTickPromise == null) {
+                    this.pendingTickPromise = Promise.promise();
+                }
+                for (DnsRecordTask task : tasks) {
+                    this.pendingTasks.put(task.getKey(), task);
+                }
+                LogUtil.printDebug(this.log, "reconcile in progress, coalesce " + tasks.size() + " task(s) into the next tick");
+                return this.pendingTickPromise.future();
             }
+            this.runningTick = true;
+        }
+        return this.runTick(tasks);
+    }
+
+    private Future<Void> runTick(Collection<DnsRecordTask> tasks) {
+        // group by config and record type, each group shares one ip lookup
+        final var groupMap = new LinkedHashMap<DnsConfig, Map<DnsRecordType, List<String>>>();
+        for (DnsRecordTask task : tasks) {
+            groupMap.computeIfAbsent(task.getDnsConfig(), k -> new EnumMap<>(DnsRecordType.class))
+                    .computeIfAbsent(task.getDnsRecordType(), k -> new ArrayList<>())
+                    .add(task.getDomainAndIp());
+        }
+        final List<Future> futures = new ArrayList<>();
+        groupMap.forEach((config, typeMap) -> typeMap.forEach((dnsRecordType, domainList) -> {
+            final var dnsAccount = config.getDnsAccount();
+            final Future<String> ipFuture = dnsRecordType == DnsRecordType.A
+                    ? this.detectIp(config.getIpv4Config().getSelectIpMethod(), config.getIpv4Config().getInputIpApi(), config.getIpv4Config().getCard(), dnsRecordType)
+                    : this.detectIp(config.getIpv6Config().getSelectIpMethod(), config.getIpv6Config().getInputIpApi(), config.getIpv6Config().getCard(), dnsRecordType);
+            futures.add(ipFuture.compose(resultIp -> this.resolveDnsRecordHandler(dnsAccount, domainList, resultIp, dnsRecordType),
+                                         err -> {
+                                             LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
+                                             vertx.eventBus()
+                                                  .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsAccount, err.getMessage()));
+                                             return Future.succeededFuture();
+                                         }));
+        }));
+        return CompositeFuture.join(futures)
+                              .<Void>mapEmpty()
+                              .onComplete(ar -> this.completeTick());
+    }
+
+    private void completeTick() {
+        final Promise<Void> pendingPromise;
+        final List<DnsRecordTask> pending;
+        synchronized (this.tickLock) {
+            if (this.pendingTickPromise == null) {
+                this.runningTick = false;
+                return;
+            }
+            pendingPromise = this.pendingTickPromise;
+            pending = new ArrayList<>(this.pendingTasks.values());
+            this.pendingTickPromise = null;
+            this.pendingTasks.clear();
+        }
+        this.runTick(pending)
+            .onComplete(pendingPromise);
+    }
 
+    private DnsRecordMutationBatch newMutationBatch(DnsAccount dnsAccount, Collection<String> domains) {
+        return new DnsRecordMutationBatch(domains, mutations -> this.batchUpsertRecordAsync(dnsAccount, mutations));
+    }
+
+    protected ConcurrencyLimiter getLimiter(DnsAccount dnsAccount) {
+        return this.limiterMap.computeIfAbsent(dnsAccount, k -> new ConcurrencyLimiter(this.maxConcurrency, this.queueCapacity));
+    }
+
+    /**
+     * 获取当前IP，ip api 由 {@link PublicIpDetector} 多源查询并缓存 ipCacheTime 秒，所有服务商共享同一次查询
+     *
+     * @param selectIpMethod true: ip api, false: 网卡
+     * @param inputIpApi     ip api
+     * @param card           网卡
+     * @param dnsRecordType  记录类型
+     * @return {@link Future<String>}
+     */
+    private Future<String> detectIp(Boolean selectIpMethod,
+                                    String inputIpApi,
+                                    String card,
+                                    DnsRecordType dnsRecordType) {
+        if (!Boolean.FALSE.equals(selectIpMethod)) {
+            // get ip from api
+            return this.ipDetector.detect(dnsRecordType, inputIpApi);
         }
+        // get ip from network
+        return dnsRecordType == DnsRecordType.A ? HttpUtil.getNetworkCardIpv4Ip(card) : HttpUtil.getNetworkCardIpv6Ip(card);
     }
 
-    private void resolveDnsRecordForIpv6Handler(DnsProviderType dnsProviderType,
-                                                DnsConfig.Ipv6Config ipv6Config,
-                                                String resultIp) {
+    private Future<Void> resolveDnsRecordHandler(DnsAccount dnsAccount,
+                                                 List<String> domainList,
+                                                 String resultIp,
+                                                 DnsRecordType dnsRecordType) {
         String defaultIp = StringUtil.isEmpty(resultIp) ? "" : resultIp;
-        final var domainList = ipv6Config.getDomainList();
+        final var previousIp = this.ipStateCache.getDetectedIp(dnsAccount, dnsRecordType);
+        if (this.ipStateCache.storeDetectedIp(dnsAccount, dnsRecordType, defaultIp) && previousIp != null) {
+            LogUtil.printDebug(this.log, dnsAccount + " " + dnsRecordType + " ip changed: " + defaultIp);
+            // records of other providers may not be due for a while, bring them up to date now,
+            // the ip was just looked up so the cached lookup is kept
+            ReconcileTrigger.fire(vertx, TriggerType.IP_OBSERVED, dnsAccount + " " + dnsRecordType);
+        }
+        final var limiter = this.getLimiter(dnsAccount);
+        final var domainAndIpList = new ArrayList<String[]>(domainList.size());
+        // zone -> domains of this tick, matched while the zone records stream by
+        final var zoneDomainMap = new HashMap<String, Set<String>>();
         for (String domainAndIp : domainList) {
-
             final var extractDomainAndIp = this.extractDomainAndIp(domainAndIp, defaultIp);
             if (!ObjectUtil.isEmpty(extractDomainAndIp)) {
-                final String domain = extractDomainAndIp[0];
-                final String ip = extractDomainAndIp[1];
-                this.findRecordListAsync(dnsProviderType, domain, DnsRecordType.AAAA)
-                    .compose(recordList -> this.validateDnsRecordStatus(recordList, dnsProviderType, domain, ip, DnsRecordType.AAAA))
-                    .onSuccess(recordLog -> {
-                        LogUtil.printInfo(this.log, recordLog);
-                        vertx.eventBus()
-                             .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, recordLog);
-                    })
-                    .onFailure(err -> {
-                        LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
-                        vertx.eventBus()
-                             .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsProviderType, err.getMessage()));
-                    });
+                domainAndIpList.add(extractDomainAndIp);
+                try {
+                    zoneDomainMap.computeIfAbsent(HttpUtil.extractDomain(extractDomainAndIp[0])[0], k -> new HashSet<>())
+                                 .add(extractDomainAndIp[0]);
+                } catch (Exception ignored) {
+                    // reported by the domain itself
+                }
             }
+        }
+        // zone -> matched records, one describe per zone in this tick
+        final var zoneFutureMap = new HashMap<String, Future<ZoneRecords>>();
+        // creates and modifies of this tick are submitted together once every domain is decided
+        final var batch = this.newMutationBatch(dnsAccount, domainAndIpList.stream()
+                                                                           .map(extractDomainAndIp -> extractDomainAndIp[0])
+                                                                           .collect(Collectors.toList()));
+        final List<Future> futures = new ArrayList<>(domainAndIpList.size());
+        for (String[] extractDomainAndIp : domainAndIpList) {
+            final String domain = extractDomainAndIp[0];
+            // join the reconcile already in flight for the same record
+            final var key = dnsAccount + ":" + domain + ":" + dnsRecordType;
+            final var pushedIp = this.getPushedIp(key);
+            final String ip = pushedIp == null ? extractDomainAndIp[1] : pushedIp;
+            final var invoked = new boolean[1];
+            futures.add(this.singleFlight.execute(key, () -> {
+                invoked[0] = true;
+                return this.resolveDomainRecordHandler(limiter, zoneFutureMap, zoneDomainMap, batch, dnsAccount, domain, ip, dnsRecordType)
+                           .onComplete(ar -> batch.arrive(domain));
+            }));
+            if (!invoked[0]) {
+                // joined a run of an earlier tick, it will not add to this batch
+                batch.arrive(domain);
+            }
+        }
+        return CompositeFuture.join(futures)
+                              .mapEmpty();
+    }
 
+    private Future<DnsRecordLog> resolveDomainRecordHandler(ConcurrencyLimiter limiter,
+                                                            Map<String, Future<ZoneRecords>> zoneFutureMap,
+                                                            Map<String, Set<String>> zoneDomainMap,
+                                                            DnsRecordMutationBatch batch,
+                                                            DnsAccount dnsAccount,
+                                                            String domain,
+                                                            String ip,
+                                                            DnsRecordType dnsRecordType) {
+        final var cachedRecord = this.recordCache.get(dnsAccount, domain, dnsRecordType);
+        if (cachedRecord != null) {
+            // nothing changed since the last push, skip the provider api
+            if (Objects.equals(cachedRecord.getValue(), ip)) {
+                return this.publishRecordLog(Future.succeededFuture(DnsRecordLog.rawLog(dnsAccount, domain, ip)), dnsAccount);
+            }
+            // the record id is known, modify it without describing the zone
+            final var future = batch.add(DnsRecordMutation.modify(cachedRecord.getId(), domain, ip, dnsRecordType))
+                                     .compose(id -> {
+                                         if (id != null) {
+                                             return Future.succeededFuture(DnsRecordLog.modifyLog(dnsAccount, domain, ip, cachedRecord.getValue()));
+                                         }
+                                         return Future.succeededFuture(DnsRecordLog.modifyFailLog(dnsAccount, domain));
+                                     })
+                                     .onComplete(ar -> {
+                                         // the cached record may be stale, describe it again on the next tick
+                                         if (ar.failed() || ar.result().getLogStatus() != LogStatus.MODIFY) {
+                                             this.recordCache.invalidate(dnsAccount, domain, dnsRecordType);
+                                         }
+                                     });
+            return this.publishRecordLog(future, dnsAccount);
         }
+        final String zone;
+        try {
+            zone = HttpUtil.extractDomain(domain)[0];
+        } catch (Exception e) {
+            return this.publishRecordLog(Future.failedFuture(domain + ": " + e.getMessage()), dnsAccount);
+        }
+        final var zoneFuture = zoneFutureMap.computeIfAbsent(zone, k -> limiter.submit(() -> this.matchZoneRecords(dnsAccount, zone, dnsRecordType, zoneDomainMap.getOrDefault(zone, Collections.singleton(domain))))
+                                                                          .onFailure(err -> {
+                                                                              // logged once per zone
+                                                                              LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
+                                                                              vertx.eventBus()
+                                                                                   .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsAccount, err.getMessage()));
+                                                                          }));
+        return zoneFuture.compose(zoneRecords -> {
+            final var matchedRecordList = zoneRecords.recordMap()
+                                                     .get(domain);
+            if (matchedRecordList == null && zoneRecords.truncated()) {
+                // the record may be on a page that was not read, creating it could duplicate it
+                return this.publishRecordLog(Future.failedFuture(domain + ": not found within the page limit of zone " + zone + ", skip creating"), dnsAccount);
+            }
+            final List<DnsRecord> domainRecordList = matchedRecordList == null ? Collections.emptyList() : matchedRecordList;
+            final var future = this.validateDnsRecordStatus(domainRecordList, batch, dnsAccount, domain, ip, dnsRecordType)
+                                      .onSuccess(recordLog -> {
+                                          // created and modified records are written through by the service
+                                          if (recordLog.getLogStatus() == LogStatus.RAW) {
+                                              for (DnsRecord dnsRecord : domainRecordList) {
+                                                  if (Objects.equals(dnsRecord.getValue(), ip)) {
+                                                      this.recordCache.put(dnsAccount, domain, dnsRecordType, dnsRecord);
+                                                      break;
+                                                  }
+                                              }
+                                          }
+                                      });
+            return this.publishRecordLog(future, dnsAccount);
+        });
+    }
+
+    private Future<DnsRecordLog> publishRecordLog(Future<DnsRecordLog> future, DnsAccount dnsAccount) {
+        return future.onSuccess(recordLog -> {
+                         LogUtil.printInfo(this.log, recordLog);
+                         vertx.eventBus()
+                              .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, recordLog);
+                     })
+                     .onFailure(err -> {
+                         LogUtil.printInfo(this.log, err.getMessage(), err.getCause());
+                         vertx.eventBus()
+                              .send(ApiConstants.CONFIG_SUBJECT_ADDRESS, DnsRecordLog.errorLog(dnsAccount, err.getMessage()));
+                     });
     }
 
     /**
@@ -375,37 +777,129 @@ public abstract class AbstractDnsRecordService implements ResolveDnsRecordHandle
         return new String[]{domain, ip};
     }
 
-    private String concatDomain(DnsRecord dnsRecord) {
+    /**
+     * 逐页读取主域名下的记录，只保留本次需要处理的域名的记录
+     *
+     * @param dnsAccount    服务商账号
+     * @param zone          主域名
+     * @param dnsRecordType 记录类型
+     * @param domains       需要处理的域名
+     * @return 域名 -> 记录，超过最大页数时只包含已读取的部分
+     */
+    private Future<ZoneRecords> matchZoneRecords(DnsAccount dnsAccount,
+                                                 String zone,
+                                                 DnsRecordType dnsRecordType,
+                                                 Set<String> domains) {
+        final Promise<ZoneRecords> promise = Promise.promise();
+        final var recordMap = new HashMap<String, List<DnsRecord>>();
+        this.findZoneRecordStream(dnsAccount, zone, dnsRecordType)
+            .exceptionHandler(err -> {
+                if (err instanceof PagedReadStream.PageLimitExceededException) {
+                    // matched records can still be modified, unseen domains must not be created
+                    LogUtil.printError(this.log, dnsAccount + " " + zone + ": " + err.getMessage(), null);
+                    promise.tryComplete(new ZoneRecords(recordMap, true));
+                } else {
+                    promise.tryFail(err);
+                }
+            })
+            .endHandler(v -> promise.tryComplete(new ZoneRecords(recordMap, false)))
+            .handler(dnsRecord -> {
+                final var domain = this.concatDomain(dnsRecord);
+                if (domains.contains(domain)) {
+                    recordMap.computeIfAbsent(domain, k -> new ArrayList<>(1))
+                             .add(dnsRecord);
+                }
+            });
+        return promise.future();
+    }
+
+    /**
+     * 读取记录流，只保留匹配的记录
+     *
+     * @param stream 记录流
+     * @param filter 过滤条件
+     * @return {@link Future<List>}
+     */
+    protected Future<List<DnsRecord>> collectRecords(ReadStream<DnsRecord> stream, Predicate<DnsRecord> filter) {
+        final Promise<List<DnsRecord>> promise = Promise.promise();
+        final var recordList = new ArrayList<DnsRecord>();
+        stream.exceptionHandler(promise::tryFail)
+              .endHandler(v -> promise.tryComplete(recordList))
+              .handler(dnsRecord -> {
+                  if (filter.test(dnsRecord)) {
+                      recordList.add(dnsRecord);
+                  }
+              });
+        return promise.future();
+    }
+
+    protected String concatDomain(DnsRecord dnsRecord) {
         return Objects.equals(dnsRecord.getRr(), "@") ? dnsRecord.getDomain() : dnsRecord.getRr() + "." + dnsRecord.getDomain();
     }
 
+    /**
+     * 校验域名记录状态，不存在则新增，值不一致则更新
+     *
+     * @param recordList      查询到的记录，可以包含其他域名的记录
+     * @param batch           本次对账的记录变更
+     * @param dnsAccount      服务商账号
+     * @param domain          域名
+     * @param ip              ip
+     * @param dnsRecordType   记录类型
+     * @return {@link Future<DnsRecordLog>}
+     */
     Future<DnsRecordLog> validateDnsRecordStatus(List<DnsRecord> recordList,
-                                                 DnsProviderType dnsProviderType,
+                                                 DnsRecordMutationBatch batch,
+                                                 DnsAccount dnsAccount,
                                                  String domain,
                                                  String ip,
                                                  DnsRecordType dnsRecordType) {
-        final var domainMap = recordList.stream()
-                                        .collect(Collectors.toMap(this::concatDomain, DnsRecord::getId));
         // find if the domain name exists
-        final var id = domainMap.get(domain);
-        // The domain name does not exist, create a domain name record resolution
-        if (StringUtil.isEmpty(id)) {
-            return this.createRecordAsync(dnsProviderType, domain, ip, dnsRecordType)
-                       .compose(bool -> bool ? Future.succeededFuture(DnsRecordLog.createLog(dnsProviderType, domain, ip))
-                               : Future.succeededFuture(DnsRecordLog.createFailLog(dnsProviderType, domain)));
-        } else {
-            for (DnsRecord dnsRecord : recordList) {
-                final var concatDomain = this.concatDomain(dnsRecord);
-                // If the domain name resolution record exists,
-                // if the ip is changed, the domain name record resolution will be updated
-                if (Objects.equals(concatDomain, domain) && !Objects.equals(dnsRecord.getValue(), ip)) {
-                    return this.modifyRecordAsync(dnsProviderType, id, domain, ip, dnsRecordType)
-                               .compose(bool -> bool ? Future.succeededFuture(DnsRecordLog.modifyLog(dnsProviderType, domain, ip, dnsRecord.getValue()))
-                                       : Future.succeededFuture(DnsRecordLog.modifyFailLog(dnsProviderType, domain)));
+        DnsRecord existRecord = null;
+        for (DnsRecord dnsRecord : recordList) {
+            if (Objects.equals(this.concatDomain(dnsRecord), domain) && !StringUtil.isEmpty(dnsRecord.getId())) {
+                if (Objects.equals(dnsRecord.getValue(), ip)) {
+                    return Future.succeededFuture(DnsRecordLog.rawLog(dnsAccount, domain, ip));
+                }
+                if (existRecord == null) {
+                    existRecord = dnsRecord;
                 }
             }
-            return Future.succeededFuture(DnsRecordLog.rawLog(dnsProviderType, domain, ip));
         }
+        // The domain name does not exist, create a domain name record resolution
+        if (existRecord == null) {
+            return batch.add(DnsRecordMutation.create(domain, ip, dnsRecordType))
+                        .compose(id -> id != null ? Future.succeededFuture(DnsRecordLog.createLog(dnsAccount, domain, ip))
+                               : Future.succeededFuture(DnsRecordLog.createFailLog(dnsAccount, domain)));
+        }
+        // If the domain name resolution record exists,
+        // if the ip is changed, the domain name record resolution will be updated
+        final var rawIp = existRecord.getValue();
+        return batch.add(DnsRecordMutation.modify(existRecord.getId(), domain, ip, dnsRecordType))
+                    .compose(id -> id != null ? Future.succeededFuture(DnsRecordLog.modifyLog(dnsAccount, domain, ip, rawIp))
+                           : Future.succeededFuture(DnsRecordLog.modifyFailLog(dnsAccount, domain)));
+    }
+
+    /**
+     * 主域名下匹配到的记录
+     *
+     * @param recordMap 域名 -> 记录
+     * @param truncated 是否因达到最大页数未读完
+     */
+    private record ZoneRecords(Map<String, List<DnsRecord>> recordMap, boolean truncated) {
+    }
+
+    /**
+     * @param ttl 推送的IP的有效期（毫秒）
+     */
+    private record PushRoute(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType, long ttl) {
+
+        private String key() {
+            return this.dnsAccount + ":" + this.domain + ":" + this.dnsRecordType;
+        }
+    }
+
+    private record PushedIp(String ip, long expireTime) {
     }
 
 }
@@ -0,0 +1,133 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.timer.service;
+
+import com.gngpp.ddns.pojo.DnsRecordMutation;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 一次对账中的记录变更，等所有域名都确定了是否需要变更后合并提交
+ *
+ * @author mac
+ * 2022/4/14
+ */
+class DnsRecordMutationBatch {
+
+    private final Function<List<DnsRecordMutation>, Future<List<String>>> submitter;
+    /**
+     * 还未确定是否需要变更的域名
+     */
+    private final Set<String> pendingDomains;
+    private final List<DnsRecordMutation> mutations = new ArrayList<>();
+    private final List<Promise<String>> promises = new ArrayList<>();
+    private boolean submitted;
+
+    /**
+     * @param domains   本次对账的域名
+     * @param submitter 批量提交，返回与参数顺序一致的记录id，失败的为null
+     */
+    DnsRecordMutationBatch(Collection<String> domains, Function<List<DnsRecordMutation>, Future<List<String>>> submitter) {
+        this.pendingDomains = new HashSet<>(domains);
+        this.submitter = submitter;
+    }
+
+    /**
+     * 加入变更，该域名视为已确定
+     *
+     * @param mutation 记录变更
+     * @return 记录id，失败时为null
+     */
+    Future<String> add(DnsRecordMutation mutation) {
+        final Promise<String> promise = Promise.promise();
+        final boolean late;
+        synchronized (this) {
+            late = this.submitted;
+            if (!late) {
+                this.mutations.add(mutation);
+                this.promises.add(promise);
+            }
+        }
+        if (late) {
+            // 已提交过，单独提交
+            this.submit(List.of(mutation), List.of(promise));
+        } else {
+            this.arrive(mutation.domain());
+        }
+        return promise.future();
+    }
+
+    /**
+     * 该域名不需要变更，或在确定之前已经结束，可重复调用
+     *
+     * @param domain 域名
+     */
+    void arrive(String domain) {
+        final List<DnsRecordMutation> mutations;
+        final List<Promise<String>> promises;
+        synchronized (this) {
+            this.pendingDomains.remove(domain);
+            if (this.submitted || !this.pendingDomains.isEmpty()) {
+                return;
+            }
+            this.submitted = true;
+            mutations = new ArrayList<>(this.mutations);
+            promises = new ArrayList<>(this.promises);
+        }
+        if (!mutations.isEmpty()) {
+            this.submit(mutations, promises);
+        }
+    }
+
+    private void submit(List<DnsRecordMutation> mutations, List<Promise<String>> promises) {
+        Future<List<String>> future;
+        try {
+            future = this.submitter.apply(mutations);
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onComplete(ar -> {
+            for (int i = 0; i < promises.size(); i++) {
+                if (ar.succeeded()) {
+                    promises.get(i)
+                            .tryComplete(i < ar.result().size() ? ar.result().get(i) : null);
+                } else {
+                    promises.get(i)
+                            .tryFail(ar.cause());
+                }
+            }
+        });
+    }
+}
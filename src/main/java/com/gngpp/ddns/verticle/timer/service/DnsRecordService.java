@@ -26,12 +26,15 @@
 
 package com.gngpp.ddns.verticle.timer.service;
 
+import com.gngpp.ddns.pojo.DnsRecordMutation;
 import com.gngpp.ddns.pojo.vo.DnsRecord;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.config.DnsConfig;
-import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.enums.NicUpdateStatus;
 import com.gngpp.ddns.verticle.timer.DnsRecordObserver;
 import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.List;
 
@@ -41,34 +44,72 @@ import java.util.List;
  */
 public interface DnsRecordService extends DnsRecordObserver {
 
-    List<DnsRecord> findRecordList(DnsProviderType dnsServiceType, String domain, DnsRecordType dnsRecordType);
+    List<DnsRecord> findRecordList(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType);
 
-    Boolean createRecord(DnsProviderType dnsProviderType, String domain, String ip, DnsRecordType dnsRecordType);
+    Boolean createRecord(DnsAccount dnsAccount, String domain, String ip, DnsRecordType dnsRecordType);
 
-    Boolean modifyRecord(DnsProviderType dnsProviderType,
+    Boolean modifyRecord(DnsAccount dnsAccount,
                          String id,
                          String domain,
                          String ip,
                          DnsRecordType dnsRecordType);
 
-    Boolean deleteRecord(DnsProviderType dnsProviderType, String recordId, String domain);
+    Boolean deleteRecord(DnsAccount dnsAccount, String recordId, String domain);
 
-    Future<List<DnsRecord>> findRecordListAsync(DnsProviderType dnsServiceType,
+    Future<List<DnsRecord>> findRecordListAsync(DnsAccount dnsAccount,
                                                 String domain,
                                                 DnsRecordType dnsRecordType);
 
-    Future<Boolean> createRecordAsync(DnsProviderType dnsProviderType,
+    /**
+     * 分页查询主域名下该记录类型的全部记录
+     */
+    Future<List<DnsRecord>> findZoneRecordListAsync(DnsAccount dnsAccount,
+                                                    String zone,
+                                                    DnsRecordType dnsRecordType);
+
+    /**
+     * 按服务商分页逐条读取主域名下该记录类型的记录，消费当前页时预取下一页
+     */
+    ReadStream<DnsRecord> findZoneRecordStream(DnsAccount dnsAccount,
+                                               String zone,
+                                               DnsRecordType dnsRecordType);
+
+    Future<Boolean> createRecordAsync(DnsAccount dnsAccount,
                                       String domain,
                                       String ip,
                                       DnsRecordType dnsRecordType);
 
-    Future<Boolean> modifyRecordAsync(DnsProviderType dnsProviderType,
+    Future<Boolean> modifyRecordAsync(DnsAccount dnsAccount,
                                       String id,
                                       String domain,
                                       String ip,
                                       DnsRecordType dnsRecordType);
 
-    Future<Boolean> deleteRecordAsync(DnsProviderType dnsProviderType, String recordId, String domain);
+    Future<Boolean> deleteRecordAsync(DnsAccount dnsAccount, String recordId, String domain);
+
+    /**
+     * 批量新增或修改记录，服务商有批量接口时合并提交，否则在并发限制内逐条提交
+     *
+     * @return 与参数顺序一致的记录id，失败的为null
+     */
+    Future<List<String>> batchUpsertRecordAsync(DnsAccount dnsAccount, List<DnsRecordMutation> mutations);
+
+    /**
+     * 批量删除记录
+     *
+     * @return 与参数顺序一致的删除结果
+     */
+    Future<List<Boolean>> batchDeleteRecordAsync(DnsAccount dnsAccount, List<DnsRecordMutation> mutations);
 
     void reloadProviderCredentials(List<DnsConfig> dnsConfigList);
+
+    /**
+     * 接受外部推送的IP（dyndns2 /nic/update），立即加入同步队列，之后的同步也使用该IP
+     *
+     * @param hostname      域名
+     * @param ip            ip
+     * @param dnsRecordType 记录类型
+     * @return {@link NicUpdateStatus}
+     */
+    NicUpdateStatus pushRecordIp(String hostname, String ip, DnsRecordType dnsRecordType);
 }
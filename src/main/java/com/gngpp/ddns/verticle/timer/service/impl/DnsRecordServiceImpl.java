@@ -27,19 +27,26 @@
 package com.gngpp.ddns.verticle.timer.service.impl;
 
 import com.gngpp.ddns.api.provider.DnsRecordProvider;
-import com.gngpp.ddns.api.provider.exception.FoundDnsProviderException;
-import com.gngpp.ddns.api.provider.exception.NotSupportDnsProviderException;
+import com.gngpp.ddns.concurrent.PagedReadStream;
+import com.gngpp.ddns.pojo.DnsRecordMutation;
 import com.gngpp.ddns.pojo.vo.DnsRecord;
+import com.gngpp.ddns.config.DnsAccount;
 import com.gngpp.ddns.config.DnsConfig;
-import com.gngpp.ddns.enums.DnsProviderType;
 import com.gngpp.ddns.enums.DnsRecordType;
+import com.gngpp.ddns.util.FutureUtil;
+import com.gngpp.ddns.util.HttpUtil;
+import com.gngpp.ddns.util.LogUtil;
 import com.gngpp.ddns.verticle.timer.service.AbstractDnsRecordService;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author ant
@@ -48,110 +55,211 @@ import java.util.List;
 public class DnsRecordServiceImpl extends AbstractDnsRecordService {
 
     private final Logger log = LogManager.getLogger("[DnsRecordServiceImpl]");
+    private static final int MAX_PAGE_NUMBER = 100;
+    /**
+     * 消费当前页时最多预取的页数
+     */
+    private static final int PREFETCH_PAGES = 1;
 
-    public DnsRecordServiceImpl(List<DnsConfig> ddnsConfigList, Vertx vertx) {
-        super(ddnsConfigList, vertx);
+    public DnsRecordServiceImpl(List<DnsConfig> ddnsConfigList, Vertx vertx, String workDir) {
+        super(ddnsConfigList, vertx, workDir);
     }
 
-    public List<DnsRecord> findRecordList(DnsProviderType dnsServiceType, String domain, DnsRecordType dnsRecordType) {
-        final var provider = this.providerMap.get(dnsServiceType);
-        this.checkProvider(provider, dnsServiceType);
-        final var result = provider.findDnsRecordList(domain, dnsRecordType);
-        return super.findGenericsResultHandler(result, domain);
+    @Override
+    public List<DnsRecord> findRecordList(DnsAccount dnsAccount, String domain, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.findRecordListAsync(dnsAccount, domain, dnsRecordType));
     }
 
     @Override
-    public Boolean createRecord(DnsProviderType dnsProviderType, String domain, String ip, DnsRecordType dnsRecordType) {
-        final var provider = this.providerMap.get(dnsProviderType);
-        this.checkProvider(provider, dnsProviderType);
-        final var result = provider.createDnsRecord(domain, ip, dnsRecordType);
-        return super.createGenericsResultHandler(result);
+    public Boolean createRecord(DnsAccount dnsAccount, String domain, String ip, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.createRecordAsync(dnsAccount, domain, ip, dnsRecordType));
     }
 
     @Override
-    public Boolean modifyRecord(DnsProviderType dnsProviderType, String id, String domain, String ip, DnsRecordType dnsRecordType) {
-        final var provider = this.providerMap.get(dnsProviderType);
-        this.checkProvider(provider, dnsProviderType);
-        final var result = provider.modifyDnsRecord(id, domain, ip, dnsRecordType);
-        return super.modifyGenericsResultHandler(result);
+    public Boolean modifyRecord(DnsAccount dnsAccount, String id, String domain, String ip, DnsRecordType dnsRecordType) {
+        return FutureUtil.await(this.modifyRecordAsync(dnsAccount, id, domain, ip, dnsRecordType));
     }
 
     @Override
-    public Boolean deleteRecord(DnsProviderType dnsProviderType, String recordId, String domain) {
-        final var provider = this.providerMap.get(dnsProviderType);
-        this.checkProvider(provider, dnsProviderType);
-        final var resultObj = provider.deleteDnsRecord(recordId, domain);
-        return super.deleteGenericsResultHandler(resultObj);
+    public Boolean deleteRecord(DnsAccount dnsAccount, String recordId, String domain) {
+        return FutureUtil.await(this.deleteRecordAsync(dnsAccount, recordId, domain));
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public Future<List<DnsRecord>> findRecordListAsync(DnsProviderType dnsServiceType,
+    public Future<List<DnsRecord>> findRecordListAsync(DnsAccount dnsAccount,
                                                        String domain,
                                                        DnsRecordType dnsRecordType) {
-        return Future.succeededFuture(this.providerMap.get(dnsServiceType))
-                     .compose(provider -> {
-                         if (provider == null) {
-                             return Future.failedFuture("No service provider");
-                         }
-                         return provider.supportAsync(dnsServiceType)
-                                        .compose(v -> provider.findDnsRecordListAsync(domain, dnsRecordType))
-                                        .compose(result -> {
-                                            final var dnsRecordVoList = this.findGenericsResultHandler(result, domain);
-                                            return Future.succeededFuture(dnsRecordVoList);
-                                        });
-                     });
+        final String zone;
+        try {
+            zone = HttpUtil.extractDomain(domain)[0];
+        } catch (Exception e) {
+            return Future.failedFuture(e);
+        }
+        // 主域名返回全部记录，子域名只返回该域名的记录
+        return this.collectRecords(this.findZoneRecordStream(dnsAccount, zone, dnsRecordType),
+                                   dnsRecord -> zone.equals(domain) || domain.equals(this.concatDomain(dnsRecord)));
+    }
+
+    @Override
+    public Future<List<DnsRecord>> findZoneRecordListAsync(DnsAccount dnsAccount,
+                                                           String zone,
+                                                           DnsRecordType dnsRecordType) {
+        return this.collectRecords(this.findZoneRecordStream(dnsAccount, zone, dnsRecordType), dnsRecord -> true);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ReadStream<DnsRecord> findZoneRecordStream(DnsAccount dnsAccount,
+                                                      String zone,
+                                                      DnsRecordType dnsRecordType) {
+        final var provider = this.providerMap.get(dnsAccount);
+        final var pageSize = provider == null ? 1 : provider.maxPageSize();
+        return new PagedReadStream<DnsRecord>(this.vertx, pageNumber -> {
+            if (provider == null) {
+                return Future.failedFuture("No service provider");
+            }
+            return provider.supportAsync(dnsAccount.dnsProviderType())
+                           .compose(v -> provider.findDnsRecordListAsync(zone, dnsRecordType, pageNumber, pageSize))
+                           .map(result -> this.findGenericsResultHandler(result, zone));
+        }, pageSize, MAX_PAGE_NUMBER, PREFETCH_PAGES);
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public Future<Boolean> createRecordAsync(DnsProviderType dnsProviderType, String domain, String ip, DnsRecordType dnsRecordType) {
-        return Future.succeededFuture(this.providerMap.get(dnsProviderType))
+    public Future<Boolean> createRecordAsync(DnsAccount dnsAccount, String domain, String ip, DnsRecordType dnsRecordType) {
+        return Future.succeededFuture(this.providerMap.get(dnsAccount))
                      .compose(provider -> {
                          if (provider == null) {
                              return Future.failedFuture("No service provider");
                          }
-                         return provider.supportAsync(dnsProviderType)
+                         return provider.supportAsync(dnsAccount.dnsProviderType())
                                         .compose(v -> provider.createDnsRecordAsync(domain, ip, dnsRecordType))
-                                        .compose(v -> Future.succeededFuture(super.createGenericsResultHandler(v)));
+                                        .compose(v -> {
+                                            final var bool = super.createGenericsResultHandler(v);
+                                            if (bool) {
+                                                this.recordCache.put(dnsAccount, domain, dnsRecordType, super.createdRecordIdHandler(v), ip);
+                                            }
+                                            return Future.succeededFuture(bool);
+                                        });
                      });
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public Future<Boolean> modifyRecordAsync(DnsProviderType dnsProviderType, String id, String domain, String ip, DnsRecordType dnsRecordType) {
-        return Future.succeededFuture(this.providerMap.get(dnsProviderType))
+    public Future<Boolean> modifyRecordAsync(DnsAccount dnsAccount, String id, String domain, String ip, DnsRecordType dnsRecordType) {
+        return Future.succeededFuture(this.providerMap.get(dnsAccount))
                      .compose(provider -> {
                          if (provider == null) {
                              return Future.failedFuture("No service provider");
                          }
-                         return provider.supportAsync(dnsProviderType)
+                         return provider.supportAsync(dnsAccount.dnsProviderType())
                                         .compose(v -> provider.modifyDnsRecordAsync(id, domain, ip, dnsRecordType))
-                                        .compose(v -> Future.succeededFuture(super.modifyGenericsResultHandler(v)));
+                                        .compose(v -> {
+                                            final var bool = super.modifyGenericsResultHandler(v);
+                                            if (bool) {
+                                                this.recordCache.put(dnsAccount, domain, dnsRecordType, id, ip);
+                                            }
+                                            return Future.succeededFuture(bool);
+                                        });
                      });
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public Future<Boolean> deleteRecordAsync(DnsProviderType dnsProviderType, String id, String domain) {
-        return Future.succeededFuture(this.providerMap.get(dnsProviderType))
+    public Future<Boolean> deleteRecordAsync(DnsAccount dnsAccount, String id, String domain) {
+        return Future.succeededFuture(this.providerMap.get(dnsAccount))
                      .compose(provider -> {
                          if (provider == null) {
                              return Future.failedFuture("No service provider");
                          }
-                         return provider.supportAsync(dnsProviderType)
+                         return provider.supportAsync(dnsAccount.dnsProviderType())
                                         .compose(v -> provider.deleteDnsRecordAsync(id, domain))
-                                        .compose(v -> Future.succeededFuture(super.deleteGenericsResultHandler(v)));
+                                        .compose(v -> {
+                                            this.recordCache.invalidate(dnsAccount, domain);
+                                            return Future.succeededFuture(super.deleteGenericsResultHandler(v));
+                                        });
                      });
 
     }
 
-    private void checkProvider(DnsRecordProvider<?> provider, DnsProviderType dnsProviderType) {
+    @SuppressWarnings("unchecked")
+    @Override
+    public Future<List<String>> batchUpsertRecordAsync(DnsAccount dnsAccount, List<DnsRecordMutation> mutations) {
+        final var provider = this.providerMap.get(dnsAccount);
         if (provider == null) {
-            throw new FoundDnsProviderException("No service provider");
-        } else if (!provider.support(dnsProviderType)) {
-            throw new NotSupportDnsProviderException("The :" + dnsProviderType.name() + " DNS service provider is not supported");
+            return Future.failedFuture("No service provider");
+        }
+        final var limiter = this.getLimiter(dnsAccount);
+        final Future<List<String>> future;
+        if (provider.supportBatch()) {
+            future = limiter.submit(() -> provider.supportAsync(dnsAccount.dnsProviderType())
+                                                  .compose(v -> provider.batchUpsertDnsRecordAsync(mutations)));
+        } else {
+            final List<Future<String>> futures = new ArrayList<>(mutations.size());
+            for (DnsRecordMutation mutation : mutations) {
+                futures.add(limiter.submit(() -> this.upsertRecordAsync(provider, dnsAccount, mutation))
+                                   .otherwise(e -> {
+                                       LogUtil.printDebug(log, e.getMessage(), e);
+                                       return null;
+                                   }));
+            }
+            future = CompositeFuture.join(new ArrayList<>(futures))
+                                    .map(v -> futures.stream()
+                                                     .map(Future::result)
+                                                     .collect(Collectors.toList()));
         }
+        return future.onSuccess(ids -> {
+            for (int i = 0; i < mutations.size() && i < ids.size(); i++) {
+                final var mutation = mutations.get(i);
+                if (ids.get(i) != null) {
+                    this.recordCache.put(dnsAccount, mutation.domain(), mutation.dnsRecordType(), ids.get(i), mutation.ip());
+                }
+            }
+        });
     }
 
+    @SuppressWarnings("unchecked")
+    private Future<String> upsertRecordAsync(DnsRecordProvider<?> provider, DnsAccount dnsAccount, DnsRecordMutation mutation) {
+        return provider.supportAsync(dnsAccount.dnsProviderType())
+                       .compose(v -> {
+                           if (mutation.isCreate()) {
+                               return provider.createDnsRecordAsync(mutation.domain(), mutation.ip(), mutation.dnsRecordType())
+                                              .map(result -> super.createGenericsResultHandler(result) ? super.createdRecordIdHandler(result) : null);
+                           }
+                           return provider.modifyDnsRecordAsync(mutation.id(), mutation.domain(), mutation.ip(), mutation.dnsRecordType())
+                                          .map(result -> super.modifyGenericsResultHandler(result) ? mutation.id() : null);
+                       });
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Future<List<Boolean>> batchDeleteRecordAsync(DnsAccount dnsAccount, List<DnsRecordMutation> mutations) {
+        final var provider = this.providerMap.get(dnsAccount);
+        if (provider == null) {
+            return Future.failedFuture("No service provider");
+        }
+        final var limiter = this.getLimiter(dnsAccount);
+        final Future<List<Boolean>> future;
+        if (provider.supportBatch()) {
+            future = limiter.submit(() -> provider.supportAsync(dnsAccount.dnsProviderType())
+                                                  .compose(v -> provider.batchDeleteDnsRecordAsync(mutations)));
+        } else {
+            final List<Future<Boolean>> futures = new ArrayList<>(mutations.size());
+            for (DnsRecordMutation mutation : mutations) {
+                futures.add(limiter.submit(() -> provider.supportAsync(dnsAccount.dnsProviderType())
+                                                         .compose(v -> provider.deleteDnsRecordAsync(mutation.id(), mutation.domain()))
+                                                         .map(super::deleteGenericsResultHandler))
+                                   .otherwise(false));
+            }
+            future = CompositeFuture.join(new ArrayList<>(futures))
+                                    .map(v -> futures.stream()
+                                                     .map(Future::result)
+                                                     .collect(Collectors.toList()));
+        }
+        return future.onSuccess(results -> {
+            for (DnsRecordMutation mutation : mutations) {
+                this.recordCache.invalidate(dnsAccount, mutation.domain());
+            }
+        });
+    }
 }
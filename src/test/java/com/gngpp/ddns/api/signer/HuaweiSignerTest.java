@@ -0,0 +1,141 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.api.signer;
+
+import com.gngpp.ddns.api.auth.BasicCredentials;
+import com.gngpp.ddns.enums.HttpMethod;
+import io.vertx.core.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 共享的 {@link HuaweiSigner} 多线程签名结果与单线程一致
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class HuaweiSignerTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+    private static final int REQUESTS = 32;
+    private static final String SDK_DATE = "X-Sdk-Date";
+
+    @Test
+    void concurrentSignMatchesSingleThread() throws Exception {
+        final var expected = new ArrayList<String>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            expected.add(this.sign(i));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final var start = new CountDownLatch(1);
+            final List<Future<List<String>>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                final Callable<List<String>> task = () -> {
+                    start.await();
+                    final var mismatches = new ArrayList<String>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < REQUESTS; i++) {
+                            final var authorization = this.sign(i);
+                            if (!expected.get(i)
+                                         .equals(authorization)) {
+                                mismatches.add(i + ": " + authorization);
+                            }
+                        }
+                    }
+                    return mismatches;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<List<String>> future : futures) {
+                assertEquals(List.of(), future.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void signedRequestVerifies() {
+        final var request = this.newRequest(3);
+        HuaweiSigner.getSigner()
+                    .sign(request);
+        assertTrue(HuaweiSigner.getSigner()
+                               .verify(request));
+        // 重复签名不把上一次的签名头计入
+        final var authorization = request.getHeaders()
+                                         .get(HttpHeaders.AUTHORIZATION.toString());
+        HuaweiSigner.getSigner()
+                    .sign(request);
+        assertEquals(authorization, request.getHeaders()
+                                           .get(HttpHeaders.AUTHORIZATION.toString()));
+    }
+
+    @Test
+    void sdkDateIsUtc() {
+        assertEquals("20220416T080910Z", HuaweiSigner.TIME_FORMATTER.format(java.time.Instant.parse("2022-04-16T08:09:10Z")));
+    }
+
+    private String sign(int index) {
+        final var request = this.newRequest(index);
+        HuaweiSigner.getSigner()
+                    .sign(request);
+        return request.getHeaders()
+                      .get(HttpHeaders.AUTHORIZATION.toString());
+    }
+
+    /**
+     * 固定签名时间，不同请求覆盖查询参数、中文、请求体和不同路径
+     */
+    private HuaweiRequest newRequest(int index) {
+        final var request = HuaweiRequest.newBuilder(new BasicCredentials("key-" + (index % 4), "secret-" + (index % 3)))
+                                         .setUrl("https://dns.myhuaweicloud.com/v2/zones/zone-" + index + "/recordsets?name=www" + index + ".example.com.&type=A&tag=%E6%B5%8B%E8%AF%95")
+                                         .addHeader(SDK_DATE, "20220416T0809" + (10 + index % 50) + "Z")
+                                         .addHeader("Content-Type", "application/json");
+        if (index % 2 == 0) {
+            request.setMethod(HttpMethod.GET);
+        } else {
+            request.setMethod(HttpMethod.PUT)
+                   .setBody("{\"records\":[\"1.1.1." + index + "\"],\"ttl\":600,\"description\":\"测试\"}");
+        }
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * {@link LogRingBuffer} 按游标读取
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class LogRingBufferTest {
+
+    @Test
+    void readsAfterCursor() {
+        final var buffer = this.newBuffer(8, 5);
+        assertEquals(List.of(3L, 4L), buffer.snapshot(buffer.epoch(), 2, 10));
+        assertEquals(List.of(1L, 2L), buffer.snapshot(buffer.epoch(), 0, 2));
+        assertEquals(List.of(), buffer.snapshot(buffer.epoch(), 4, 10));
+    }
+
+    @Test
+    void overwritesOldest() {
+        final var buffer = this.newBuffer(4, 10);
+        assertEquals(List.of(6L, 7L, 8L, 9L), buffer.snapshot());
+        assertEquals(List.of(6L, 7L), buffer.snapshot(buffer.epoch(), 1, 2));
+        assertEquals(4, buffer.size());
+        assertEquals(4, buffer.capacity());
+    }
+
+    @Test
+    void staleEpochReplaysFromStart() {
+        final var previous = this.newBuffer(8, 6);
+        // 服务重启后的缓冲区，游标仍小于新的序号
+        final var current = this.newBuffer(8, 4);
+        assertNotEquals(previous.epoch(), current.epoch());
+        assertEquals(List.of(0L, 1L, 2L, 3L), current.snapshot(previous.epoch(), 1, 10));
+        assertEquals(List.of(2L, 3L), current.snapshot(current.epoch(), 1, 10));
+        // 游标超过当前序号时同样从头开始
+        assertEquals(List.of(0L, 1L, 2L, 3L), current.snapshot(current.epoch(), 5, 10));
+    }
+
+    @Test
+    void clearKeepsSequence() {
+        final var buffer = this.newBuffer(8, 3);
+        buffer.clear();
+        assertEquals(List.of(), buffer.snapshot());
+        assertEquals(3L, buffer.append(3L));
+        assertEquals(List.of(3L), buffer.snapshot(buffer.epoch(), 2, 10));
+    }
+
+    /**
+     * 日志内容即序号
+     */
+    private LogRingBuffer<Long> newBuffer(int capacity, int count) {
+        final var buffer = new LogRingBuffer<Long>(capacity, 0, TimeUnit.MINUTES, log -> System.currentTimeMillis());
+        for (long i = 0; i < count; i++) {
+            buffer.append(i);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.concurrent;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link PagedReadStream} 的结束、分页上限、暂停与背压
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class PagedReadStreamTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private Vertx vertx;
+    private Context context;
+    private final List<Integer> fetchedPages = new ArrayList<>();
+    private final List<Integer> items = new ArrayList<>();
+    private final List<Throwable> errors = new ArrayList<>();
+    private int ends;
+    /**
+     * 异常发生时已收到的数据数量
+     */
+    private int itemsAtError = -1;
+    private PagedReadStream<Integer> stream;
+
+    @BeforeEach
+    void setUp() {
+        this.vertx = Vertx.vertx();
+        this.context = this.vertx.getOrCreateContext();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.vertx.close()
+                  .toCompletionStage()
+                  .toCompletableFuture()
+                  .get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shortLastPageEnds() throws Exception {
+        this.onContext(() -> this.subscribe(this.newStream(25, 10, 2)));
+        assertEquals(range(25), this.items);
+        assertEquals(List.of(1, 2, 3), this.fetchedPages);
+        assertEquals(1, this.ends);
+        assertTrue(this.errors.isEmpty());
+    }
+
+    @Test
+    void fullPageAtLimitFailsAfterBufferedItems() throws Exception {
+        this.onContext(() -> this.subscribe(this.newStream(31, 3, 3).pause()));
+        // 暂停时已拉取的数据还未消费，不能提前失败
+        assertEquals(List.of(1, 2, 3), this.fetchedPages);
+        assertTrue(this.items.isEmpty());
+        assertTrue(this.errors.isEmpty());
+        this.onContext(() -> this.stream.resume());
+        assertEquals(range(30), this.items);
+        assertEquals(30, this.itemsAtError);
+        assertEquals(1, this.errors.size());
+        assertInstanceOf(PagedReadStream.PageLimitExceededException.class, this.errors.get(0));
+        assertEquals(0, this.ends);
+    }
+
+    @Test
+    void pauseStopsFetching() throws Exception {
+        this.onContext(() -> this.newStream(100, 20, 2)
+                                 .exceptionHandler(this::onError)
+                                 .endHandler(v -> this.ends++)
+                                 .handler(item -> {
+                                     this.items.add(item);
+                                     if (this.items.size() == 5) {
+                                         this.stream.pause();
+                                     }
+                                 }));
+        // 正在消费的一页加上预取的页
+        assertEquals(List.of(1, 2, 3), this.fetchedPages);
+        assertEquals(range(5), this.items);
+        this.onContext(() -> this.stream.resume());
+        assertEquals(range(100), this.items);
+        assertEquals(1, this.ends);
+    }
+
+    @Test
+    void fetchEmitsExactlyDemand() throws Exception {
+        this.onContext(() -> this.subscribe(this.newStream(100, 20, 2).pause()));
+        assertTrue(this.items.isEmpty());
+        this.onContext(() -> this.stream.fetch(3));
+        assertEquals(range(3), this.items);
+        this.onContext(() -> this.stream.fetch(12));
+        assertEquals(range(15), this.items);
+        assertEquals(0, this.ends);
+    }
+
+    @Test
+    void fetcherFailureReachesExceptionHandler() throws Exception {
+        final var cause = new IllegalStateException("page 2");
+        this.onContext(() -> {
+            this.stream = new PagedReadStream<>(this.vertx, pageNumber -> {
+                this.fetchedPages.add(pageNumber);
+                return pageNumber == 2 ? Future.failedFuture(cause) : Future.succeededFuture(this.page(pageNumber, 100));
+            }, PAGE_SIZE, 10, 2);
+            this.subscribe(this.stream);
+        });
+        assertEquals(List.of(cause), this.errors);
+        assertEquals(0, this.ends);
+        // 失败后不再拉取
+        this.onContext(() -> this.stream.resume());
+        assertEquals(List.of(1, 2), this.fetchedPages);
+    }
+
+    private PagedReadStream<Integer> newStream(int total, int maxPages, int prefetch) {
+        this.stream = new PagedReadStream<>(this.vertx, pageNumber -> {
+            this.fetchedPages.add(pageNumber);
+            return Future.succeededFuture(this.page(pageNumber, total));
+        }, PAGE_SIZE, maxPages, prefetch);
+        return this.stream;
+    }
+
+    private PagedReadStream<Integer> subscribe(PagedReadStream<Integer> stream) {
+        return stream.exceptionHandler(this::onError)
+                     .endHandler(v -> this.ends++)
+                     .handler(this.items::add);
+    }
+
+    private void onError(Throwable cause) {
+        this.itemsAtError = this.items.size();
+        this.errors.add(cause);
+    }
+
+    private List<Integer> page(int pageNumber, int total) {
+        final var from = (pageNumber - 1) * PAGE_SIZE;
+        return IntStream.range(from, Math.min(from + PAGE_SIZE, total))
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * 在创建流的context上执行并等待完成
+     */
+    private void onContext(Runnable runnable) throws Exception {
+        final var done = new CompletableFuture<Void>();
+        this.context.runOnContext(v -> {
+            try {
+                runnable.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        });
+        done.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.expression;
+
+import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.enums.LogStatus;
+import com.gngpp.ddns.pojo.DnsRecordLog;
+import com.gngpp.ddns.util.ParameterHelper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 预编译模板的渲染结果与逐个标签 replaceAll 的旧实现一致
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class TemplateExpressionHandlerTest {
+
+    private static final List<String> TEMPLATES = List.of("#provider",
+                                                          "#sourceIp",
+                                                          "#targetIp",
+                                                          "#time",
+                                                          "#status",
+                                                          "#domain",
+                                                          "服务商：#provider\n域名：#domain\n#sourceIp -> #targetIp\n状态：#status 时间：#time",
+                                                          "##provider#",
+                                                          "#domain#targetIp",
+                                                          "# #prov #domainName #");
+
+    private final TemplateExpressionHandler handler = new TemplateExpressionHandler();
+
+    @Test
+    void eachTagMatchesReplaceAll() {
+        final var dnsRecordLog = this.newLog(LogStatus.MODIFY);
+        for (String template : TEMPLATES) {
+            assertEquals(legacyReplace(dnsRecordLog, template), this.handler.replaceParser(dnsRecordLog, template), template);
+        }
+    }
+
+    @Test
+    void repeatedTagsMatchReplaceAll() {
+        final var dnsRecordLog = this.newLog(LogStatus.MODIFY);
+        for (String template : List.of("#domain #domain #domain", "#time#time", "#sourceIp,#targetIp,#sourceIp")) {
+            assertEquals(legacyReplace(dnsRecordLog, template), this.handler.replaceParser(dnsRecordLog, template), template);
+        }
+    }
+
+    @Test
+    void cachedTemplateRendersEachLog() {
+        final var template = TEMPLATES.get(6);
+        final var first = this.newLog(LogStatus.CREATE);
+        final var second = this.newLog(LogStatus.MODIFY).setTargetIp("2.2.2.2");
+        assertEquals(legacyReplace(first, template), this.handler.replaceParser(first, template));
+        assertEquals(legacyReplace(second, template), this.handler.replaceParser(second, template));
+    }
+
+    @Test
+    void missingValueKeepsTag() {
+        final var dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.CLOUDFLARE)
+                                                   .setLogStatus(LogStatus.CREATE)
+                                                   .setDomainOrMessage("www.example.com");
+        for (String template : TEMPLATES) {
+            assertEquals(legacyReplace(dnsRecordLog, template), this.handler.replaceParser(dnsRecordLog, template), template);
+        }
+        assertEquals("www.example.com #sourceIp", this.handler.replaceParser(dnsRecordLog, "#domain #sourceIp"));
+    }
+
+    @Test
+    void noTagReturnsContent() {
+        final var dnsRecordLog = this.newLog(LogStatus.MODIFY);
+        for (String template : List.of("", "plain text", "#", "#unknown ##")) {
+            assertEquals(dnsRecordLog.getContent(), this.handler.replaceParser(dnsRecordLog, template), template);
+            assertEquals(legacyReplace(dnsRecordLog, template), this.handler.replaceParser(dnsRecordLog, template), template);
+        }
+    }
+
+    @Test
+    void errorOverridesTemplate() {
+        final var dnsRecordLog = this.newLog(LogStatus.ERROR)
+                                     .setDomainOrMessage("request failed");
+        for (String template : TEMPLATES) {
+            assertEquals(legacyReplace(dnsRecordLog, template), this.handler.replaceParser(dnsRecordLog, template), template);
+        }
+        assertEquals(dnsRecordLog.getContent(), this.handler.replaceParser(dnsRecordLog, "plain text"));
+    }
+
+    private DnsRecordLog newLog(LogStatus logStatus) {
+        return new DnsRecordLog().setDnsProviderType(DnsProviderType.DNSPOD)
+                                 .setLogStatus(logStatus)
+                                 .setTimestamp(1_650_096_550_123L)
+                                 .setSourceIp("1.1.1.1")
+                                 .setTargetIp("240e::1")
+                                 .setDomainOrMessage("www.例子.com");
+    }
+
+    /**
+     * 旧实现：按标签依次 replaceAll，没有值的标签不替换
+     */
+    private static String legacyReplace(DnsRecordLog dnsRecordLog, String content) {
+        final var tags = Set.of("#provider", "#sourceIp", "#targetIp", "#time", "#status", "#domain");
+        if (tags.stream()
+                .noneMatch(content::contains)) {
+            return dnsRecordLog.getContent();
+        }
+        if (content.contains("#provider") && dnsRecordLog.getDnsProviderType() != null) {
+            content = content.replaceAll("#provider", dnsRecordLog.getDnsProviderType().name());
+        }
+        if (content.contains("#sourceIp") && dnsRecordLog.getSourceIp() != null) {
+            content = content.replaceAll("#sourceIp", dnsRecordLog.getSourceIp());
+        }
+        if (content.contains("#targetIp") && dnsRecordLog.getTargetIp() != null) {
+            content = content.replaceAll("#targetIp", dnsRecordLog.getTargetIp());
+        }
+        if (content.contains("#time") && dnsRecordLog.getTimestamp() != null) {
+            content = content.replaceAll("#time", ParameterHelper.getTime(new Date(dnsRecordLog.getTimestamp())));
+        }
+        if (content.contains("#status") && dnsRecordLog.getLogStatus() != null) {
+            content = content.replaceAll("#status", dnsRecordLog.getLogStatus().toString());
+        }
+        if (content.contains("#domain") && dnsRecordLog.getDomainOrMessage() != null) {
+            content = content.replaceAll("#domain", dnsRecordLog.getDomainOrMessage());
+        }
+        if (dnsRecordLog.getLogStatus() == LogStatus.ERROR) {
+            content = "- DNS provider: " + dnsRecordLog.getDnsProviderType() +
+                    "\n- Status: " + dnsRecordLog.getLogStatus() +
+                    "\n- Message: " + dnsRecordLog.getDomainOrMessage();
+        }
+        return content;
+    }
+}
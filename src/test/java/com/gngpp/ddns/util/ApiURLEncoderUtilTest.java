@@ -0,0 +1,100 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ApiURLEncoderUtil#aliyunPercentEncode(StringBuilder, String, int)} 与 URLEncoder 替换链的结果一致
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class ApiURLEncoderUtilTest {
+
+    @Test
+    void specialCharacters() {
+        assertEquals("%2B", this.encode(" ", 1));
+        assertEquals("%2B", this.encode("+", 1));
+        assertEquals("%2A", this.encode("*", 1));
+        assertEquals("~", this.encode("~", 1));
+        assertEquals("%2F", this.encode("/", 1));
+        assertEquals("%252B", this.encode(" ", 2));
+        assertEquals("%252A", this.encode("*", 2));
+        assertEquals("~", this.encode("~", 2));
+    }
+
+    @Test
+    void matchesUrlEncoderChain() {
+        final var values = new ArrayList<>(List.of("",
+                                                   "AccessKeyId",
+                                                   "2022-04-16T08:09:10Z",
+                                                   "a b+c*d~e/f=g&h%i",
+                                                   "-_.!'()",
+                                                   "中文域名.com",
+                                                   "ü é ß",
+                                                   "😀 emoji 🎉",
+                                                   // 不成对的代理字符
+                                                   "\uD83D",
+                                                   "a\uDE00b",
+                                                   "\uDE00\uD83D",
+                                                   "\u0000\u007F\u0080߿ࠀ￿"));
+        final var random = new Random(16);
+        for (int i = 0; i < 2000; i++) {
+            final var chars = new char[random.nextInt(16)];
+            for (int j = 0; j < chars.length; j++) {
+                // 偏向ASCII，同时覆盖多字节字符和代理字符
+                chars[j] = (char) (random.nextInt(4) == 0 ? random.nextInt(0x10000) : random.nextInt(0x80));
+            }
+            values.add(new String(chars));
+        }
+        for (String value : values) {
+            final var once = ApiURLEncoderUtil.aliyunPercentEncode(value);
+            assertEquals(once, this.encode(value, 1), value);
+            assertEquals(ApiURLEncoderUtil.aliyunPercentEncode(once), this.encode(value, 2), value);
+        }
+    }
+
+    @Test
+    void appendsToExistingContent() {
+        final var builder = new StringBuilder("GET&");
+        ApiURLEncoderUtil.aliyunPercentEncode(builder, "a b", 1);
+        assertEquals("GET&a%2Bb", builder.toString());
+    }
+
+    private String encode(String value, int times) {
+        return ApiURLEncoderUtil.aliyunPercentEncode(new StringBuilder(), value, times)
+                                .toString();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 签名时间格式化多线程结果与每次新建 SimpleDateFormat 的单线程结果一致
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class ParameterHelperTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 500;
+
+    @Test
+    void concurrentFormatMatchesSimpleDateFormat() throws Exception {
+        final var dates = new ArrayList<Date>();
+        for (long time = 0L; time < 64L; time++) {
+            // 覆盖跨年、跨月、闰年
+            dates.add(new Date(946_684_799_000L + time * 7_919_999_999L));
+        }
+        final var expected = new ArrayList<String>(dates.size());
+        for (Date date : dates) {
+            expected.add(this.format(date));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final var start = new CountDownLatch(1);
+            final List<Future<List<String>>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                final Callable<List<String>> task = () -> {
+                    start.await();
+                    final var mismatches = new ArrayList<String>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < dates.size(); i++) {
+                            final var date = dates.get(i);
+                            final var actual = ParameterHelper.getISO8601Time1(date) + "|" + ParameterHelper.getISO8601Time2(date) + "|" + ParameterHelper.getRFC2616Date(date);
+                            if (!expected.get(i)
+                                         .equals(actual)) {
+                                mismatches.add(actual);
+                            }
+                        }
+                    }
+                    return mismatches;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<List<String>> future : futures) {
+                assertEquals(List.of(), future.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void parseRoundTrip() throws Exception {
+        final var date = new Date(1_650_096_550_000L);
+        assertEquals(date, ParameterHelper.parse(ParameterHelper.getISO8601Time1(date)));
+        assertEquals(date, ParameterHelper.parse(ParameterHelper.getRFC2616Date(date)));
+    }
+
+    /**
+     * 原实现的格式，每次新建不共享
+     */
+    private String format(Date date) {
+        final var iso1 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        iso1.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        final var iso2 = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
+        iso2.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        final var rfc2616 = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
+        rfc2616.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        return iso1.format(date) + "|" + iso2.format(date) + "|" + rfc2616.format(date);
+    }
+}
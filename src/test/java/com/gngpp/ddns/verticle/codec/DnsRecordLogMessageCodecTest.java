@@ -0,0 +1,153 @@
+/*
+ *
+ *
+ * MIT License
+ *
+ * Copyright (c) 2021 gngpp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.gngpp.ddns.verticle.codec;
+
+import com.gngpp.ddns.enums.DnsProviderType;
+import com.gngpp.ddns.enums.LogStatus;
+import com.gngpp.ddns.pojo.DnsRecordLog;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link DnsRecordLogMessageCodec} 编解码往返，以及未知版本的拒绝
+ *
+ * @author mac
+ * 2022/4/16
+ */
+class DnsRecordLogMessageCodecTest {
+
+    private static final String PREFIX = "prefix-前缀";
+    private final DnsRecordLogMessageCodec codec = new DnsRecordLogMessageCodec();
+
+    @Test
+    void roundTripMultiByteText() {
+        final var dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.CLOUDFLARE)
+                                                   .setAccount("账号😀")
+                                                   .setLogStatus(LogStatus.MODIFY)
+                                                   .setTimestamp(1_650_096_550_123L)
+                                                   .setSeq(300L)
+                                                   .setEpoch(1_650_096_500_000L)
+                                                   .setDomainOrMessage("中文域名.例子.com 🎉")
+                                                   .setSourceIp("fe80::1")
+                                                   .setTargetIp("1.1.1.1");
+        final var decoded = this.roundTrip(dnsRecordLog);
+        assertLogEquals(dnsRecordLog, decoded);
+        assertEquals(dnsRecordLog.getContent(), decoded.getContent());
+    }
+
+    @Test
+    void roundTripNulls() {
+        final var decoded = this.roundTrip(new DnsRecordLog());
+        assertLogEquals(new DnsRecordLog(), decoded);
+        assertNull(decoded.getDnsProviderType());
+        assertNull(decoded.getLogStatus());
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getSeq());
+        assertNull(decoded.getEpoch());
+        assertNull(decoded.getAccount());
+        assertNull(decoded.getContent());
+    }
+
+    @Test
+    void roundTripEmptyStringsAndLimits() {
+        final var dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.ALIYUN)
+                                                   .setAccount("")
+                                                   .setLogStatus(LogStatus.MODIFY_FAIL)
+                                                   .setTimestamp(0L)
+                                                   .setSeq(Long.MAX_VALUE)
+                                                   .setEpoch(0L)
+                                                   .setDomainOrMessage("")
+                                                   .setSourceIp("")
+                                                   .setTargetIp("x".repeat(300));
+        assertLogEquals(dnsRecordLog, this.roundTrip(dnsRecordLog));
+    }
+
+    @Test
+    void roundTripExplicitContent() {
+        final var dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.DNSPOD)
+                                                   .setLogStatus(LogStatus.ERROR)
+                                                   .setDomainOrMessage("message")
+                                                   .setContent("显式内容 ✅");
+        final var decoded = this.roundTrip(dnsRecordLog);
+        assertEquals("显式内容 ✅", decoded.getExplicitContent());
+        assertEquals("显式内容 ✅", decoded.getContent());
+    }
+
+    @Test
+    void generatedContentIsNotEncoded() {
+        final var dnsRecordLog = new DnsRecordLog().setDnsProviderType(DnsProviderType.HUAWEI)
+                                                   .setLogStatus(LogStatus.CREATE)
+                                                   .setDomainOrMessage("www.example.com")
+                                                   .setTargetIp("1.1.1.1");
+        final var decoded = this.roundTrip(dnsRecordLog);
+        assertNull(decoded.getExplicitContent());
+        assertEquals(dnsRecordLog.getContent(), decoded.getContent());
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        for (byte version : new byte[]{0, 2, 99, -1}) {
+            final var buffer = Buffer.buffer()
+                                     .appendString(PREFIX)
+                                     .appendByte(version)
+                                     .appendBytes(new byte[16]);
+            final var pos = PREFIX.getBytes(StandardCharsets.UTF_8).length;
+            assertThrows(IllegalStateException.class, () -> this.codec.decodeFromWire(pos, buffer), String.valueOf(version));
+        }
+    }
+
+    /**
+     * 写在已有数据之后，从非0的位置解码
+     */
+    private DnsRecordLog roundTrip(DnsRecordLog dnsRecordLog) {
+        final var buffer = Buffer.buffer()
+                                 .appendString(PREFIX);
+        final var pos = buffer.length();
+        this.codec.encodeToWire(buffer, dnsRecordLog);
+        return this.codec.decodeFromWire(pos, buffer);
+    }
+
+    private static void assertLogEquals(DnsRecordLog expected, DnsRecordLog actual) {
+        assertEquals(expected.getDnsProviderType(), actual.getDnsProviderType());
+        assertEquals(expected.getAccount(), actual.getAccount());
+        assertEquals(expected.getLogStatus(), actual.getLogStatus());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getSeq(), actual.getSeq());
+        assertEquals(expected.getEpoch(), actual.getEpoch());
+        assertEquals(expected.getDomainOrMessage(), actual.getDomainOrMessage());
+        assertEquals(expected.getSourceIp(), actual.getSourceIp());
+        assertEquals(expected.getTargetIp(), actual.getTargetIp());
+        assertEquals(expected.getExplicitContent(), actual.getExplicitContent());
+    }
+}